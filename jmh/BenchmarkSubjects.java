@@ -0,0 +1,138 @@
+import benchmarks.Structure;
+import benchmarks.Subject;
+import benchmarks.SubjectFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Gives the JMH benchmarks access to the trees, the scheduler, the dispatcher and the journal, which live in the unnamed
+ * package.
+ * Loaded by name from benchmarks.Subjects.
+ */
+public class BenchmarkSubjects implements SubjectFactory {
+    /**
+     * Default constructor.
+     */
+    public BenchmarkSubjects() {}
+
+    @Override
+    public Subject create(Structure structure) {
+        return new TreeSubject(switch (structure) {
+            case BST -> new BST<>();
+            case CONCURRENT_AVL_TREE -> new ConcurrentAVLTree<>();
+            default -> new AVLTree<>();
+        });
+    }
+
+    @Override
+    public Object[] processKeys(int size, long seed) {
+        Random random = new Random(seed);
+        ProcessInfo[] keys = new ProcessInfo[size];
+        for (int i = 0; i < size; i++) {
+            int priority = Math.min(random.nextInt(10), random.nextInt(10));
+            keys[i] = new ProcessInfo("process" + (i % 100), i, priority, 1 + random.nextInt(30));
+        }
+        return keys;
+    }
+
+    @Override
+    public LongSupplier scheduler(Object[] processes) {
+        SimulatedProcessClock clock = new SimulatedProcessClock();
+        ProcessRegistry registry = new ProcessRegistry();
+        for (Object process : processes) {
+            ProcessInfo processInfo = (ProcessInfo) process;
+            registry.add(new ProcessInfo(processInfo.getProcessName(), processInfo.getProcessId(),
+                    processInfo.getProcessPriority(), processInfo.getProcessRemainingRuntime(), clock));
+        }
+        PriorityScheduler scheduler = new PriorityScheduler(registry, PriorityScheduler.DEFAULT_POLICY, clock);
+        return () -> {
+            scheduler.run(null);
+            return scheduler.getSlicesExecuted();
+        };
+    }
+
+    @Override
+    public LongSupplier journal(Path directory, String durability, Object[] processes) {
+        ProcessJournal.Durability mode = ProcessJournal.Durability.valueOf(durability);
+        ProcessInfo[] copies = new ProcessInfo[processes.length];
+        for (int i = 0; i < processes.length; i++) {
+            ProcessInfo processInfo = (ProcessInfo) processes[i];
+            copies[i] = new ProcessInfo(processInfo.getProcessName(), processInfo.getProcessId(),
+                    processInfo.getProcessPriority(), processInfo.getProcessRemainingRuntime());
+        }
+        return () -> {
+            long operations = 0;
+            try (ProcessJournal journal = ProcessJournal.open(directory, mode)) {
+                for (ProcessInfo processInfo : copies) if (journal.insert(processInfo)) operations++;
+                for (ProcessInfo processInfo : copies) if (journal.updateRuntime(processInfo, 1)) operations++;
+                for (ProcessInfo processInfo : copies) if (journal.delete(processInfo)) operations++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return operations;
+        };
+    }
+
+    @Override
+    public LongSupplier dispatcher(Object[] processes, String mode, int workers) {
+        ProcessRegistry registry = new ProcessRegistry();
+        for (Object process : processes) {
+            ProcessInfo processInfo = (ProcessInfo) process;
+            registry.add(new ProcessInfo(processInfo.getProcessName(), processInfo.getProcessId(),
+                    processInfo.getProcessPriority(), processInfo.getProcessRemainingRuntime()));
+        }
+        PriorityScheduler scheduler = new PriorityScheduler(registry, PriorityScheduler.DEFAULT_POLICY);
+        ProcessDispatcher dispatcher = new ProcessDispatcher(scheduler, ProcessDispatcher.WorkerMode.valueOf(mode),
+                workers);
+        return () -> {
+            try {
+                dispatcher.run(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while dispatching", e);
+            }
+            return dispatcher.getSlicesExecuted();
+        };
+    }
+
+    /**
+     * Represents a BST, AVLTree or ConcurrentAVLTree under test. The keys are Integers or ProcessInfos, depending on the
+     * distribution.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class TreeSubject implements Subject {
+        private final Tree tree;
+
+        /**
+         * Constructs the subject.
+         *
+         * @param tree the empty tree to test.
+         */
+        TreeSubject(Tree tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public boolean insert(Object key) {
+            return tree.insert((Comparable) key);
+        }
+
+        @Override
+        public boolean search(Object key) {
+            return tree.search((Comparable) key);
+        }
+
+        @Override
+        public boolean delete(Object key) {
+            return tree.delete((Comparable) key);
+        }
+
+        @Override
+        public Iterable<?> elements() {
+            return tree;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how the throughput of ConcurrentAVLTree scales with the number of threads sharing it, against
+ * ConcurrentSkipListSet and an AVLTree behind a single lock. Every thread runs the same mixed workload on random keys
+ * from a range twice the size of the structure: a search, or for the given share of writes an insert or a delete, so
+ * the structure stays about half full. Compare the scores of the same structure across the thread counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class ConcurrentBenchmark {
+    @Param({"CONCURRENT_AVL_TREE", "CONCURRENT_SKIP_LIST", "SYNCHRONIZED_AVL_TREE"})
+    public Structure structure;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"50", "90"})
+    public int readPercent;
+
+    private Integer[] keys;
+    private Subject subject;
+
+    /**
+     * Boxes the key range once, and fills the structure with every other key.
+     */
+    @Setup(Level.Trial)
+    public void fill() {
+        keys = new Integer[size * 2];
+        for (int i = 0; i < keys.length; i++) keys[i] = i;
+        subject = Subjects.create(structure);
+        for (int i = 0; i < keys.length; i += 2) subject.insert(keys[i]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean oneThread() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean twoThreads() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean fourThreads() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean eightThreads() {
+        return operation();
+    }
+
+    /**
+     * Runs one operation of the workload on a random key.
+     *
+     * @return the result of the operation.
+     */
+    private boolean operation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = keys[random.nextInt(keys.length)];
+        int operation = random.nextInt(200);
+        if (operation < readPercent * 2) return subject.search(key);
+        return ((operation & 1) == 0) ? subject.insert(key) : subject.delete(key);
+    }
+}
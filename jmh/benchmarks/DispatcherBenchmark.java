@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how ProcessDispatcher scales with the number of workers. The processes run on the system clock, so every
+ * time slice sleeps for its length and the run time falls as more slices overlap. One operation runs the dispatcher
+ * until every process has completed; compare the scores of the same worker mode across the worker counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DispatcherBenchmark {
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String mode;
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int workers;
+
+    @Param({"200"})
+    public int size;
+
+    private Object[] processes;
+    private LongSupplier dispatcher;
+
+    /**
+     * Generates the processes.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        processes = Subjects.FACTORY.processKeys(size, 3);
+    }
+
+    /**
+     * Queues fresh copies of the processes, since a run consumes them. A run sleeps through hundreds of time slices,
+     * so the per-invocation setup does not distort the measurement.
+     */
+    @Setup(Level.Invocation)
+    public void queue() {
+        dispatcher = Subjects.FACTORY.dispatcher(processes, mode, workers);
+    }
+
+    @Benchmark
+    public long run() {
+        return dispatcher.getAsLong();
+    }
+}
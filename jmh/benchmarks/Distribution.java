@@ -0,0 +1,112 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Represents a distribution of keys, and generates the keys inserted into a structure and the keys probed afterwards.
+ */
+public enum Distribution {
+    /**
+     * Integers drawn uniformly at random, probed in random order.
+     */
+    RANDOM,
+    /**
+     * Integers inserted in ascending order, probed in random order.
+     */
+    SORTED,
+    /**
+     * Random integers probed with Zipfian popularity, so a few keys are probed very often.
+     */
+    ZIPFIAN,
+    /**
+     * Processes with one of ten priorities and ascending ids, so each priority forms a sorted cluster.
+     */
+    PRIORITY_CLUSTERS;
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * Generates the keys to insert.
+     *
+     * @param size the number of keys.
+     * @param seed the random seed.
+     * @return the keys, in insertion order.
+     */
+    public Object[] keys(int size, long seed) {
+        if (this == PRIORITY_CLUSTERS) return Subjects.FACTORY.processKeys(size, seed);
+        Random random = new Random(seed);
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) keys[i] = (this == SORTED) ? i : random.nextInt();
+        return keys;
+    }
+
+    /**
+     * Generates the keys to probe once the keys have been inserted.
+     *
+     * @param keys the inserted keys.
+     * @param seed the random seed.
+     * @return the probes, all of them inserted keys.
+     */
+    public Object[] probes(Object[] keys, long seed) {
+        Random random = new Random(seed);
+        if (this == ZIPFIAN) {
+            // The keys are in random order, so the popular ranks are scattered over the key space
+            Zipf zipf = new Zipf(keys.length, ZIPF_EXPONENT);
+            Object[] probes = new Object[keys.length];
+            for (int i = 0; i < probes.length; i++) probes[i] = keys[zipf.next(random)];
+            return probes;
+        }
+        Object[] probes = Arrays.copyOf(keys, keys.length);
+        for (int i = probes.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Object swap = probes[i];
+            probes[i] = probes[j];
+            probes[j] = swap;
+        }
+        return probes;
+    }
+
+    /**
+     * Represents a generator of Zipfian ranks in [0, n), using the method of Gray et al. ("Quickly generating
+     * billion-record synthetic databases"), which needs one O(n) pass to set up and O(1) per rank.
+     */
+    private static final class Zipf {
+        private final int n;
+        private final double theta;
+        private final double zetaN;
+        private final double alpha;
+        private final double eta;
+
+        /**
+         * Constructs the generator.
+         *
+         * @param n the number of ranks.
+         * @param theta the exponent, between 0 and 1.
+         */
+        Zipf(int n, double theta) {
+            this.n = n;
+            this.theta = theta;
+            double zeta = 0;
+            for (int i = 1; i <= n; i++) zeta += 1 / Math.pow(i, theta);
+            this.zetaN = zeta;
+            double zeta2 = 1 + 1 / Math.pow(2, theta);
+            this.alpha = 1 / (1 - theta);
+            this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetaN);
+        }
+
+        /**
+         * Draws the next rank, 0 being the most popular.
+         *
+         * @param random the source of randomness.
+         * @return the rank.
+         */
+        int next(Random random) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            if (uz < 1) return 0;
+            if (uz < 1 + Math.pow(0.5, theta)) return 1;
+            return (int) Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+        }
+    }
+}
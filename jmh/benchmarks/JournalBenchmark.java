@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures ProcessJournal in each durability mode. One operation opens a journal in a fresh directory, inserts the
+ * processes, updates their runtimes, deletes them again and closes the journal, so it journals three records per
+ * process. Divide the score by three times the size for the cost of one record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class JournalBenchmark {
+    @Param({"SYNC", "GROUP", "ASYNC"})
+    public String durability;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private Object[] processes;
+    private Path directory;
+    private LongSupplier journal;
+
+    /**
+     * Generates the processes.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        processes = Subjects.FACTORY.processKeys(size, 3);
+    }
+
+    /**
+     * Prepares a run in a new temporary directory, since a run leaves its files behind. A run journals thousands of
+     * records, so the per-invocation setup does not distort the measurement.
+     *
+     * @throws IOException if the directory can not be created.
+     */
+    @Setup(Level.Invocation)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = Subjects.FACTORY.journal(directory, durability, processes);
+    }
+
+    /**
+     * Deletes the directory of the last run.
+     *
+     * @throws IOException if a file can not be deleted.
+     */
+    @TearDown(Level.Invocation)
+    public void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public long run() {
+        return journal.getAsLong();
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures BST and AVLTree against java.util.TreeMap on mixed read/write workloads. Each operation is either a search
+ * or, for the given share of writes, a delete of a key followed by inserting it again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class MixedBenchmark extends TreeState {
+    private static final int PATTERN_LENGTH = 1 << 16;
+
+    @Param({"50", "90", "99"})
+    public int readPercent;
+
+    private boolean[] reads;
+    private int nextRead;
+
+    /**
+     * Generates which operations of the workload are reads.
+     */
+    @Setup(Level.Trial)
+    public void generatePattern() {
+        Random random = new Random(3);
+        reads = new boolean[PATTERN_LENGTH];
+        for (int i = 0; i < PATTERN_LENGTH; i++) reads[i] = random.nextInt(100) < readPercent;
+    }
+
+    @Benchmark
+    public boolean mixed() {
+        Object key = nextProbe();
+        boolean read = reads[nextRead];
+        nextRead = (nextRead + 1) & (PATTERN_LENGTH - 1);
+        if (read) return subject.search(key);
+        return subject.delete(key) & subject.insert(key);
+    }
+}
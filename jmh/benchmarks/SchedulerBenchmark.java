@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the PriorityScheduler loop that Main.executeProcesses runs, on processes with a simulated clock so that no
+ * time slice waits. One operation runs the scheduler until every process has completed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class SchedulerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private Object[] processes;
+    private LongSupplier scheduler;
+
+    /**
+     * Generates the processes.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        processes = Subjects.FACTORY.processKeys(size, 3);
+    }
+
+    /**
+     * Queues fresh copies of the processes, since a run consumes them. A run executes thousands of time slices, so the
+     * per-invocation setup does not distort the measurement.
+     */
+    @Setup(Level.Invocation)
+    public void queue() {
+        scheduler = Subjects.FACTORY.scheduler(processes);
+    }
+
+    @Benchmark
+    public long run() {
+        return scheduler.getAsLong();
+    }
+}
@@ -0,0 +1,9 @@
+package benchmarks;
+
+/**
+ * Represents a structure under test: java.util.TreeMap as the baseline, BST or AVLTree, and for the concurrent
+ * benchmarks ConcurrentAVLTree against ConcurrentSkipListSet and an AVLTree behind a lock.
+ */
+public enum Structure {
+    TREE_MAP, BST, AVL_TREE, CONCURRENT_AVL_TREE, CONCURRENT_SKIP_LIST, SYNCHRONIZED_AVL_TREE
+}
@@ -0,0 +1,19 @@
+package benchmarks;
+
+/**
+ * Represents a structure under test.
+ * Keys are passed as Objects because the trees live in the unnamed package, which the benchmarks (which JMH requires
+ * to be in a named package) can not refer to directly; see {@link Subjects}.
+ */
+public interface Subject {
+    boolean insert(Object key);
+    boolean search(Object key);
+    boolean delete(Object key);
+
+    /**
+     * Gets the elements of the structure in ascending order.
+     *
+     * @return the structure itself, or a view of its keys.
+     */
+    Iterable<?> elements();
+}
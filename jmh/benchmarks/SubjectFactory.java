@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.nio.file.Path;
+import java.util.function.LongSupplier;
+
+/**
+ * Represents the bridge from the benchmarks to the classes of the unnamed package.
+ * It is implemented by BenchmarkSubjects, which lives in the unnamed package and is loaded by name.
+ */
+public interface SubjectFactory {
+    /**
+     * Creates an empty tree.
+     *
+     * @param structure the kind of tree, BST or AVL_TREE.
+     * @return the tree under test.
+     */
+    Subject create(Structure structure);
+
+    /**
+     * Generates processes in arrival order: ascending ids, each with one of ten priorities (lower priorities being more
+     * common), so that the processes of each priority arrive sorted.
+     *
+     * @param size the number of processes.
+     * @param seed the random seed.
+     * @return the processes, as ProcessInfo objects.
+     */
+    Object[] processKeys(int size, long seed);
+
+    /**
+     * Prepares a PriorityScheduler over fresh copies of processes on a simulated clock.
+     *
+     * @param processes the processes returned by {@link #processKeys(int, long)}.
+     * @return an action running the scheduler to completion and returning the number of time slices it ran.
+     */
+    LongSupplier scheduler(Object[] processes);
+
+    /**
+     * Prepares a run of a ProcessJournal in an empty directory: inserting fresh copies of processes, updating their
+     * runtimes and deleting them again, then closing the journal.
+     *
+     * @param directory the empty directory the journal is written to.
+     * @param durability the name of the ProcessJournal.Durability mode.
+     * @param processes the processes returned by {@link #processKeys(int, long)}.
+     * @return an action performing the run and returning the number of operations journaled.
+     */
+    LongSupplier journal(Path directory, String durability, Object[] processes);
+
+    /**
+     * Prepares a ProcessDispatcher over fresh copies of processes on the system clock, so that every time slice really
+     * takes its time.
+     *
+     * @param processes the processes returned by {@link #processKeys(int, long)}.
+     * @param mode the name of the ProcessDispatcher.WorkerMode.
+     * @param workers the number of workers.
+     * @return an action running the dispatcher to completion and returning the number of time slices it ran.
+     */
+    LongSupplier dispatcher(Object[] processes, String mode, int workers);
+}
@@ -0,0 +1,137 @@
+package benchmarks;
+
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Creates the structures under test.
+ * TreeMap and ConcurrentSkipListSet are created here; the trees are created by the SubjectFactory of the unnamed
+ * package, loaded once by name.
+ */
+public final class Subjects {
+    /**
+     * The factory for the classes of the unnamed package.
+     */
+    public static final SubjectFactory FACTORY = loadFactory();
+
+    private Subjects() {}
+
+    /**
+     * Creates an empty structure.
+     *
+     * @param structure the kind of structure.
+     * @return the structure under test.
+     */
+    public static Subject create(Structure structure) {
+        return switch (structure) {
+            case TREE_MAP -> new TreeMapSubject();
+            case CONCURRENT_SKIP_LIST -> new SkipListSubject();
+            case SYNCHRONIZED_AVL_TREE -> new SynchronizedSubject(FACTORY.create(Structure.AVL_TREE));
+            default -> FACTORY.create(structure);
+        };
+    }
+
+    /**
+     * Loads the factory implemented in the unnamed package.
+     *
+     * @return the factory.
+     */
+    private static SubjectFactory loadFactory() {
+        try {
+            return (SubjectFactory) Class.forName("BenchmarkSubjects").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkSubjects is not on the class path", e);
+        }
+    }
+
+    /**
+     * Represents a TreeMap under test, as the baseline.
+     */
+    private static final class TreeMapSubject implements Subject {
+        private final TreeMap<Object, Boolean> map = new TreeMap<>();
+
+        @Override
+        public boolean insert(Object key) {
+            return map.putIfAbsent(key, Boolean.TRUE) == null;
+        }
+
+        @Override
+        public boolean search(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public boolean delete(Object key) {
+            return map.remove(key) != null;
+        }
+
+        @Override
+        public Iterable<?> elements() {
+            return map.keySet();
+        }
+    }
+
+    /**
+     * Represents a ConcurrentSkipListSet under test, as the baseline of the concurrent benchmarks.
+     */
+    private static final class SkipListSubject implements Subject {
+        private final ConcurrentSkipListSet<Object> set = new ConcurrentSkipListSet<>();
+
+        @Override
+        public boolean insert(Object key) {
+            return set.add(key);
+        }
+
+        @Override
+        public boolean search(Object key) {
+            return set.contains(key);
+        }
+
+        @Override
+        public boolean delete(Object key) {
+            return set.remove(key);
+        }
+
+        @Override
+        public Iterable<?> elements() {
+            return set;
+        }
+    }
+
+    /**
+     * Represents a structure that is made thread safe by one lock around every operation, the way an unsynchronized
+     * tree is shared between threads without ConcurrentAVLTree.
+     */
+    private static final class SynchronizedSubject implements Subject {
+        private final Subject subject;
+
+        /**
+         * Constructs the subject.
+         *
+         * @param subject the unsynchronized structure.
+         */
+        SynchronizedSubject(Subject subject) {
+            this.subject = subject;
+        }
+
+        @Override
+        public synchronized boolean insert(Object key) {
+            return subject.insert(key);
+        }
+
+        @Override
+        public synchronized boolean search(Object key) {
+            return subject.search(key);
+        }
+
+        @Override
+        public synchronized boolean delete(Object key) {
+            return subject.delete(key);
+        }
+
+        @Override
+        public Iterable<?> elements() {
+            return subject.elements();
+        }
+    }
+}
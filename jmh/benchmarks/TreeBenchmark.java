@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures BST and AVLTree against java.util.TreeMap on single operations, across sizes and key distributions.
+ * <p>
+ * search and deleteInsert time one operation on a full structure (deleteInsert removes a key and inserts it again, so
+ * the size stays the same); iterate times one full in-order traversal and build one fill of an empty structure, so
+ * divide those by the size for a per-element figure. Run with {@code -prof gc} for the bytes allocated per operation,
+ * and narrow the matrix with {@code -p}, e.g. {@code mvn -P jmh verify -Djmh.args="TreeBenchmark -p size=1000 -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class TreeBenchmark extends TreeState {
+    @Benchmark
+    public boolean search() {
+        return subject.search(nextProbe());
+    }
+
+    @Benchmark
+    public boolean deleteInsert() {
+        Object key = nextProbe();
+        return subject.delete(key) & subject.insert(key);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Object element : subject.elements()) blackhole.consume(element);
+    }
+
+    @Benchmark
+    public Subject build() {
+        Subject built = Subjects.create(structure);
+        for (Object key : keys) built.insert(key);
+        return built;
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Represents a structure filled with keys of one distribution, shared by the tree benchmarks.
+ * <p>
+ * BST is refused for sorted and clustered keys above {@value #MAX_DEGENERATE_SIZE} elements, where it degenerates into
+ * long chains and a single trial would take quadratic time; JMH reports those parameter combinations as failed and
+ * moves on.
+ */
+@State(Scope.Benchmark)
+public class TreeState {
+    private static final int MAX_DEGENERATE_SIZE = 20_000;
+
+    @Param({"TREE_MAP", "BST", "AVL_TREE"})
+    public Structure structure;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"RANDOM", "SORTED", "ZIPFIAN", "PRIORITY_CLUSTERS"})
+    public Distribution distribution;
+
+    protected Object[] keys;
+    protected Object[] probes;
+    protected Subject subject;
+    private int nextProbe;
+
+    /**
+     * Generates the keys and fills the structure with them.
+     */
+    @Setup(Level.Trial)
+    public void fill() {
+        if (structure == Structure.BST && size > MAX_DEGENERATE_SIZE
+                && (distribution == Distribution.SORTED || distribution == Distribution.PRIORITY_CLUSTERS))
+            throw new IllegalStateException("BST degenerates on " + distribution + " keys; skipped above "
+                    + MAX_DEGENERATE_SIZE + " elements");
+        keys = distribution.keys(size, 1);
+        probes = distribution.probes(keys, 2);
+        subject = Subjects.create(structure);
+        for (Object key : keys) subject.insert(key);
+    }
+
+    /**
+     * Gets the next key to probe, cycling through the probes.
+     *
+     * @return a key that was inserted into the structure.
+     */
+    protected Object nextProbe() {
+        Object probe = probes[nextProbe];
+        nextProbe = (nextProbe + 1 == probes.length) ? 0 : nextProbe + 1;
+        return probe;
+    }
+}
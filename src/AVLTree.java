@@ -1,11 +1,100 @@
-import java.util.ArrayList;
+import java.lang.reflect.Array;
+import java.util.AbstractSet;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * This class represents a generic AVL Tree which is a type of self-balancing binary search tree.
+ * The tree can also be used as a NavigableSet ordered by the natural ordering of its elements.
+ * <p>
+ * Inserts and deletes start from the path to the element last modified (the finger), so updates close to each other in
+ * key order cost time proportional to the distance between them rather than to the height of the tree. Searches can
+ * use the finger too through {@link #fingerSearch(Comparable)}, which moves it. search, contains and the other methods
+ * that only read the tree leave its state unchanged, so several threads may read an AVLTree at once as long as none of
+ * them modifies it or calls fingerSearch.
+ * <p>
+ * fingerSearch, insert and delete also remember the last few nodes they found or inserted, and check them before
+ * searching, so that repeated accesses to the same few elements take a handful of comparisons. The cache is valid only
+ * while modCount is unchanged, since a delete may move an element to another node.
  * @param <E>
  */
-public class AVLTree<E extends Comparable<E>> extends BST<E> {
+public class AVLTree<E extends Comparable<E>> extends BST<E> implements NavigableSet<E> {
+    /**
+     * Upper bound on the height of any AVL tree holding at most Integer.MAX_VALUE nodes (about 1.44 * log2(n)).
+     */
+    private static final int MAX_PATH_LENGTH = 64;
+
+    /**
+     * Subtree size from which set operations and parallel traversals fork their halves as separate tasks.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * Number of climbing steps after which a finger search gives up and starts again from the root.
+     */
+    private static final int MAX_FINGER_STEPS = 4;
+
+    /**
+     * Number of recently accessed nodes remembered by fingerSearch, insert and delete.
+     */
+    private static final int RECENT_SIZE = 4;
+
+    /**
+     * Reusable stack of the nodes visited by the current fingerSearch/insert/delete, from the root down. Between
+     * operations it holds the finger: the path to the node last accessed, from which the next operation starts.
+     */
+    @SuppressWarnings("unchecked")
+    private final TreeNode<E>[] path = (TreeNode<E>[]) new TreeNode<?>[MAX_PATH_LENGTH];
+
+    /**
+     * For each level of the path, the level of the nearest ancestor whose element is a lower (or upper) bound of the
+     * subtree at that level, or -1 if it is unbounded on that side.
+     */
+    private final int[] lowLevel = new int[MAX_PATH_LENGTH];
+    private final int[] highLevel = new int[MAX_PATH_LENGTH];
+
+    /**
+     * Number of levels of the path that form the finger, valid while modCount equals fingerModCount.
+     */
+    private int fingerDepth;
+    private int fingerModCount;
+
+    /**
+     * One past the deepest path level that may still hold a node.
+     */
+    private int pathEnd;
+
+    /**
+     * The result of the last comparison made by {@link #seek(Comparable)}.
+     */
+    private int lastComparison;
+
+    /**
+     * Ring of the nodes recently found or inserted by fingerSearch, insert and delete, valid while modCount equals
+     * recentModCount. search and the other read-only methods never read or update it.
+     */
+    @SuppressWarnings("unchecked")
+    private final TreeNode<E>[] recent = (TreeNode<E>[]) new TreeNode<?>[RECENT_SIZE];
+    private int recentModCount;
+    private int recentNext;
+
     /**
      * Default constructor
      */
@@ -13,11 +102,51 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
 
     /**
      * Constructor to initialize an AVL tree with an array of elements.
+     * The tree is built perfectly balanced in linear time after sorting (sorting is skipped for sorted input), and
+     * duplicate elements are only stored once.
      *
      * @param objects The array of elements representing nodes in the tree.
      */
     public AVLTree(E[] objects) {
-        Arrays.stream(objects).forEach(this::insert);
+        bulkLoad(Arrays.copyOf(objects, objects.length), objects.length);
+    }
+
+    /**
+     * Constructor to initialize an AVL tree with a collection of elements.
+     *
+     * @param objects The collection of elements representing nodes in the tree.
+     * @see #AVLTree(Comparable[])
+     */
+    public AVLTree(Collection<? extends E> objects) {
+        E[] elements = toArray(objects);
+        bulkLoad(elements, elements.length);
+    }
+
+    /**
+     * Constructor to initialize an AVL tree from an iterator, typically over elements that are already sorted.
+     * The elements are buffered once and the tree is then built directly in linear time.
+     *
+     * @param objects the iterator supplying the elements representing nodes in the tree.
+     */
+    @SuppressWarnings("unchecked")
+    public AVLTree(Iterator<? extends E> objects) {
+        E[] elements = (E[]) new Comparable<?>[16];
+        int length = 0;
+        while (objects.hasNext()) {
+            if (length == elements.length) elements = Arrays.copyOf(elements, length * 2);
+            elements[length++] = objects.next();
+        }
+        bulkLoad(elements, length);
+    }
+
+    /**
+     * Constructor to wrap a detached, balanced subtree whose heights and sizes are up to date.
+     *
+     * @param root the root of the subtree, may be null.
+     */
+    private AVLTree(TreeNode<E> root) {
+        this.root = root;
+        this.size = sizeOf(root);
     }
 
     /**
@@ -31,21 +160,140 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
         return new AVLTreeNode<E>(e);
     }
 
+    /**
+     * Creates a new Node in the AVL Tree with the given children, deriving its height from them.
+     *
+     * @param e the element to be included in the new node.
+     * @param left the left child of the new node.
+     * @param right the right child of the new node.
+     * @return a new AVLTreeNode containing the element.
+     */
+    @Override
+    protected TreeNode<E> createNewNode(E e, TreeNode<E> left, TreeNode<E> right) {
+        TreeNode<E> node = super.createNewNode(e, left, right);
+        updateHeight((AVLTreeNode<E>) node);
+        return node;
+    }
+
+    /**
+     * Replaces the contents of the tree with the given elements, building a perfectly balanced tree directly.
+     * The elements are only sorted if they are not already in ascending order, and duplicates are dropped (the first
+     * occurrence is kept). The array is used as scratch space and may be reordered.
+     *
+     * @param elements the elements to be stored in the tree.
+     * @param length the number of elements at the start of the array to use.
+     */
+    private void bulkLoad(E[] elements, int length) {
+        int distinct = sortDistinct(elements, length);
+        root = buildBalanced(elements, 0, distinct - 1);
+        size = distinct;
+        modCount++;
+    }
+
+    /**
+     * Sorts the start of an array and moves its distinct elements to the front, keeping the first of any duplicates.
+     * Sorting is skipped if the elements are already in ascending order.
+     *
+     * @param elements the elements to sort, reordered in place.
+     * @param length the number of elements at the start of the array to use.
+     * @return the number of distinct elements, which now fill the start of the array in ascending order.
+     */
+    private static <E extends Comparable<E>> int sortDistinct(E[] elements, int length) {
+        if (!isSorted(elements, length)) Arrays.sort(elements, 0, length);
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (distinct == 0 || elements[distinct - 1].compareTo(elements[i]) != 0) elements[distinct++] = elements[i];
+        }
+        return distinct;
+    }
+
+    /**
+     * Checks if the first length elements of an array are in ascending (non-decreasing) order.
+     *
+     * @param elements the elements to check.
+     * @param length the number of elements to check.
+     * @return true if the elements are already sorted, otherwise false.
+     */
+    private static <E extends Comparable<E>> boolean isSorted(E[] elements, int length) {
+        for (int i = 1; i < length; i++) {
+            if (elements[i - 1].compareTo(elements[i]) > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Builds a balanced subtree from a range of sorted, distinct elements.
+     * The nodes are created directly rather than through createNewNode, since this runs from the constructors.
+     *
+     * @param sorted the sorted elements.
+     * @param low the index of the first element in the range.
+     * @param high the index of the last element in the range.
+     * @return the root of the subtree, or null if the range is empty.
+     */
+    private static <E> TreeNode<E> buildBalanced(E[] sorted, int low, int high) {
+        if (low > high) return null;
+        int mid = (low + high) >>> 1;
+        AVLTreeNode<E> node = new AVLTreeNode<>(sorted[mid]);
+        node.left = buildBalanced(sorted, low, mid - 1);
+        node.right = buildBalanced(sorted, mid + 1, high);
+        node.height = Math.max(heightOf(node.left), heightOf(node.right)) + 1;
+        node.size = sizeOf(node.left) + sizeOf(node.right) + 1;
+        return node;
+    }
+
     /**
      * Inserts a node into the AVL tree and balances the tree after insertion.
+     * The nodes visited on the way down are recorded on the path stack so that the tree can be re-balanced on the
+     * way back up without searching for the element a second time.
      *
      * @param e the element to be inserted.
      * @return true if the insertion is successful, otherwise false.
      */
     @Override
     public boolean insert(E e) {
-        boolean isSuccessful = super.insert(e);
-        if(isSuccessful) balancePath(e);
-        return isSuccessful;
+        if (!TreeMetrics.ENABLED) return insertElement(e);
+        long start = System.nanoTime();
+        boolean inserted = insertElement(e);
+        metrics.insert.record(System.nanoTime() - start);
+        return inserted;
+    }
+
+    /**
+     * Inserts an element, recording the nodes visited on the path stack and re-balancing on the way back up.
+     * The search for the insertion point starts from the finger (see {@link #seek(Comparable)}).
+     *
+     * @param e the element to be inserted.
+     * @return true if the insertion is successful, otherwise false.
+     */
+    private boolean insertElement(E e) {
+        if (root == null) {
+            root = createNewNode(e);
+            size++;
+            modCount++;
+            rememberRecent(root);
+            return true;
+        }
+        if (recentNode(e) != null) return false;
+        int depth = seek(e);
+        if (lastComparison == 0) {
+            retainFinger(depth);
+            rememberRecent(path[depth - 1]);
+            return false;
+        }
+        TreeNode<E> parent = path[depth - 1];
+        TreeNode<E> node = createNewNode(e);
+        if (lastComparison < 0) parent.left = node;
+        else parent.right = node;
+        size++;
+        modCount++;
+        balancePath(depth);
+        // Rotations relink nodes without moving elements between them, so the new node still holds the element
+        rememberRecent(node);
+        return true;
     }
 
     /**
-     * Updates the height of a given AVL tree Node.
+     * Updates the height and subtree size of a given AVL tree Node.
      *
      * @param node the node whose height is to be updated.
      */
@@ -54,32 +302,249 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
         else if(node.left == null) node.height = ((AVLTreeNode<E>)node.right).height + 1;
         else if(node.right == null) node.height = ((AVLTreeNode<E>)node.left).height + 1;
         else node.height = Math.max(((AVLTreeNode<E>)node.right).height, ((AVLTreeNode<E>)node.left).height) + 1;
+        updateSize(node);
+    }
+
+    /**
+     * Updates the subtree size of a given AVL tree Node from the sizes of its children.
+     *
+     * @param node the node whose size is to be updated.
+     */
+    private void updateSize(AVLTreeNode<E> node) {
+        node.size = sizeOf(node.left) + sizeOf(node.right) + 1;
     }
 
+    /**
+     * Gets the number of nodes in the subtree rooted at a given node.
+     *
+     * @param node the root of the subtree, may be null.
+     * @return the number of nodes in the subtree.
+     */
+    @Override
+    protected int subtreeSize(TreeNode<E> node) {
+        return sizeOf(node);
+    }
 
     /**
-     * Balances the AVL tree along the path from a specified node to the root.
+     * Gets the number of nodes in the subtree rooted at a given node.
      *
-     * @param e the element in the AVL tree from where the balancing starts.
+     * @param node the root of the subtree, may be null.
+     * @return the number of nodes in the subtree.
      */
-    private void balancePath(E e) {
-        ArrayList<TreeNode<E>> path = path(e);
+    static int sizeOf(TreeNode<?> node) {
+        return (node == null) ? 0 : ((AVLTreeNode<?>) node).size;
+    }
 
-        for(int i = path.size() - 1; i >= 0; i--) {
-            AVLTreeNode<E> A = (AVLTreeNode<E>)path.get(i);
+
+    /**
+     * Balances the AVL tree along the recorded path, starting at the deepest node and moving towards the root.
+     * Rebalancing stops as soon as a subtree ends up with the same height it had before the modification, since none of
+     * the nodes above it can be unbalanced; only their subtree sizes are updated from then on.
+     *
+     * @param depth the number of nodes on the path stack.
+     */
+    private void balancePath(int depth) {
+        if (depth > pathEnd) pathEnd = depth;
+        int fingerEnd = depth;
+        int i = depth - 1;
+        for (; i >= 0; i--) {
+            AVLTreeNode<E> A = (AVLTreeNode<E>) path[i];
+            int oldHeight = A.height;
             updateHeight(A);
-            AVLTreeNode<E> parentOfA = (A == root) ? null : (AVLTreeNode<E>)(path.get(i - 1));
+            TreeNode<E> parentOfA = (i == 0) ? null : path[i - 1];
+            TreeNode<E> subtreeRoot = A;
 
             switch (balanceFactor(A)) {
                 case -2:
-                    if(balanceFactor((AVLTreeNode<E>)A.left) <= 0) balanceLL(A, parentOfA);
-                    else balanceLR(A, parentOfA);
+                    if(balanceFactor((AVLTreeNode<E>)A.left) <= 0) subtreeRoot = balanceLL(A, parentOfA);
+                    else subtreeRoot = balanceLR(A, parentOfA);
                     break;
                 case 2:
-                    if(balanceFactor((AVLTreeNode<E>)A.right) >= 0) balanceRR(A, parentOfA);
-                    else balanceRL(A, parentOfA);
+                    if(balanceFactor((AVLTreeNode<E>)A.right) >= 0) subtreeRoot = balanceRR(A, parentOfA);
+                    else subtreeRoot = balanceRL(A, parentOfA);
+            }
+            if (subtreeRoot != A) {
+                // The rotated subtree covers the same range of keys, so the path down to its new root is still valid
+                path[i] = subtreeRoot;
+                fingerEnd = i + 1;
+            }
+            if (((AVLTreeNode<E>) subtreeRoot).height == oldHeight) {
+                i--;
+                break;
+            }
+        }
+        for (; i >= 0; i--) updateSize((AVLTreeNode<E>) path[i]);
+        retainFinger(fingerEnd);
+    }
+
+    /**
+     * Finds the place of an element, starting from the finger when it is still valid.
+     * <p>
+     * Each level of the finger covers a range of keys bounded by two of its ancestors. The search climbs from the last
+     * accessed node to the lowest level whose range holds the element, jumping straight to the ancestor that bounds
+     * the range on the side the element lies, and descends from there. An access near the previous one therefore only
+     * visits the few levels that separate them instead of starting at the root. If the element is not found within
+     * MAX_FINGER_STEPS jumps the search starts from the root, so distant accesses cost only a few extra comparisons.
+     * <p>
+     * The nodes visited are left on the path stack, from the root down, and {@link #lastComparison} holds the result of
+     * comparing the element with the last of them.
+     *
+     * @param e the element to find.
+     * @return the number of nodes on the path, the last being the node holding the element (if lastComparison is 0) or
+     * the node under which it would be inserted.
+     */
+    private int seek(E e) {
+        int comparisons = 0;
+        int depth = 0;
+        if (fingerDepth > 0 && fingerModCount == modCount) {
+            depth = fingerDepth - 1;
+            // Once the element is known to be within one bound, it is within that bound of every enclosing range
+            boolean checkLow = true;
+            boolean checkHigh = true;
+            for (int steps = 0; depth > 0; steps++) {
+                if (steps == MAX_FINGER_STEPS) {
+                    depth = 0;
+                    break;
+                }
+                int low = lowLevel[depth];
+                int high = highLevel[depth];
+                if (checkLow && low >= 0) {
+                    comparisons++;
+                    if (e.compareTo(path[low].element) <= 0) {
+                        depth = low;
+                        checkHigh = false;
+                        continue;
+                    }
+                    checkLow = false;
+                }
+                if (checkHigh && high >= 0) {
+                    comparisons++;
+                    if (e.compareTo(path[high].element) >= 0) {
+                        depth = high;
+                        checkLow = false;
+                        continue;
+                    }
+                    checkHigh = false;
+                }
+                break;
+            }
+        }
+        TreeNode<E> current;
+        if (depth == 0) {
+            current = root;
+            lowLevel[0] = -1;
+            highLevel[0] = -1;
+        } else {
+            current = path[depth];
+        }
+
+        int cmp = 0;
+        while (current != null) {
+            path[depth] = current;
+            cmp = e.compareTo(current.element);
+            comparisons++;
+            if (cmp == 0) {
+                depth++;
+                break;
+            }
+            lowLevel[depth + 1] = (cmp < 0) ? lowLevel[depth] : depth;
+            highLevel[depth + 1] = (cmp < 0) ? depth : highLevel[depth];
+            depth++;
+            current = (cmp < 0) ? current.left : current.right;
+        }
+        if (depth > pathEnd) pathEnd = depth;
+        lastComparison = cmp;
+        if (TreeMetrics.ENABLED) metrics.comparisons.add(comparisons);
+        return depth;
+    }
+
+    /**
+     * Keeps the first levels of the path stack as the finger for the next operation, and clears the levels below it so
+     * that they do not keep removed nodes reachable.
+     *
+     * @param depth the number of levels to keep.
+     */
+    private void retainFinger(int depth) {
+        if (depth < pathEnd) Arrays.fill(path, depth, pathEnd, null);
+        pathEnd = depth;
+        fingerDepth = depth;
+        fingerModCount = modCount;
+    }
+
+    /**
+     * Searches for an element among the recently accessed nodes, and otherwise starting from the finger, moving the
+     * finger to the place of the element. A sequence of searches close to each other in key order, or repeating the
+     * same few elements, is cheaper this way than with {@link #search(Comparable)}, but unlike search this changes the
+     * tree's internal state, so it must not be called while another thread is reading the tree.
+     *
+     * @param e the element to search for.
+     * @return true if the element is found in the tree, otherwise false.
+     */
+    public boolean fingerSearch(E e) {
+        if (!TreeMetrics.ENABLED) return fingerFind(e);
+        long start = System.nanoTime();
+        boolean found = fingerFind(e);
+        metrics.search.record(System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Searches for an element from the finger (see {@link #seek(Comparable)}), keeping the path to it as the finger.
+     *
+     * @param e the element to search for.
+     * @return true if the element is found in the tree, otherwise false.
+     */
+    private boolean fingerFind(E e) {
+        if (root == null) return false;
+        if (recentNode(e) != null) return true;
+        int depth = seek(e);
+        retainFinger(depth);
+        if (lastComparison != 0) return false;
+        rememberRecent(path[depth - 1]);
+        return true;
+    }
+
+    /**
+     * Looks for an element among the recently accessed nodes.
+     *
+     * @param e the element to look for.
+     * @return the node holding the element, or null if none of the recently accessed nodes does or the tree has been
+     * modified since they were accessed.
+     */
+    TreeNode<E> recentNode(E e) {
+        if (recentModCount != modCount) return null;
+        int comparisons = 0;
+        TreeNode<E> found = null;
+        for (int i = 0; i < RECENT_SIZE && recent[i] != null; i++) {
+            comparisons++;
+            if (e.compareTo(recent[i].element) == 0) {
+                found = recent[i];
+                break;
             }
         }
+        if (TreeMetrics.ENABLED) metrics.comparisons.add(comparisons);
+        return found;
+    }
+
+    /**
+     * Remembers a node as recently accessed, first forgetting the others if the tree has been modified since.
+     *
+     * @param node the node holding the element just found or inserted.
+     */
+    private void rememberRecent(TreeNode<E> node) {
+        if (recentModCount != modCount) forgetRecent();
+        recent[recentNext] = node;
+        recentNext = (recentNext + 1) % RECENT_SIZE;
+    }
+
+    /**
+     * Forgets the recently accessed nodes, so that they do not keep removed nodes reachable, and revalidates the
+     * cache for the current modCount.
+     */
+    private void forgetRecent() {
+        Arrays.fill(recent, null);
+        recentNext = 0;
+        recentModCount = modCount;
     }
 
     /**
@@ -87,13 +552,15 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
      * This occurs when A has a balance factor of -2 and A.left has a balance factor of less than or equal to 0.
      *
      * @param A the node with a balance factor of -2.
-     * @param parentOfA the parent of node A.
+     * @param parentOfA the parent of node A, or null if A is the root of the tree or of a detached subtree.
+     * @return the new root of the rotated subtree.
      */
-    private void balanceLL(TreeNode<E> A, TreeNode<E> parentOfA) {
+    private TreeNode<E> balanceLL(TreeNode<E> A, TreeNode<E> parentOfA) {
+        if (TreeMetrics.ENABLED) metrics.rotationsLL.increment();
         TreeNode<E> B = A.left;
 
         if(A == root) root = B;
-        else {
+        else if (parentOfA != null) {
             if(parentOfA.left == A) parentOfA.left = B;
             else parentOfA.right = B;
         }
@@ -101,6 +568,7 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
         B.right = A;
         updateHeight((AVLTreeNode<E>) A);
         updateHeight((AVLTreeNode<E>) B);
+        return B;
     }
 
     /**
@@ -108,14 +576,16 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
      * This occurs when A has a balance factor of -2 and A.left has a balance factor greater than 0.
      *
      * @param A the node with a balance factor of -2.
-     * @param parentOfA the parent of node A.
+     * @param parentOfA the parent of node A, or null if A is the root of the tree or of a detached subtree.
+     * @return the new root of the rotated subtree.
      */
-    private void balanceLR(TreeNode<E> A, TreeNode<E> parentOfA) {
+    private TreeNode<E> balanceLR(TreeNode<E> A, TreeNode<E> parentOfA) {
+        if (TreeMetrics.ENABLED) metrics.rotationsLR.increment();
         TreeNode<E> B = A.left;
         TreeNode<E> C = B.right;
 
         if(A == root) root = C;
-        else {
+        else if (parentOfA != null) {
             if(parentOfA.left == A) parentOfA.left = C;
             else parentOfA.right = C;
         }
@@ -127,6 +597,7 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
         updateHeight((AVLTreeNode<E>) A);
         updateHeight((AVLTreeNode<E>) B);
         updateHeight((AVLTreeNode<E>) C);
+        return C;
     }
 
     /**
@@ -134,13 +605,15 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
      * This occurs when A has a balance factor of +2 and A.right has a balance factor greater than or equal to 0.
      *
      * @param A the node with a balance factor of +2.
-     * @param parentOfA the parent of node A.
+     * @param parentOfA the parent of node A, or null if A is the root of the tree or of a detached subtree.
+     * @return the new root of the rotated subtree.
      */
-    private void balanceRR(TreeNode<E> A, TreeNode<E> parentOfA) {
+    private TreeNode<E> balanceRR(TreeNode<E> A, TreeNode<E> parentOfA) {
+        if (TreeMetrics.ENABLED) metrics.rotationsRR.increment();
         TreeNode<E> B = A.right;
 
         if(A == root) root = B;
-        else {
+        else if (parentOfA != null) {
             if(parentOfA.left == A) parentOfA.left = B;
             else parentOfA.right = B;
         }
@@ -148,6 +621,7 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
         B.left = A;
         updateHeight((AVLTreeNode<E>) A);
         updateHeight((AVLTreeNode<E>) B);
+        return B;
     }
 
     /**
@@ -155,14 +629,16 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
      * This occurs when A has a balance factor of +2 and A.right has a balance factor less than 0.
      *
      * @param A the node with a balance factor of +2.
-     * @param parentOfA the parent of node A.
+     * @param parentOfA the parent of node A, or null if A is the root of the tree or of a detached subtree.
+     * @return the new root of the rotated subtree.
      */
-    private void balanceRL(TreeNode<E> A, TreeNode<E> parentOfA) {
+    private TreeNode<E> balanceRL(TreeNode<E> A, TreeNode<E> parentOfA) {
+        if (TreeMetrics.ENABLED) metrics.rotationsRL.increment();
         TreeNode<E> B = A.right;
         TreeNode<E> C = B.left;
 
         if(A == root) root = C;
-        else {
+        else if (parentOfA != null) {
             if(parentOfA.left == A) parentOfA.left = C;
             else parentOfA.right = C;
         }
@@ -173,6 +649,7 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
         updateHeight((AVLTreeNode<E>) A);
         updateHeight((AVLTreeNode<E>) B);
         updateHeight((AVLTreeNode<E>) C);
+        return C;
     }
 
     /**
@@ -195,52 +672,1571 @@ public class AVLTree<E extends Comparable<E>> extends BST<E> {
      */
     @Override
     public boolean delete(E element) {
-        if(root == null) return false;
-        TreeNode<E> parent = null;
-        TreeNode<E> current = root;
+        if (!TreeMetrics.ENABLED) return deleteElement(element);
+        long start = System.nanoTime();
+        boolean deleted = deleteElement(element);
+        metrics.delete.record(System.nanoTime() - start);
+        return deleted;
+    }
 
-        while(current != null) {
-            if(element.compareTo(current.element) < 0) {
-                parent = current;
-                current = current.left;
-            } else if (element.compareTo(current.element) > 0) {
-                parent = current;
-                current = current.right;
-            } else break;
+    /**
+     * Deletes an element, recording the nodes visited on the path stack and re-balancing on the way back up.
+     * The search for the element starts from the finger (see {@link #seek(Comparable)}).
+     *
+     * @param element the element to be deleted.
+     * @return true if the element is found and successfully deleted, otherwise false.
+     */
+    private boolean deleteElement(E element) {
+        if (root == null) return false;
+        int depth = seek(element);
+        if (lastComparison != 0) {
+            retainFinger(depth);
+            return false;
         }
+        TreeNode<E> current = path[--depth];
 
-        if(current == null) return false;
         if(current.left == null) {
+            TreeNode<E> parent = (depth == 0) ? null : path[depth - 1];
             if(parent == null) root = current.right;
-            else {
-                if(element.compareTo(parent.element) < 0) parent.left = current.right;
-                else parent.right = current.right;
-                balancePath(parent.element);
-            }
+            else if(parent.left == current) parent.left = current.right;
+            else parent.right = current.right;
         } else {
-            TreeNode<E> parentOfRightMost = current;
+            depth++;
+            lowLevel[depth] = lowLevel[depth - 1];
+            highLevel[depth] = depth - 1;
             TreeNode<E> rightMost = current.left;
 
             while (rightMost.right != null) {
-                parentOfRightMost = rightMost;
+                path[depth++] = rightMost;
+                lowLevel[depth] = depth - 1;
+                highLevel[depth] = highLevel[depth - 1];
                 rightMost = rightMost.right;
             }
+            TreeNode<E> parentOfRightMost = path[depth - 1];
             current.element = rightMost.element;
             if (parentOfRightMost.right == rightMost) parentOfRightMost.right = rightMost.left;
             else parentOfRightMost.left = rightMost.left;
-            balancePath(parentOfRightMost.element);
         }
         size--;
+        modCount++;
+        balancePath(depth);
+        // The element of another node may have moved into the deleted one, so every remembered node is stale
+        forgetRecent();
         return true;
     }
 
     /**
-     * Represents a TreeNode with a height (used for balancing the tree).
+     * Inserts a batch of elements by merging it into the tree. Elements already in the tree are left in place.
+     * The batch is sorted and merged into the tree top-down with join, so inserting k elements into a tree of n costs
+     * O(k log(n / k + 1)) rather than a full descent and rebalance per element.
+     *
+     * @param elements the elements to be inserted.
+     * @return the number of elements inserted.
+     */
+    @Override
+    public int insertAll(Collection<? extends E> elements) {
+        if (elements.isEmpty()) return 0;
+        E[] sorted = toArray(elements);
+        int distinct = sortDistinct(sorted, sorted.length);
+        TreeNode<E> tree = root;
+        root = null;
+        root = union(tree, sorted, 0, distinct - 1);
+        int inserted = sizeOf(root) - size;
+        size += inserted;
+        if (inserted > 0) modCount++;
+        // The merge may reshape the tree even when no element changes
+        retainFinger(0);
+        forgetRecent();
+        return inserted;
+    }
+
+    /**
+     * Deletes a batch of elements by cutting them out of the tree. Elements not in the tree are ignored.
+     * Like {@link #insertAll(Collection)}, deleting k elements from a tree of n costs O(k log(n / k + 1)).
+     *
+     * @param elements the elements to be deleted.
+     * @return the number of elements deleted.
+     */
+    @Override
+    public int deleteAll(Collection<? extends E> elements) {
+        if (elements.isEmpty() || root == null) return 0;
+        E[] sorted = toArray(elements);
+        int distinct = sortDistinct(sorted, sorted.length);
+        TreeNode<E> tree = root;
+        root = null;
+        root = difference(tree, sorted, 0, distinct - 1);
+        int deleted = size - sizeOf(root);
+        size -= deleted;
+        if (deleted > 0) modCount++;
+        // The merge may reshape the tree even when no element changes
+        retainFinger(0);
+        forgetRecent();
+        return deleted;
+    }
+
+    /**
+     * Splits the tree at a key in O(log n). The elements less than the key stay in this tree, and the elements greater
+     * than or equal to the key are moved to a new tree.
+     *
+     * @param key the key to split at; it does not have to be in the tree.
+     * @return a new tree holding the elements greater than or equal to the key.
+     */
+    public AVLTree<E> split(E key) {
+        Objects.requireNonNull(key);
+        TreeNode<E> tree = root;
+        root = null;
+        Split<E> split = split(tree, key, new Split<>());
+        TreeNode<E> upper = (split.node == null) ? split.right : join(null, split.node, split.right);
+        root = split.left;
+        size = sizeOf(root);
+        modCount++;
+        return new AVLTree<>(upper);
+    }
+
+    /**
+     * Joins two trees and a pivot element into a new tree in O(log n). Every element of the left tree must be less than
+     * the pivot, and every element of the right tree greater. The nodes of both trees are moved into the new tree,
+     * leaving them empty.
+     *
+     * @param left the tree of elements less than the pivot.
+     * @param pivot the element to place between the trees.
+     * @param right the tree of elements greater than the pivot.
+     * @param <E> the type of the elements.
+     * @return a new tree holding the elements of both trees and the pivot.
+     * @throws IllegalArgumentException if the elements are not in order, or both arguments are the same tree.
+     */
+    public static <E extends Comparable<E>> AVLTree<E> join(AVLTree<E> left, E pivot, AVLTree<E> right) {
+        Objects.requireNonNull(pivot);
+        if (left == right && left.root != null) throw new IllegalArgumentException("Can not join a tree with itself");
+        if (left.root != null && left.highestNode().element.compareTo(pivot) >= 0)
+            throw new IllegalArgumentException("Left tree has elements not less than the pivot");
+        if (right.root != null && right.lowestNode().element.compareTo(pivot) <= 0)
+            throw new IllegalArgumentException("Right tree has elements not greater than the pivot");
+        TreeNode<E> leftRoot = left.detach();
+        TreeNode<E> rightRoot = right.detach();
+        return new AVLTree<>(left.join(leftRoot, left.createNewNode(pivot), rightRoot));
+    }
+
+    /**
+     * Adds every element of another tree to this tree, leaving the other tree unchanged.
+     * Elements already in this tree are left in place.
+     *
+     * @param other the tree whose elements are added.
+     * @return true if this tree changed, otherwise false.
+     */
+    public boolean union(AVLTree<E> other) {
+        if (other == this) return false;
+        return apply(SetOperation.UNION, other);
+    }
+
+    /**
+     * Removes every element from this tree that is not in another tree, leaving the other tree unchanged.
+     *
+     * @param other the tree whose elements are kept.
+     * @return true if this tree changed, otherwise false.
+     */
+    public boolean intersection(AVLTree<E> other) {
+        if (other == this) return false;
+        return apply(SetOperation.INTERSECTION, other);
+    }
+
+    /**
+     * Removes every element of another tree from this tree, leaving the other tree unchanged.
+     *
+     * @param other the tree whose elements are removed.
+     * @return true if this tree changed, otherwise false.
+     */
+    public boolean difference(AVLTree<E> other) {
+        if (other == this) {
+            boolean modified = !isEmpty();
+            clear();
+            return modified;
+        }
+        return apply(SetOperation.DIFFERENCE, other);
+    }
+
+    /**
+     * Combines this tree with another tree using a set operation, storing the result in this tree.
+     * Large trees are combined in parallel on the common ForkJoinPool.
+     *
+     * @param operation the set operation.
+     * @param other the other tree, which is only read.
+     * @return true if this tree changed, otherwise false.
+     */
+    private boolean apply(SetOperation operation, AVLTree<E> other) {
+        int oldSize = size;
+        TreeNode<E> mine = detach();
+        TreeNode<E> theirs = other.root;
+        if (sizeOf(mine) + sizeOf(theirs) >= PARALLEL_THRESHOLD)
+            root = ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> combine(operation, mine, theirs)));
+        else
+            root = combine(operation, mine, theirs);
+        size = sizeOf(root);
+        modCount++;
+        return size != oldSize;
+    }
+
+    /**
+     * Combines a detached subtree of this tree with a subtree of another tree using a set operation.
+     * The subtree of this tree is split at the root element of the other subtree, the halves are combined with the
+     * children on the same side, and the results are joined again, keeping the root element if the operation calls for
+     * it. This takes O(m log(n / m + 1)) work for subtrees of sizes m and n, m &lt;= n. The two halves touch disjoint
+     * nodes, so for large subtrees the left half is forked as a separate task.
+     *
+     * @param operation the set operation.
+     * @param mine the root of the subtree of this tree, whose nodes are reused; may be null.
+     * @param theirs the root of the subtree of the other tree, which is only read; may be null.
+     * @return the root of the combined subtree.
+     */
+    private TreeNode<E> combine(SetOperation operation, TreeNode<E> mine, TreeNode<E> theirs) {
+        if (mine == null) return (operation == SetOperation.UNION) ? copy(theirs) : null;
+        if (theirs == null) return (operation == SetOperation.INTERSECTION) ? null : mine;
+        boolean parallel = sizeOf(mine) + sizeOf(theirs) >= PARALLEL_THRESHOLD;
+        Split<E> split = split(mine, theirs.element, new Split<>());
+        TreeNode<E> left;
+        TreeNode<E> right;
+        if (parallel) {
+            ForkJoinTask<TreeNode<E>> leftTask = ForkJoinTask.adapt(() -> combine(operation, split.left, theirs.left)).fork();
+            right = combine(operation, split.right, theirs.right);
+            left = leftTask.join();
+        } else {
+            left = combine(operation, split.left, theirs.left);
+            right = combine(operation, split.right, theirs.right);
+        }
+        switch (operation) {
+            case UNION:
+                return join(left, (split.node != null) ? split.node : createNewNode(theirs.element), right);
+            case INTERSECTION:
+                return (split.node != null) ? join(left, split.node, right) : join(left, right);
+            default:
+                return join(left, right);
+        }
+    }
+
+    /**
+     * Performs an action on every element, in parallel for large trees. The tree is divided at subtree roots, and
+     * subtrees of at least PARALLEL_THRESHOLD nodes hand their left half to another worker, so the action may run
+     * concurrently and in no particular order. The tree must not be modified during the call.
+     *
+     * @param action the action to perform on each element; must be safe to call from several threads.
+     * @throws ConcurrentModificationException if the tree was modified during the call.
+     */
+    public void parallelForEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        invoke(() -> {
+            forEachIn(root, action);
+            return null;
+        });
+    }
+
+    /**
+     * Maps every element to a value and combines the values, in parallel for large trees. Values are combined in
+     * ascending element order, so the combiner only has to be associative, not commutative.
+     * For example, {@code tree.parallelReduce(0L, p -> (long) p.getProcessRemainingRuntime(), Long::sum)} totals the
+     * remaining runtime of a tree of processes.
+     *
+     * @param identity the identity value of the combiner, returned for an empty tree.
+     * @param mapper the function mapping an element to a value.
+     * @param combiner the associative function combining two values.
+     * @param <R> the type of the values.
+     * @return the combination of the values of every element.
+     * @throws ConcurrentModificationException if the tree was modified during the call.
+     */
+    public <R> R parallelReduce(R identity, Function<? super E, ? extends R> mapper, BinaryOperator<R> combiner) {
+        Objects.requireNonNull(mapper);
+        Objects.requireNonNull(combiner);
+        return invoke(() -> reduceIn(root, identity, mapper, combiner));
+    }
+
+    /**
+     * Creates a new balanced tree holding the elements that match a predicate, in parallel for large trees.
+     * Each subtree is filtered independently and the results are joined around copies of the matching roots, so no
+     * sorting or re-inserting is needed. This tree is left unchanged.
+     *
+     * @param predicate the predicate an element must match to be kept.
+     * @return a new tree holding the matching elements.
+     * @throws ConcurrentModificationException if the tree was modified during the call.
+     */
+    public AVLTree<E> parallelFilter(Predicate<? super E> predicate) {
+        Objects.requireNonNull(predicate);
+        return new AVLTree<>(invoke(() -> filterIn(root, predicate)));
+    }
+
+    /**
+     * Runs a traversal of the tree on the common ForkJoinPool if the tree is large, otherwise on the calling thread.
+     *
+     * @param traversal the traversal to run.
+     * @param <R> the type of the result.
+     * @return the result of the traversal.
+     * @throws ConcurrentModificationException if the tree was modified during the traversal.
+     */
+    private <R> R invoke(Supplier<R> traversal) {
+        int expectedModCount = modCount;
+        R result = (size >= PARALLEL_THRESHOLD)
+                ? ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(traversal::get))
+                : traversal.get();
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        return result;
+    }
+
+    /**
+     * Performs an action on every element of a subtree, forking the left half of large subtrees.
+     *
+     * @param node the root of the subtree, may be null.
+     * @param action the action to perform on each element.
+     */
+    private void forEachIn(TreeNode<E> node, Consumer<? super E> action) {
+        if (node == null) return;
+        if (sizeOf(node) >= PARALLEL_THRESHOLD) {
+            ForkJoinTask<?> leftTask = ForkJoinTask.adapt(() -> forEachIn(node.left, action)).fork();
+            action.accept(node.element);
+            forEachIn(node.right, action);
+            leftTask.join();
+        } else {
+            forEachIn(node.left, action);
+            action.accept(node.element);
+            forEachIn(node.right, action);
+        }
+    }
+
+    /**
+     * Maps and combines the elements of a subtree in ascending order, forking the left half of large subtrees.
+     *
+     * @param node the root of the subtree, may be null.
+     * @param identity the identity value of the combiner.
+     * @param mapper the function mapping an element to a value.
+     * @param combiner the associative function combining two values.
+     * @param <R> the type of the values.
+     * @return the combination of the values of the subtree.
+     */
+    private <R> R reduceIn(TreeNode<E> node, R identity, Function<? super E, ? extends R> mapper,
+                           BinaryOperator<R> combiner) {
+        if (node == null) return identity;
+        R left;
+        R right;
+        if (sizeOf(node) >= PARALLEL_THRESHOLD) {
+            ForkJoinTask<R> leftTask = ForkJoinTask.adapt(() -> reduceIn(node.left, identity, mapper, combiner)).fork();
+            right = reduceIn(node.right, identity, mapper, combiner);
+            left = leftTask.join();
+        } else {
+            left = reduceIn(node.left, identity, mapper, combiner);
+            right = reduceIn(node.right, identity, mapper, combiner);
+        }
+        return combiner.apply(combiner.apply(left, mapper.apply(node.element)), right);
+    }
+
+    /**
+     * Builds a detached, balanced copy of the elements of a subtree that match a predicate, forking the left half of
+     * large subtrees.
+     *
+     * @param node the root of the subtree, may be null.
+     * @param predicate the predicate an element must match to be kept.
+     * @return the root of the filtered copy.
+     */
+    private TreeNode<E> filterIn(TreeNode<E> node, Predicate<? super E> predicate) {
+        if (node == null) return null;
+        TreeNode<E> left;
+        TreeNode<E> right;
+        if (sizeOf(node) >= PARALLEL_THRESHOLD) {
+            ForkJoinTask<TreeNode<E>> leftTask = ForkJoinTask.adapt(() -> filterIn(node.left, predicate)).fork();
+            right = filterIn(node.right, predicate);
+            left = leftTask.join();
+        } else {
+            left = filterIn(node.left, predicate);
+            right = filterIn(node.right, predicate);
+        }
+        if (predicate.test(node.element)) return join(left, createNewNode(node.element), right);
+        return join(left, right);
+    }
+
+    /**
+     * Copies a subtree of another tree into new nodes of this tree.
+     *
+     * @param node the root of the subtree to copy, may be null.
+     * @return the root of the copy.
+     */
+    private TreeNode<E> copy(TreeNode<E> node) {
+        if (node == null) return null;
+        return createNewNode(node.element, copy(node.left), copy(node.right));
+    }
+
+    /**
+     * Empties the tree and hands over its nodes.
+     *
+     * @return the former root of the tree.
+     */
+    private TreeNode<E> detach() {
+        TreeNode<E> detached = root;
+        root = null;
+        size = 0;
+        modCount++;
+        return detached;
+    }
+
+    /**
+     * Merges a range of sorted, distinct elements into a detached subtree.
+     * The range is divided at the root of the subtree by binary search, each part is merged into the child on its side,
+     * and the results are joined again around the root. Subtrees that no element falls into are not visited at all.
+     *
+     * @param node the root of the subtree, may be null.
+     * @param sorted the sorted elements.
+     * @param low the index of the first element in the range.
+     * @param high the index of the last element in the range.
+     * @return the root of the merged subtree.
+     */
+    private TreeNode<E> union(TreeNode<E> node, E[] sorted, int low, int high) {
+        if (low > high) return node;
+        if (node == null) return buildBalanced(sorted, low, high);
+        int index = Arrays.binarySearch(sorted, low, high + 1, node.element);
+        int leftEnd = (index >= 0) ? index - 1 : -index - 2;
+        int rightStart = (index >= 0) ? index + 1 : -index - 1;
+        TreeNode<E> left = union(node.left, sorted, low, leftEnd);
+        TreeNode<E> right = union(node.right, sorted, rightStart, high);
+        return join(left, node, right);
+    }
+
+    /**
+     * Removes a range of sorted, distinct elements from a detached subtree.
+     *
+     * @param node the root of the subtree, may be null.
+     * @param sorted the sorted elements.
+     * @param low the index of the first element in the range.
+     * @param high the index of the last element in the range.
+     * @return the root of the remaining subtree.
+     */
+    private TreeNode<E> difference(TreeNode<E> node, E[] sorted, int low, int high) {
+        if (node == null || low > high) return node;
+        int index = Arrays.binarySearch(sorted, low, high + 1, node.element);
+        int leftEnd = (index >= 0) ? index - 1 : -index - 2;
+        int rightStart = (index >= 0) ? index + 1 : -index - 1;
+        TreeNode<E> left = difference(node.left, sorted, low, leftEnd);
+        TreeNode<E> right = difference(node.right, sorted, rightStart, high);
+        return (index >= 0) ? join(left, right) : join(left, node, right);
+    }
+
+    /**
+     * Splits a detached subtree into the elements less than a key, the node holding the key, and the elements greater
+     * than the key. The nodes of the subtree are reused. Runs in O(log n).
+     *
+     * @param node the root of the subtree, may be null.
+     * @param key the key to split at.
+     * @param result the holder for the result.
+     * @return the result holder, with the node holding the key set to null if the key is not in the subtree.
+     */
+    private Split<E> split(TreeNode<E> node, E key, Split<E> result) {
+        if (node == null) {
+            result.left = result.node = result.right = null;
+            return result;
+        }
+        int cmp = key.compareTo(node.element);
+        if (cmp == 0) {
+            result.left = node.left;
+            result.node = node;
+            result.right = node.right;
+        } else if (cmp < 0) {
+            TreeNode<E> right = node.right;
+            split(node.left, key, result);
+            result.right = join(result.right, node, right);
+        } else {
+            TreeNode<E> left = node.left;
+            split(node.right, key, result);
+            result.left = join(left, node, result.left);
+        }
+        return result;
+    }
+
+    /**
+     * Joins two detached subtrees and a pivot node into one balanced subtree, where every element of the left subtree
+     * is less than the pivot and every element of the right subtree is greater. The taller subtree is descended along
+     * its inner spine to a node about as tall as the shorter one, the pivot is attached there, and the tree is
+     * rebalanced on the way back up. Runs in O(|height(left) - height(right)| + 1).
+     *
+     * @param left the root of the left subtree, may be null.
+     * @param pivot the node to place between the subtrees.
+     * @param right the root of the right subtree, may be null.
+     * @return the root of the joined subtree.
+     */
+    private TreeNode<E> join(TreeNode<E> left, TreeNode<E> pivot, TreeNode<E> right) {
+        int leftHeight = heightOf(left);
+        int rightHeight = heightOf(right);
+        if (leftHeight > rightHeight + 1) {
+            left.right = join(left.right, pivot, right);
+            return rebalance((AVLTreeNode<E>) left);
+        }
+        if (rightHeight > leftHeight + 1) {
+            right.left = join(left, pivot, right.left);
+            return rebalance((AVLTreeNode<E>) right);
+        }
+        pivot.left = left;
+        pivot.right = right;
+        updateHeight((AVLTreeNode<E>) pivot);
+        return pivot;
+    }
+
+    /**
+     * Joins two detached subtrees into one balanced subtree, where every element of the left subtree is less than every
+     * element of the right subtree. The smallest node of the right subtree becomes the pivot.
+     *
+     * @param left the root of the left subtree, may be null.
+     * @param right the root of the right subtree, may be null.
+     * @return the root of the joined subtree.
+     */
+    private TreeNode<E> join(TreeNode<E> left, TreeNode<E> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        TreeNode<E> pivot = right;
+        while (pivot.left != null) pivot = pivot.left;
+        return join(left, pivot, removeLowest(right));
+    }
+
+    /**
+     * Removes the smallest node from a detached subtree, rebalancing on the way back up.
+     *
+     * @param node the root of the subtree.
+     * @return the root of the remaining subtree.
+     */
+    private TreeNode<E> removeLowest(TreeNode<E> node) {
+        if (node.left == null) return node.right;
+        node.left = removeLowest(node.left);
+        return rebalance((AVLTreeNode<E>) node);
+    }
+
+    /**
+     * Updates the height of the root of a detached subtree and rotates it if it is unbalanced.
+     *
+     * @param A the root of the subtree.
+     * @return the root of the subtree after rebalancing.
+     */
+    private TreeNode<E> rebalance(AVLTreeNode<E> A) {
+        updateHeight(A);
+        switch (balanceFactor(A)) {
+            case -2:
+                if (balanceFactor((AVLTreeNode<E>) A.left) <= 0) return balanceLL(A, null);
+                return balanceLR(A, null);
+            case 2:
+                if (balanceFactor((AVLTreeNode<E>) A.right) >= 0) return balanceRR(A, null);
+                return balanceRL(A, null);
+            default:
+                return A;
+        }
+    }
+
+    /**
+     * Gets the height of the tree in constant time, from the height kept in the root.
+     *
+     * @return the height of the tree, or -1 if it is empty.
+     */
+    @Override
+    public int height() {
+        return heightOf(root);
+    }
+
+    /**
+     * Gets the height of a subtree.
+     *
+     * @param node the root of the subtree, may be null.
+     * @return the height of the subtree, or -1 if it is empty.
+     */
+    private static int heightOf(TreeNode<?> node) {
+        return (node == null) ? -1 : ((AVLTreeNode<?>) node).height;
+    }
+
+    /**
+     * Gets the element at a given position in the sorted order of the tree.
+     *
+     * @param k the zero-based position of the element (0 is the smallest element).
+     * @return the k-th smallest element in the tree.
+     * @throws IndexOutOfBoundsException if k is negative or not less than the size of the tree.
+     */
+    public E select(int k) {
+        if (k < 0 || k >= size) throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + size);
+        TreeNode<E> current = root;
+        while (true) {
+            int leftSize = sizeOf(current.left);
+            if (k < leftSize) current = current.left;
+            else if (k > leftSize) {
+                k -= leftSize + 1;
+                current = current.right;
+            }
+            else return current.element;
+        }
+    }
+
+    /**
+     * Gets the rank of an element, which is the number of elements in the tree that are smaller than it.
+     * The element does not need to be present in the tree.
+     *
+     * @param e the element to rank.
+     * @return the number of elements in the tree smaller than e.
+     */
+    public int rank(E e) {
+        return countBelow(e, false);
+    }
+
+    /**
+     * Counts the elements in the tree that fall within a closed range.
+     *
+     * @param lo the lowest element of the range (inclusive).
+     * @param hi the highest element of the range (inclusive).
+     * @return the number of elements e in the tree with lo <= e <= hi, or 0 if lo is greater than hi.
+     */
+    public int countRange(E lo, E hi) {
+        if (lo.compareTo(hi) > 0) return 0;
+        return countBelow(hi, true) - countBelow(lo, false);
+    }
+
+    /**
+     * Counts the elements in the tree that are smaller than (or optionally equal to) an element.
+     *
+     * @param e the element to compare against.
+     * @param inclusive whether elements equal to e are counted.
+     * @return the number of matching elements.
+     */
+    private int countBelow(E e, boolean inclusive) {
+        int count = 0;
+        TreeNode<E> current = root;
+        while (current != null) {
+            int cmp = e.compareTo(current.element);
+            if (cmp < 0 || (cmp == 0 && !inclusive)) current = current.left;
+            else {
+                count += sizeOf(current.left) + 1;
+                if (cmp == 0) break;
+                current = current.right;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of elements in the tree.
+     *
+     * @return the number of elements in the tree.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the tree contains an element.
+     *
+     * @param o the element to search for.
+     * @return true if the element is in the tree, otherwise false.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        return search((E) o);
+    }
+
+    /**
+     * Adds an element to the tree.
+     *
+     * @param e the element to be added.
+     * @return true if the element was added, false if it was already present.
+     */
+    @Override
+    public boolean add(E e) {
+        return insert(e);
+    }
+
+    /**
+     * Removes an element from the tree.
+     *
+     * @param o the element to be removed.
+     * @return true if the element was found and removed, otherwise false.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        return delete((E) o);
+    }
+
+    /**
+     * Checks if the tree contains every element of a collection.
+     *
+     * @param c the elements to search for.
+     * @return true if all the elements are in the tree, otherwise false.
+     */
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        for (Object o : c) {
+            if (!contains(o)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds every element of a collection to the tree as one batch.
+     *
+     * @param c the elements to be added.
+     * @return true if the tree changed, otherwise false.
+     * @see #insertAll(Collection)
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        return insertAll(c) > 0;
+    }
+
+    /**
+     * Removes every element of a collection from the tree.
+     *
+     * @param c the elements to be removed.
+     * @return true if the tree changed, otherwise false.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean modified = false;
+        for (Object o : c) {
+            if (remove(o)) modified = true;
+        }
+        return modified;
+    }
+
+    /**
+     * Removes every element from the tree that is not contained in a collection.
+     *
+     * @param c the elements to be kept.
+     * @return true if the tree changed, otherwise false.
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        boolean modified = false;
+        for (Iterator<E> iterator = iterator(); iterator.hasNext();) {
+            if (!c.contains(iterator.next())) {
+                iterator.remove();
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Removes every element from the tree.
+     */
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Gets the elements of the tree in ascending order.
+     *
+     * @return a new array containing the elements of the tree.
+     */
+    @Override
+    public Object[] toArray() {
+        Object[] result = new Object[size];
+        int i = 0;
+        for (E e : this) result[i++] = e;
+        return result;
+    }
+
+    /**
+     * Gets the elements of the tree in ascending order.
+     *
+     * @param a the array to store the elements in, if it is big enough.
+     * @return an array containing the elements of the tree.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        if (a.length < size) a = (T[]) Array.newInstance(a.getClass().getComponentType(), size);
+        int i = 0;
+        for (E e : this) a[i++] = (T) e;
+        if (a.length > size) a[size] = null;
+        return a;
+    }
+
+    /**
+     * Returns an in order iterator which can be used to traverse nodes in tree.
+     * The iterator supports removal and fails fast if the tree is modified by other means.
+     *
+     * @return the in order iterator.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new RangeIterator(null, false, true, null, false, true, false);
+    }
+
+    /**
+     * Returns an iterator over the elements in the tree in descending order.
+     *
+     * @return the descending iterator.
+     */
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new RangeIterator(null, false, true, null, false, true, true);
+    }
+
+    /**
+     * Gets the comparator used to order the tree.
+     *
+     * @return null, since the tree uses the natural ordering of its elements.
+     */
+    @Override
+    public Comparator<? super E> comparator() {
+        return null;
+    }
+
+    /**
+     * Gets the smallest element in the tree.
+     *
+     * @return the smallest element.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    @Override
+    public E first() {
+        return elementOrThrow(lowestNode());
+    }
+
+    /**
+     * Gets the largest element in the tree.
+     *
+     * @return the largest element.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    @Override
+    public E last() {
+        return elementOrThrow(highestNode());
+    }
+
+    /**
+     * Gets the largest element in the tree strictly less than e.
+     *
+     * @param e the element to compare against.
+     * @return the matching element, or null if there is none.
+     */
+    @Override
+    public E lower(E e) {
+        return elementOrNull(floorNode(e, false));
+    }
+
+    /**
+     * Gets the largest element in the tree less than or equal to e.
+     *
+     * @param e the element to compare against.
+     * @return the matching element, or null if there is none.
+     */
+    @Override
+    public E floor(E e) {
+        return elementOrNull(floorNode(e, true));
+    }
+
+    /**
+     * Gets the smallest element in the tree greater than or equal to e.
+     *
+     * @param e the element to compare against.
+     * @return the matching element, or null if there is none.
+     */
+    @Override
+    public E ceiling(E e) {
+        return elementOrNull(ceilingNode(e, true));
+    }
+
+    /**
+     * Gets the smallest element in the tree strictly greater than e.
+     *
+     * @param e the element to compare against.
+     * @return the matching element, or null if there is none.
+     */
+    @Override
+    public E higher(E e) {
+        return elementOrNull(ceilingNode(e, false));
+    }
+
+    /**
+     * Removes and returns the smallest element in the tree.
+     *
+     * @return the smallest element, or null if the tree is empty.
+     */
+    @Override
+    public E pollFirst() {
+        TreeNode<E> node = lowestNode();
+        if (node == null) return null;
+        E result = node.element;
+        delete(result);
+        return result;
+    }
+
+    /**
+     * Removes and returns the largest element in the tree.
+     *
+     * @return the largest element, or null if the tree is empty.
+     */
+    @Override
+    public E pollLast() {
+        TreeNode<E> node = highestNode();
+        if (node == null) return null;
+        E result = node.element;
+        delete(result);
+        return result;
+    }
+
+    /**
+     * Gets a live view of the tree in descending order.
+     *
+     * @return the descending view.
+     */
+    @Override
+    public NavigableSet<E> descendingSet() {
+        return new SubSet(null, false, true, null, false, true, true);
+    }
+
+    /**
+     * Gets a live view of the elements between fromElement and toElement.
+     *
+     * @param fromElement the low endpoint of the view.
+     * @param fromInclusive whether the low endpoint is included in the view.
+     * @param toElement the high endpoint of the view.
+     * @param toInclusive whether the high endpoint is included in the view.
+     * @return the view.
+     * @throws IllegalArgumentException if fromElement is greater than toElement.
+     */
+    @Override
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        if (fromElement.compareTo(toElement) > 0) throw new IllegalArgumentException("fromElement > toElement");
+        return new SubSet(fromElement, fromInclusive, false, toElement, toInclusive, false, false);
+    }
+
+    /**
+     * Gets a live view of the elements less than (or equal to, if inclusive) toElement.
+     *
+     * @param toElement the high endpoint of the view.
+     * @param inclusive whether the high endpoint is included in the view.
+     * @return the view.
+     */
+    @Override
+    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+        Objects.requireNonNull(toElement);
+        return new SubSet(null, false, true, toElement, inclusive, false, false);
+    }
+
+    /**
+     * Gets a live view of the elements greater than (or equal to, if inclusive) fromElement.
+     *
+     * @param fromElement the low endpoint of the view.
+     * @param inclusive whether the low endpoint is included in the view.
+     * @return the view.
+     */
+    @Override
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+        Objects.requireNonNull(fromElement);
+        return new SubSet(fromElement, inclusive, false, null, false, true, false);
+    }
+
+    /**
+     * Gets a live view of the elements from fromElement (inclusive) to toElement (exclusive).
+     *
+     * @param fromElement the low endpoint of the view.
+     * @param toElement the high endpoint of the view.
+     * @return the view.
+     */
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    /**
+     * Gets a live view of the elements strictly less than toElement.
+     *
+     * @param toElement the high endpoint of the view.
+     * @return the view.
+     */
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    /**
+     * Gets a live view of the elements greater than or equal to fromElement.
+     *
+     * @param fromElement the low endpoint of the view.
+     * @return the view.
+     */
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * Compares the tree with another set. Follows the contract of Set.equals.
+     *
+     * @param o the object to compare with.
+     * @return true if o is a set containing the same elements, otherwise false.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof Set)) return false;
+        Set<?> other = (Set<?>) o;
+        if (other.size() != size) return false;
+        try {
+            return containsAll(other);
+        } catch (ClassCastException | NullPointerException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the hash code of the tree. Follows the contract of Set.hashCode.
+     *
+     * @return the sum of the hash codes of the elements.
+     */
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (E e : this) hash += e.hashCode();
+        return hash;
+    }
+
+    /**
+     * Gets a String listing the elements of the tree in ascending order.
+     *
+     * @return the String representation of the tree.
+     */
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (E e : this) joiner.add(String.valueOf(e));
+        return joiner.toString();
+    }
+
+    /**
+     * Gets the node holding the smallest element in the tree.
+     *
+     * @return the leftmost node, or null if the tree is empty.
+     */
+    private TreeNode<E> lowestNode() {
+        TreeNode<E> current = root;
+        if (current != null) {
+            while (current.left != null) current = current.left;
+        }
+        return current;
+    }
+
+    /**
+     * Gets the node holding the largest element in the tree.
+     *
+     * @return the rightmost node, or null if the tree is empty.
+     */
+    private TreeNode<E> highestNode() {
+        TreeNode<E> current = root;
+        if (current != null) {
+            while (current.right != null) current = current.right;
+        }
+        return current;
+    }
+
+    /**
+     * Gets the node holding the smallest element greater than (or equal to, if inclusive) e.
+     *
+     * @param e the element to compare against.
+     * @param inclusive whether a node holding e itself matches.
+     * @return the matching node, or null if there is none.
+     */
+    private TreeNode<E> ceilingNode(E e, boolean inclusive) {
+        TreeNode<E> result = null;
+        TreeNode<E> current = root;
+        while (current != null) {
+            int cmp = e.compareTo(current.element);
+            if (cmp == 0 && inclusive) return current;
+            if (cmp < 0) {
+                result = current;
+                current = current.left;
+            }
+            else current = current.right;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the node holding the largest element less than (or equal to, if inclusive) e.
+     *
+     * @param e the element to compare against.
+     * @param inclusive whether a node holding e itself matches.
+     * @return the matching node, or null if there is none.
+     */
+    private TreeNode<E> floorNode(E e, boolean inclusive) {
+        TreeNode<E> result = null;
+        TreeNode<E> current = root;
+        while (current != null) {
+            int cmp = e.compareTo(current.element);
+            if (cmp == 0 && inclusive) return current;
+            if (cmp > 0) {
+                result = current;
+                current = current.right;
+            }
+            else current = current.left;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the element of a node, or null if there is no node.
+     *
+     * @param node the node, may be null.
+     * @return the element of the node, or null.
+     */
+    private static <E> E elementOrNull(TreeNode<E> node) {
+        return (node == null) ? null : node.element;
+    }
+
+    /**
+     * Gets the element of a node, throwing if there is no node.
+     *
+     * @param node the node, may be null.
+     * @return the element of the node.
+     * @throws NoSuchElementException if the node is null.
+     */
+    private static <E> E elementOrThrow(TreeNode<E> node) {
+        if (node == null) throw new NoSuchElementException();
+        return node.element;
+    }
+
+    /**
+     * Represents a live view of the elements of the tree between two optional bounds, in ascending or descending order.
+     * Bounds are always stored in ascending terms (lo <= hi); the descending flag only mirrors the navigation methods.
+     * The Set and NavigableSet methods behave like those of the tree, restricted to the elements inside the bounds.
+     */
+    private class SubSet extends AbstractSet<E> implements NavigableSet<E> {
+        private final E lo;
+        private final boolean loInclusive;
+        private final boolean fromStart;
+        private final E hi;
+        private final boolean hiInclusive;
+        private final boolean toEnd;
+        private final boolean descending;
+
+        /**
+         * Constructs the view.
+         *
+         * @param lo the low bound, ignored if fromStart.
+         * @param loInclusive whether the low bound is part of the view.
+         * @param fromStart whether the view has no low bound.
+         * @param hi the high bound, ignored if toEnd.
+         * @param hiInclusive whether the high bound is part of the view.
+         * @param toEnd whether the view has no high bound.
+         * @param descending whether the view is in descending order.
+         */
+        SubSet(E lo, boolean loInclusive, boolean fromStart, E hi, boolean hiInclusive, boolean toEnd, boolean descending) {
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.fromStart = fromStart;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.toEnd = toEnd;
+            this.descending = descending;
+        }
+
+        /**
+         * Checks if an element is below the low bound of the view.
+         *
+         * @param e the element to check.
+         * @return true if e is below the view, otherwise false.
+         */
+        private boolean tooLow(E e) {
+            if (fromStart) return false;
+            int cmp = e.compareTo(lo);
+            return cmp < 0 || (cmp == 0 && !loInclusive);
+        }
+
+        /**
+         * Checks if an element is above the high bound of the view.
+         *
+         * @param e the element to check.
+         * @return true if e is above the view, otherwise false.
+         */
+        private boolean tooHigh(E e) {
+            if (toEnd) return false;
+            int cmp = e.compareTo(hi);
+            return cmp > 0 || (cmp == 0 && !hiInclusive);
+        }
+
+        /**
+         * Checks if an element is inside the view.
+         *
+         * @param e the element to check.
+         * @return true if e is inside the view, otherwise false.
+         */
+        private boolean inRange(E e) {
+            return !tooLow(e) && !tooHigh(e);
+        }
+
+        /**
+         * Checks if an element is inside the view, treating both bounds as inclusive.
+         *
+         * @param e the element to check.
+         * @return true if e is inside the closed view, otherwise false.
+         */
+        private boolean inClosedRange(E e) {
+            return (fromStart || e.compareTo(lo) >= 0) && (toEnd || e.compareTo(hi) <= 0);
+        }
+
+        /**
+         * Gets the node with the smallest element in the view, in ascending terms.
+         *
+         * @return the matching node, or null if the view is empty.
+         */
+        private TreeNode<E> absLowest() {
+            TreeNode<E> node = fromStart ? lowestNode() : ceilingNode(lo, loInclusive);
+            return (node == null || tooHigh(node.element)) ? null : node;
+        }
+
+        /**
+         * Gets the node with the largest element in the view, in ascending terms.
+         *
+         * @return the matching node, or null if the view is empty.
+         */
+        private TreeNode<E> absHighest() {
+            TreeNode<E> node = toEnd ? highestNode() : floorNode(hi, hiInclusive);
+            return (node == null || tooLow(node.element)) ? null : node;
+        }
+
+        /**
+         * Gets the node with the smallest element in the view greater than (or equal to) e, in ascending terms.
+         *
+         * @param e the element to compare against.
+         * @param inclusive whether a node holding e itself matches.
+         * @return the matching node, or null if there is none.
+         */
+        private TreeNode<E> absCeiling(E e, boolean inclusive) {
+            if (tooLow(e)) return absLowest();
+            TreeNode<E> node = ceilingNode(e, inclusive);
+            return (node == null || tooHigh(node.element)) ? null : node;
+        }
+
+        /**
+         * Gets the node with the largest element in the view less than (or equal to) e, in ascending terms.
+         *
+         * @param e the element to compare against.
+         * @param inclusive whether a node holding e itself matches.
+         * @return the matching node, or null if there is none.
+         */
+        private TreeNode<E> absFloor(E e, boolean inclusive) {
+            if (tooHigh(e)) return absHighest();
+            TreeNode<E> node = floorNode(e, inclusive);
+            return (node == null || tooLow(node.element)) ? null : node;
+        }
+
+        /**
+         * Creates a narrower view of this view, in ascending terms. Missing bounds are inherited from this view.
+         *
+         * @param newLo the new low bound, ignored if newFromStart.
+         * @param newLoInclusive whether the new low bound is included.
+         * @param newFromStart whether to keep the low bound of this view.
+         * @param newHi the new high bound, ignored if newToEnd.
+         * @param newHiInclusive whether the new high bound is included.
+         * @param newToEnd whether to keep the high bound of this view.
+         * @return the new view.
+         * @throws IllegalArgumentException if a new bound lies outside this view.
+         */
+        private NavigableSet<E> absSubSet(E newLo, boolean newLoInclusive, boolean newFromStart,
+                                          E newHi, boolean newHiInclusive, boolean newToEnd) {
+            if (newFromStart) {
+                newLo = lo;
+                newLoInclusive = loInclusive;
+                newFromStart = fromStart;
+            } else if (!(newLoInclusive ? inRange(newLo) : inClosedRange(newLo))) {
+                throw new IllegalArgumentException("fromElement out of range");
+            }
+            if (newToEnd) {
+                newHi = hi;
+                newHiInclusive = hiInclusive;
+                newToEnd = toEnd;
+            } else if (!(newHiInclusive ? inRange(newHi) : inClosedRange(newHi))) {
+                throw new IllegalArgumentException("toElement out of range");
+            }
+            return new SubSet(newLo, newLoInclusive, newFromStart, newHi, newHiInclusive, newToEnd, descending);
+        }
+
+        @Override
+        public int size() {
+            if (fromStart && toEnd) return AVLTree.this.size;
+            int below = fromStart ? 0 : countBelow(lo, !loInclusive);
+            int upTo = toEnd ? AVLTree.this.size : countBelow(hi, hiInclusive);
+            return Math.max(0, upTo - below);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return absLowest() == null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            E e = (E) o;
+            return inRange(e) && search(e);
+        }
+
+        @Override
+        public boolean add(E e) {
+            if (!inRange(e)) throw new IllegalArgumentException("element out of range");
+            return insert(e);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            E e = (E) o;
+            return inRange(e) && delete(e);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new RangeIterator(lo, loInclusive, fromStart, hi, hiInclusive, toEnd, descending);
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            return new RangeIterator(lo, loInclusive, fromStart, hi, hiInclusive, toEnd, !descending);
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return descending ? Collections.reverseOrder() : null;
+        }
+
+        @Override
+        public E first() {
+            return elementOrThrow(descending ? absHighest() : absLowest());
+        }
+
+        @Override
+        public E last() {
+            return elementOrThrow(descending ? absLowest() : absHighest());
+        }
+
+        @Override
+        public E lower(E e) {
+            return elementOrNull(descending ? absCeiling(e, false) : absFloor(e, false));
+        }
+
+        @Override
+        public E floor(E e) {
+            return elementOrNull(descending ? absCeiling(e, true) : absFloor(e, true));
+        }
+
+        @Override
+        public E ceiling(E e) {
+            return elementOrNull(descending ? absFloor(e, true) : absCeiling(e, true));
+        }
+
+        @Override
+        public E higher(E e) {
+            return elementOrNull(descending ? absFloor(e, false) : absCeiling(e, false));
+        }
+
+        @Override
+        public E pollFirst() {
+            TreeNode<E> node = descending ? absHighest() : absLowest();
+            if (node == null) return null;
+            E result = node.element;
+            delete(result);
+            return result;
+        }
+
+        @Override
+        public E pollLast() {
+            TreeNode<E> node = descending ? absLowest() : absHighest();
+            if (node == null) return null;
+            E result = node.element;
+            delete(result);
+            return result;
+        }
+
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new SubSet(lo, loInclusive, fromStart, hi, hiInclusive, toEnd, !descending);
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            if (descending) {
+                if (fromElement.compareTo(toElement) < 0) throw new IllegalArgumentException("fromElement > toElement");
+                return absSubSet(toElement, toInclusive, false, fromElement, fromInclusive, false);
+            }
+            if (fromElement.compareTo(toElement) > 0) throw new IllegalArgumentException("fromElement > toElement");
+            return absSubSet(fromElement, fromInclusive, false, toElement, toInclusive, false);
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            Objects.requireNonNull(toElement);
+            if (descending) return absSubSet(toElement, inclusive, false, null, false, true);
+            return absSubSet(null, false, true, toElement, inclusive, false);
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            Objects.requireNonNull(fromElement);
+            if (descending) return absSubSet(null, false, true, fromElement, inclusive, false);
+            return absSubSet(fromElement, inclusive, false, null, false, true);
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+
+    /**
+     * Represents an iterator over the elements of the tree between two optional bounds, in either direction.
+     * It walks the tree along a TreePath, the same traversal TreeCursor uses: the iterator seeks directly to its
+     * starting bound and stops at the other one, so iterating k elements costs O(log n + k). Removing through the
+     * iterator re-seeks past the removed element, since rotations invalidate the path.
+     */
+    private class RangeIterator extends TreePath<E> implements Iterator<E> {
+        private final E lo;
+        private final boolean loInclusive;
+        private final boolean fromStart;
+        private final E hi;
+        private final boolean hiInclusive;
+        private final boolean toEnd;
+        private final boolean descending;
+        private E lastReturned;
+        private boolean canRemove;
+
+        /**
+         * Constructs the iterator and seeks to its first element.
+         *
+         * @param lo the low bound, ignored if fromStart.
+         * @param loInclusive whether the low bound is included.
+         * @param fromStart whether there is no low bound.
+         * @param hi the high bound, ignored if toEnd.
+         * @param hiInclusive whether the high bound is included.
+         * @param toEnd whether there is no high bound.
+         * @param descending whether to iterate from hi down to lo.
+         */
+        RangeIterator(E lo, boolean loInclusive, boolean fromStart, E hi, boolean hiInclusive, boolean toEnd,
+                      boolean descending) {
+            super(AVLTree.this);
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.fromStart = fromStart;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.toEnd = toEnd;
+            this.descending = descending;
+            if (descending) {
+                if (toEnd) toLast();
+                else seek(hi, false, hiInclusive);
+            } else {
+                if (fromStart) toFirst();
+                else seek(lo, true, loInclusive);
+            }
+            checkEnd();
+        }
+
+        /**
+         * Unpositions the path if its element lies past the end bound of the iteration.
+         */
+        private void checkEnd() {
+            if (isPositioned() && (descending ? tooLow(current()) : tooHigh(current()))) clear();
+        }
+
+        /**
+         * Checks if an element is below the low bound of the iteration.
+         *
+         * @param e the element to check.
+         * @return true if e is below the iteration range, otherwise false.
+         */
+        private boolean tooLow(E e) {
+            if (fromStart) return false;
+            int cmp = e.compareTo(lo);
+            return cmp < 0 || (cmp == 0 && !loInclusive);
+        }
+
+        /**
+         * Checks if an element is above the high bound of the iteration.
+         *
+         * @param e the element to check.
+         * @return true if e is above the iteration range, otherwise false.
+         */
+        private boolean tooHigh(E e) {
+            if (toEnd) return false;
+            int cmp = e.compareTo(hi);
+            return cmp > 0 || (cmp == 0 && !hiInclusive);
+        }
+
+        /**
+         * Checks if the iterator has another element.
+         *
+         * @return true if there is another element in the iteration, otherwise false.
+         */
+        @Override
+        public boolean hasNext() {
+            return isPositioned();
+        }
+
+        /**
+         * Gets the next element in the iteration.
+         *
+         * @return the next element in the iteration.
+         */
+        @Override
+        public E next() {
+            lastReturned = current();
+            canRemove = true;
+            step(!descending);
+            checkEnd();
+            return lastReturned;
+        }
+
+        /**
+         * Removes the last element returned by the iterator from the tree.
+         */
+        @Override
+        public void remove() {
+            if (!canRemove) throw new IllegalStateException();
+            if (isModified()) throw new ConcurrentModificationException();
+            delete(lastReturned);
+            canRemove = false;
+            if (!isPositioned()) {
+                acceptModifications();
+                return;
+            }
+            seek(lastReturned, !descending, false);
+            checkEnd();
+        }
+    }
+
+    /**
+     * Represents a set operation combining two trees.
+     */
+    private enum SetOperation { UNION, INTERSECTION, DIFFERENCE }
+
+    /**
+     * Represents the result of splitting a subtree at a key.
+     */
+    private static class Split<E> {
+        private TreeNode<E> left;
+        private TreeNode<E> node;
+        private TreeNode<E> right;
+    }
+
+    /**
+     * Represents a TreeNode with a height (used for balancing the tree) and the number of nodes in its subtree (used
+     * for order statistics).
      *
      * @param <E> The type of element stored in the node.
      */
     protected static class AVLTreeNode<E> extends TreeNode<E> {
         protected int height;
+        protected int size = 1;
         protected AVLTreeNode(E e){
             super(e);
         }
@@ -0,0 +1,330 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents an AVL tree whose nodes are stored in parallel arrays instead of separate node objects.
+ * A node is an index into the left, right and height arrays and the elements array, so the whole node graph costs a
+ * handful of large arrays rather than one object per element. Index 0 is a sentinel standing in for null, with a height
+ * of -1. Slots of deleted nodes are kept on a free list (linked through the left array) and reused by later inserts.
+ * Relinking and rebalancing are shared with OffHeapLongAVLTree through IndexedAVLTree.
+ *
+ * @param <E> The type of element to be stored in nodes in the tree. (Must implement comparable).
+ */
+public class ArrayAVLTree<E extends Comparable<E>> extends IndexedAVLTree implements Tree<E> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] left;
+    private int[] right;
+    private int[] height;
+    private Object[] elements;
+    private int nextUnused = 1;
+    private int freeList = NIL;
+
+    /**
+     * Default constructor.
+     */
+    public ArrayAVLTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a tree with room for a number of elements before its arrays have to grow.
+     *
+     * @param initialCapacity the number of elements the tree can hold without growing.
+     */
+    public ArrayAVLTree(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        int length = initialCapacity + 1;
+        left = new int[length];
+        right = new int[length];
+        height = new int[length];
+        elements = new Object[length];
+        height[NIL] = -1;
+    }
+
+    /**
+     * Traverses the tree to search for if an item exists in the tree.
+     *
+     * @param e the item to search for.
+     * @return true if the item is found in the tree, otherwise false.
+     */
+    @Override
+    public boolean search(E e) {
+        int current = root;
+        while (current != NIL) {
+            int cmp = e.compareTo(element(current));
+            if (cmp < 0) current = left[current];
+            else if (cmp > 0) current = right[current];
+            else return true;
+        }
+        return false;
+    }
+
+    /**
+     * Inserts an element into the tree and balances the tree after insertion.
+     *
+     * @param e the element to be inserted.
+     * @return true if the insertion is successful, otherwise false.
+     */
+    @Override
+    public boolean insert(E e) {
+        int depth = 0;
+        int cmp = 0;
+        int current = root;
+        while (current != NIL) {
+            cmp = e.compareTo(element(current));
+            if (cmp == 0) return false;
+            path[depth++] = current;
+            current = (cmp < 0) ? left[current] : right[current];
+        }
+        attach(depth, allocate(e), cmp < 0);
+        return true;
+    }
+
+    /**
+     * Deletes an element from the tree and re-balances the tree if needed.
+     *
+     * @param e the element to be deleted.
+     * @return true if the element is found and successfully deleted, otherwise false.
+     */
+    @Override
+    public boolean delete(E e) {
+        int depth = 0;
+        int current = root;
+        while (current != NIL) {
+            int cmp = e.compareTo(element(current));
+            if (cmp == 0) break;
+            path[depth++] = current;
+            current = (cmp < 0) ? left[current] : right[current];
+        }
+        if (current == NIL) return false;
+        release(detach(depth, current));
+        return true;
+    }
+
+    /**
+     * Removes every element from the tree, keeping the allocated arrays for reuse.
+     */
+    public void clear() {
+        Arrays.fill(elements, 1, nextUnused, null);
+        root = NIL;
+        size = 0;
+        nextUnused = 1;
+        freeList = NIL;
+        modCount++;
+    }
+
+    /**
+     * Prints the tree in order.
+     */
+    @Override
+    public void inorder() {
+        inorder(root);
+    }
+
+    /**
+     * Helper method to print the tree inorder recursively.
+     *
+     * @param root the current node being processed.
+     */
+    private void inorder(int root) {
+        if (root == NIL) return;
+        inorder(left[root]);
+        System.out.println(elements[root] + " ");
+        inorder(right[root]);
+    }
+
+    /**
+     * Prints the tree in preorder.
+     */
+    @Override
+    public void preorder() {
+        preorder(root);
+    }
+
+    /**
+     * Helper method to print the tree in preorder recursively.
+     *
+     * @param root the current node being processed.
+     */
+    private void preorder(int root) {
+        if (root == NIL) return;
+        System.out.print(elements[root] + " ");
+        preorder(left[root]);
+        preorder(right[root]);
+    }
+
+    /**
+     * Prints the tree in postorder.
+     */
+    @Override
+    public void postorder() {
+        postorder(root);
+    }
+
+    /**
+     * Helper method to print the tree in postorder recursively.
+     *
+     * @param root the current node being processed.
+     */
+    private void postorder(int root) {
+        if (root == NIL) return;
+        postorder(left[root]);
+        postorder(right[root]);
+        System.out.print(elements[root] + " ");
+    }
+
+    /**
+     * Returns an in order iterator which can be used to traverse nodes in tree.
+     *
+     * @return the in order iterator.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new InOrderIterator();
+    }
+
+    /**
+     * Gets the element stored in a node.
+     *
+     * @param node the index of the node.
+     * @return the element stored in the node.
+     */
+    @SuppressWarnings("unchecked")
+    private E element(int node) {
+        return (E) elements[node];
+    }
+
+    /**
+     * Allocates a leaf node, reusing a freed slot if there is one and growing the arrays otherwise.
+     *
+     * @param e the element to be stored in the node.
+     * @return the index of the new node.
+     */
+    private int allocate(E e) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = left[node];
+        } else {
+            if (nextUnused == elements.length) grow();
+            node = nextUnused++;
+        }
+        left[node] = NIL;
+        right[node] = NIL;
+        height[node] = 0;
+        elements[node] = e;
+        return node;
+    }
+
+    /**
+     * Returns the slot of a removed node to the free list.
+     *
+     * @param node the index of the removed node.
+     */
+    private void release(int node) {
+        elements[node] = null;
+        left[node] = freeList;
+        freeList = node;
+    }
+
+    /**
+     * Doubles the capacity of the node arrays.
+     */
+    private void grow() {
+        int length = Math.max(elements.length * 2, DEFAULT_CAPACITY + 1);
+        left = Arrays.copyOf(left, length);
+        right = Arrays.copyOf(right, length);
+        height = Arrays.copyOf(height, length);
+        elements = Arrays.copyOf(elements, length);
+    }
+
+    @Override
+    protected int left(int node) {
+        return left[node];
+    }
+
+    @Override
+    protected void setLeft(int node, int left) {
+        this.left[node] = left;
+    }
+
+    @Override
+    protected int right(int node) {
+        return right[node];
+    }
+
+    @Override
+    protected void setRight(int node, int right) {
+        this.right[node] = right;
+    }
+
+    @Override
+    protected int height(int node) {
+        return height[node];
+    }
+
+    @Override
+    protected void setHeight(int node, int height) {
+        this.height[node] = height;
+    }
+
+    @Override
+    protected void copyEntry(int to, int from) {
+        elements[to] = elements[from];
+    }
+
+    /**
+     * Represents an in order iterator over the node indexes, using a preallocated int stack.
+     */
+    private class InOrderIterator implements Iterator<E> {
+        private final int[] stack = new int[MAX_PATH_LENGTH];
+        private int top = 0;
+        private final int expectedModCount = modCount;
+
+        /**
+         * Constructs the iterator.
+         */
+        InOrderIterator() {
+            pushLeft(root);
+        }
+
+        /**
+         * Pushes a node and the left spine below it onto the stack.
+         *
+         * @param node the top of the spine, may be NIL.
+         */
+        private void pushLeft(int node) {
+            while (node != NIL) {
+                stack[top++] = node;
+                node = left[node];
+            }
+        }
+
+        /**
+         * Checks if the iterator has another element.
+         *
+         * @return true if there is another element in the iteration, otherwise false.
+         */
+        @Override
+        public boolean hasNext() {
+            return top > 0;
+        }
+
+        /**
+         * Gets the next element in the iteration.
+         *
+         * @return the next element in the iteration.
+         */
+        @Override
+        public E next() {
+            if (top == 0) throw new NoSuchElementException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            int node = stack[--top];
+            pushLeft(right[node]);
+            return element(node);
+        }
+    }
+}
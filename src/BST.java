@@ -1,7 +1,12 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.Stack;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * Represents a Binary search tree.
@@ -11,6 +16,9 @@ import java.util.Stack;
 public class BST <E extends Comparable<E>> implements Tree<E> {
     protected TreeNode<E> root;
     protected int size = 0;
+    protected int modCount = 0;
+    // The tree's own metrics, or null unless TreeMetrics.ENABLED
+    protected final TreeMetrics metrics = TreeMetrics.create();
 
     /**
      * Default constructor.
@@ -19,11 +27,23 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
 
     /**
      * Constructs a Binary Search Tree from an array of objects.
+     * The objects are inserted one at a time in array order, so the shape of the tree follows that order; duplicate
+     * objects are only stored once.
      *
      * @param objects the objects to be inserted into the nodes of the tree.
      */
     public BST(E[] objects) {
-        Arrays.stream(objects).forEach(this::insert);
+        for (E object : objects) add(object);
+    }
+
+    /**
+     * Constructs a Binary Search Tree from a collection of objects, inserted one at a time in iteration order.
+     *
+     * @param objects the objects to be inserted into the nodes of the tree.
+     * @see #BST(Comparable[])
+     */
+    public BST(Collection<? extends E> objects) {
+        this(BST.<E>toArray(objects));
     }
 
     /**
@@ -34,13 +54,31 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
      */
     @Override
     public boolean search(E e) {
+        if (!TreeMetrics.ENABLED) return find(e);
+        long start = System.nanoTime();
+        boolean found = find(e);
+        metrics.search.record(System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Traverses the tree to search for an item, comparing it once with each node on the way down.
+     *
+     * @param e the item to search for.
+     * @return true if the item is found in the tree, otherwise false.
+     */
+    protected boolean find(E e) {
+        int comparisons = 0;
         TreeNode<E> current = root;
         while(current != null) {
-            if(e.compareTo(current.element) < 0) current = current.left;
-            else if (e.compareTo(current.element) > 0) current = current.right;
-            else return true;
+            int cmp = e.compareTo(current.element);
+            comparisons++;
+            if(cmp < 0) current = current.left;
+            else if (cmp > 0) current = current.right;
+            else break;
         }
-        return false;
+        if (TreeMetrics.ENABLED) metrics.comparisons.add(comparisons);
+        return current != null;
     }
 
     /**
@@ -51,12 +89,28 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
      */
     @Override
     public boolean insert(E e) {
+        if (!TreeMetrics.ENABLED) return insertElement(e);
+        long start = System.nanoTime();
+        boolean inserted = insertElement(e);
+        metrics.insert.record(System.nanoTime() - start);
+        return inserted;
+    }
+
+    /**
+     * Inserts a new node with element e below the node where the search for it ends.
+     *
+     * @param e the node to be inserted.
+     * @return true if the insertion was successful, otherwise false.
+     */
+    private boolean insertElement(E e) {
         if(root == null)
            root = createNewNode(e);
         else {
+            int comparisons = 0;
             TreeNode<E> current = root;
             TreeNode<E> parent = null;
             while(current != null) {
+                comparisons++;
                 if(e.compareTo(current.element) < 0) {
                     parent = current;
                     current = current.left;
@@ -65,15 +119,42 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
                     parent = current;
                     current = current.right;
                 }
-                else return false;
+                else break;
             }
+            if (TreeMetrics.ENABLED) metrics.comparisons.add(comparisons);
+            if (current != null) return false;
             if(e.compareTo(parent.element) < 0) parent.left = createNewNode(e);
             else parent.right = createNewNode(e);
         }
         size++;
+        modCount++;
         return true;
     }
 
+    /**
+     * Links a new TreeNode with element e into the tree, unless the element is already present.
+     * Used by the constructors in place of insert, so that no overridable method runs before a subclass is initialized.
+     *
+     * @param e the element to be added.
+     */
+    private void add(E e) {
+        TreeNode<E> parent = null;
+        TreeNode<E> current = root;
+        int cmp = 0;
+        while (current != null) {
+            cmp = e.compareTo(current.element);
+            if (cmp == 0) return;
+            parent = current;
+            current = (cmp < 0) ? current.left : current.right;
+        }
+        TreeNode<E> node = new TreeNode<>(e);
+        if (parent == null) root = node;
+        else if (cmp < 0) parent.left = node;
+        else parent.right = node;
+        size++;
+        modCount++;
+    }
+
     /**
      * Creates a new TreeNode with element e.
      *
@@ -84,6 +165,33 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
         return new TreeNode<>(e);
     }
 
+    /**
+     * Creates a new TreeNode with element e and the given children.
+     * Used when building a tree bottom-up, so subclasses can derive per-node data (such as heights) from the children.
+     *
+     * @param e the element to be stored in the node.
+     * @param left the left child of the new node.
+     * @param right the right child of the new node.
+     * @return the new TreeNode.
+     */
+    protected TreeNode<E> createNewNode(E e, TreeNode<E> left, TreeNode<E> right) {
+        TreeNode<E> node = createNewNode(e);
+        node.left = left;
+        node.right = right;
+        return node;
+    }
+
+    /**
+     * Copies a collection into a new array of elements.
+     *
+     * @param objects the collection to copy.
+     * @return a new array containing the elements of the collection.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <E extends Comparable<E>> E[] toArray(Collection<? extends E> objects) {
+        return (E[]) objects.toArray(new Comparable<?>[0]);
+    }
+
     /**
      * Deletes an element from the tree.
      *
@@ -92,10 +200,26 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
      */
     @Override
     public boolean delete(E e) {
+        if (!TreeMetrics.ENABLED) return deleteElement(e);
+        long start = System.nanoTime();
+        boolean deleted = deleteElement(e);
+        metrics.delete.record(System.nanoTime() - start);
+        return deleted;
+    }
+
+    /**
+     * Deletes an element, replacing it with the largest element of its left subtree if it has two children.
+     *
+     * @param e the element to be deleted.
+     * @return true if the element is found and successfully deleted, otherwise false.
+     */
+    private boolean deleteElement(E e) {
+        int comparisons = 0;
         TreeNode<E> current = root;
         TreeNode<E> parent = null;
 
         while(current != null) {
+            comparisons++;
             if(e.compareTo(current.element) < 0) {
                 parent = current;
                 current = current.left;
@@ -106,6 +230,7 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
             }
             else break;
         }
+        if (TreeMetrics.ENABLED) metrics.comparisons.add(comparisons);
         if (current == null) return false;
         if (current.left == null) {
             if (parent == null) root = current.right;
@@ -124,6 +249,7 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
         }
 
         size--;
+        modCount++;
         return true;
     }
 
@@ -215,6 +341,28 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
         return this.size;
     }
 
+    /**
+     * Gets the height of the tree, the number of edges on the longest path from the root to a leaf.
+     * A BST keeps no heights, so this visits every node level by level, which also copes with a degenerate tree too
+     * deep to recurse over.
+     *
+     * @return the height of the tree, or -1 if it is empty.
+     */
+    public int height() {
+        int height = -1;
+        ArrayDeque<TreeNode<E>> level = new ArrayDeque<>();
+        if (root != null) level.add(root);
+        while (!level.isEmpty()) {
+            height++;
+            for (int i = level.size(); i > 0; i--) {
+                TreeNode<E> node = level.poll();
+                if (node.left != null) level.add(node.left);
+                if (node.right != null) level.add(node.right);
+            }
+        }
+        return height;
+    }
+
     /**
      * Checks if the tree is empty.
      *
@@ -236,20 +384,189 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
     }
 
     /**
-     * Represents an in order iterator class which can be used to travers the tree.
+     * Returns a new, unpositioned cursor over the tree. A cursor can be positioned and moved in either direction any
+     * number of times without allocating, which suits traversal loops that run repeatedly.
+     *
+     * @return the cursor.
      */
-    private class InOrderIterator implements Iterator<E> {
-        private final Stack<TreeNode<E>> stack = new Stack<>();
+    public TreeCursor<E> cursor() {
+        return new TreeCursor<>(this);
+    }
+
+    /**
+     * Returns a spliterator over the elements of the tree in order.
+     * Splitting hands off the left subtree of the remaining range, so parallel streams divide the work at subtree
+     * roots instead of copying elements into arrays.
+     *
+     * @return the spliterator.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new TreeSpliterator(null, root, size);
+    }
+
+    /**
+     * Gets the number of nodes in the subtree rooted at a given node, if the tree keeps track of it.
+     *
+     * @param node the root of the subtree, may be null.
+     * @return the number of nodes in the subtree, or -1 if subtree sizes are not tracked.
+     */
+    protected int subtreeSize(TreeNode<E> node) {
+        return -1;
+    }
+
+    /**
+     * Represents a spliterator over a range of the tree, made of an optional single head node followed by a subtree.
+     * Splitting returns the head and the left subtree, leaving the subtree root and its right subtree behind, so both
+     * halves keep the same shape and are about the same size in a balanced tree.
+     */
+    private class TreeSpliterator implements Spliterator<E> {
+        private TreeNode<E> head;
+        private TreeNode<E> subtree;
+        private long estimate;
+        private ArrayDeque<TreeNode<E>> stack;
+        private final int expectedModCount = modCount;
+
+        /**
+         * Constructs the spliterator.
+         *
+         * @param head the node whose element comes first (without its children), may be null.
+         * @param subtree the subtree whose elements follow the head, may be null.
+         * @param estimate the number of elements covered, or an estimate of it if subtree sizes are not tracked.
+         */
+        TreeSpliterator(TreeNode<E> head, TreeNode<E> subtree, long estimate) {
+            this.head = head;
+            this.subtree = subtree;
+            this.estimate = estimate;
+        }
+
+        /**
+         * Splits off the first part of the remaining elements.
+         *
+         * @return a spliterator over the head and left subtree, or null if traversal has started or there is nothing
+         * worth splitting.
+         */
+        @Override
+        public Spliterator<E> trySplit() {
+            if (stack != null || subtree == null || subtree.left == null) return null;
+            TreeNode<E> left = subtree.left;
+            int leftSize = subtreeSize(left);
+            long prefixEstimate = (leftSize < 0) ? estimate >>> 1 : leftSize + ((head == null) ? 0 : 1);
+            TreeSpliterator prefix = new TreeSpliterator(head, left, prefixEstimate);
+            head = subtree;
+            subtree = subtree.right;
+            estimate -= prefixEstimate;
+            return prefix;
+        }
+
+        /**
+         * Performs an action on the next element, if there is one.
+         *
+         * @param action the action to perform.
+         * @return true if an element was processed, otherwise false.
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            TreeNode<E> node = nextNode();
+            if (node == null) return false;
+            action.accept(node.element);
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            return true;
+        }
+
+        /**
+         * Performs an action on each remaining element.
+         *
+         * @param action the action to perform.
+         */
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            TreeNode<E> node;
+            while ((node = nextNode()) != null) action.accept(node.element);
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        /**
+         * Moves to the next node in order, starting the traversal if needed.
+         *
+         * @return the next node, or null if there are no more elements.
+         */
+        private TreeNode<E> nextNode() {
+            if (stack == null) {
+                stack = new ArrayDeque<>();
+                pushLeft(subtree);
+                subtree = null;
+            }
+            TreeNode<E> node;
+            if (head != null) {
+                node = head;
+                head = null;
+            } else {
+                node = stack.poll();
+                if (node == null) return null;
+                pushLeft(node.right);
+            }
+            if (estimate > 0) estimate--;
+            return node;
+        }
+
+        /**
+         * Pushes a node and the left spine below it onto the stack.
+         *
+         * @param node the top of the spine, may be null.
+         */
+        private void pushLeft(TreeNode<E> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        /**
+         * Gets the number of remaining elements.
+         *
+         * @return the exact number of remaining elements if subtree sizes are tracked, otherwise an estimate.
+         */
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        /**
+         * Gets the characteristics of the spliterator.
+         *
+         * @return the characteristics, including SIZED and SUBSIZED if subtree sizes are tracked.
+         */
+        @Override
+        public int characteristics() {
+            int characteristics = ORDERED | SORTED | DISTINCT | NONNULL;
+            if (subtreeSize(null) >= 0) characteristics |= SIZED | SUBSIZED;
+            return characteristics;
+        }
 
+        /**
+         * Gets the comparator of the elements.
+         *
+         * @return null, since elements are in their natural order.
+         */
+        @Override
+        public Comparator<? super E> getComparator() {
+            return null;
+        }
+    }
+
+    /**
+     * Represents an in order iterator class which can be used to travers the tree.
+     * It walks the tree along a TreePath, the same traversal TreeCursor uses, so it fails fast if the tree is modified
+     * during the iteration.
+     */
+    private class InOrderIterator extends TreePath<E> implements Iterator<E> {
         /**
          * Constructs the iterator.
          */
         public InOrderIterator() {
-            TreeNode<E> current = root;
-            while (current != null) {
-                stack.push(current);
-                current = current.left;
-            }
+            super(BST.this);
+            toFirst();
         }
 
         /**
@@ -259,25 +576,19 @@ public class BST <E extends Comparable<E>> implements Tree<E> {
          */
         @Override
         public boolean hasNext() {
-            return !stack.isEmpty();
+            return isPositioned();
         }
 
         /**
          * Gets the next element in the iteration.
          *
          * @return the next element in the iteration.
+         * @throws NoSuchElementException if there are no more elements.
          */
         @Override
         public E next() {
-            TreeNode<E> node = stack.pop();
-            E result = node.element;
-            if (node.right != null) {
-                node = node.right;
-                while (node != null) {
-                    stack.push(node);
-                    node = node.left;
-                }
-            }
+            E result = current();
+            step(true);
             return result;
         }
     }
@@ -0,0 +1,950 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents a thread safe AVL tree that can be shared by many readers and writers without a global lock.
+ * <p>
+ * The tree follows the optimistic concurrency control of Bronson, Casper, Chafi and Olukotun ("A Practical Concurrent
+ * Binary Search Tree", PPoPP 2010). Every node carries a version number that changes whenever a rotation moves keys
+ * out of its subtree. Searches never acquire a lock to read: they descend hand-over-hand, reading a child's version
+ * before leaving the parent and then re-checking the parent's version, and retry from the deepest node that is still
+ * valid if a concurrent rotation invalidated the path. A search that meets a node in the middle of a rotation spins
+ * briefly and then blocks on that node's monitor until the rotating writer releases it. Writers lock only the nodes
+ * they relink (a parent and at most three nodes below it), so inserts and deletes in disjoint parts of the tree proceed
+ * in parallel.
+ * <p>
+ * Deleting an element whose node has two children only marks the node as a routing node, which keeps guiding searches
+ * and is unlinked later, once a rotation or another delete leaves it with at most one child. Rebalancing is done by the
+ * writer after its change, bottom up, one node at a time under that node's and its parent's locks. A writer stops
+ * rebalancing when it meets a node another writer has unlinked, so under contention the AVL condition is relaxed: the
+ * height stays logarithmic, but a few nodes may be left out of balance until a later write passes through them.
+ * <p>
+ * The size is kept in a LongAdder, so it is exact when no writes are in flight. Iterators are weakly consistent: each
+ * step searches for the successor of the last element returned, so an iterator never fails, returns each element at
+ * most once and in ascending order, and reflects some but not necessarily all of the writes made while it runs.
+ *
+ * @param <E> The type of element to be stored in nodes in the tree. (Must implement comparable).
+ */
+public class ConcurrentAVLTree<E extends Comparable<E>> implements Tree<E> {
+    // Version bits: the node has been removed from the tree, or a rotation is moving keys out of its subtree
+    private static final long UNLINKED = 1L;
+    private static final long SHRINKING = 2L;
+    private static final long SHRINK_COUNT_INCREMENT = 4L;
+
+    // Results of the optimistic attempts
+    private static final int UNCHANGED = 0;
+    private static final int UPDATED = 1;
+    private static final int RETRY = -1;
+    private static final Object RETRY_SEARCH = new Object();
+
+    // Conditions of a node found by nodeCondition, other than the height it should have
+    private static final int UNLINK_REQUIRED = -1;
+    private static final int REBALANCE_REQUIRED = -2;
+    private static final int NOTHING_REQUIRED = -3;
+
+    private static final int SPIN_COUNT = 100;
+
+    /**
+     * A sentinel whose right child is the root of the tree, so that the root can be replaced under a lock.
+     */
+    private final Node<E> holder = new Node<>(null, 0, false, null);
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Default constructor.
+     */
+    public ConcurrentAVLTree() {}
+
+    /**
+     * Searches for an element in the tree without locking.
+     *
+     * @param e the item to search for.
+     * @return true if the item is found in the tree, otherwise false.
+     */
+    @Override
+    public boolean search(E e) {
+        while (true) {
+            Node<E> right = holder.right;
+            if (right == null) return false;
+            int cmp = e.compareTo(right.element);
+            if (cmp == 0) return right.present;
+            long version = right.version;
+            if (isShrinkingOrUnlinked(version)) {
+                waitUntilNotChanging(right);
+            } else if (right == holder.right) {
+                int result = attemptSearch(e, right, cmp, version);
+                if (result != RETRY) return result == UPDATED;
+            }
+        }
+    }
+
+    /**
+     * Inserts an element into the tree.
+     *
+     * @param e the element to be inserted.
+     * @return true if the insertion was successful, false if the element was already present.
+     */
+    @Override
+    public boolean insert(E e) {
+        if (update(e, true) != UPDATED) return false;
+        size.increment();
+        return true;
+    }
+
+    /**
+     * Deletes an element from the tree.
+     *
+     * @param e the element to be deleted.
+     * @return true if the element is found and successfully deleted, otherwise false.
+     */
+    @Override
+    public boolean delete(E e) {
+        if (update(e, false) != UPDATED) return false;
+        size.decrement();
+        return true;
+    }
+
+    /**
+     * Removes and returns the smallest element in the tree. The smallest element is found by a lock-free search and
+     * then deleted, so an element inserted concurrently may be smaller than the one removed; if another thread deletes
+     * the element first, the search is repeated.
+     *
+     * @return the smallest element, or null if the tree is empty.
+     */
+    public E pollFirst() {
+        while (true) {
+            E first = successor(null);
+            if (first == null || delete(first)) return first;
+        }
+    }
+
+    /**
+     * Prints the tree in order.
+     */
+    @Override
+    public void inorder() {
+        for (E e : this) System.out.println(e + " ");
+    }
+
+    /**
+     * Prints the tree in preorder. The traversal takes no locks, so it is only exact when no writes are in flight.
+     */
+    @Override
+    public void preorder() {
+        preorder(holder.right);
+    }
+
+    /**
+     * Helper method to print the tree in preorder recursively, skipping routing nodes.
+     *
+     * @param root the current node being processed.
+     */
+    private void preorder(Node<E> root) {
+        if (root == null) return;
+        if (root.present) System.out.print(root.element + " ");
+        preorder(root.left);
+        preorder(root.right);
+    }
+
+    /**
+     * Prints the tree in postorder. The traversal takes no locks, so it is only exact when no writes are in flight.
+     */
+    @Override
+    public void postorder() {
+        postorder(holder.right);
+    }
+
+    /**
+     * Helper method to print the tree in postorder recursively, skipping routing nodes.
+     *
+     * @param root the current node being processed.
+     */
+    private void postorder(Node<E> root) {
+        if (root == null) return;
+        postorder(root.left);
+        postorder(root.right);
+        if (root.present) System.out.print(root.element + " ");
+    }
+
+    /**
+     * Gets the current size of the tree.
+     *
+     * @return the number of elements in the tree.
+     */
+    @Override
+    public int getSize() {
+        return (int) size.sum();
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the tree has no elements, otherwise false.
+     */
+    @Override
+    public boolean isEmpty() {
+        return successor(null) == null;
+    }
+
+    /**
+     * Returns a weakly consistent in order iterator, which never throws ConcurrentModificationException.
+     *
+     * @return the in order iterator.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new InOrderIterator();
+    }
+
+    /**
+     * Counts the nodes linked into the tree, leaving out routing nodes with two children, which are still needed to
+     * guide searches. Every other routing node should have been unlinked, so when no writes are in flight the count
+     * equals the size. The traversal takes no locks.
+     *
+     * @return the number of nodes holding an element or that should have been unlinked.
+     */
+    int countNodes() {
+        return countNodes(holder.right);
+    }
+
+    /**
+     * Helper method to count the nodes of a subtree recursively, leaving out routing nodes with two children.
+     *
+     * @param root the root of the subtree.
+     * @return the number of nodes counted.
+     */
+    private static int countNodes(Node<?> root) {
+        if (root == null) return 0;
+        int count = (root.present || root.left == null || root.right == null) ? 1 : 0;
+        return count + countNodes(root.left) + countNodes(root.right);
+    }
+
+    /**
+     * Searches the subtree below a node whose version has been validated.
+     *
+     * @param e the item to search for.
+     * @param node the node, which is known not to hold the item.
+     * @param dir the direction of the item from the node, negative for the left subtree.
+     * @param nodeVersion the version of the node read before it was validated.
+     * @return UPDATED if the item is found, UNCHANGED if it is not, or RETRY if the node has changed since.
+     */
+    private int attemptSearch(E e, Node<E> node, int dir, long nodeVersion) {
+        while (true) {
+            Node<E> child = node.child(dir);
+            if (child == null) return (node.version != nodeVersion) ? RETRY : UNCHANGED;
+            int cmp = e.compareTo(child.element);
+            if (cmp == 0) return child.present ? UPDATED : UNCHANGED;
+            long childVersion = child.version;
+            if (isShrinkingOrUnlinked(childVersion)) {
+                waitUntilNotChanging(child);
+                if (node.version != nodeVersion) return RETRY;
+            } else if (child != node.child(dir)) {
+                if (node.version != nodeVersion) return RETRY;
+            } else {
+                if (node.version != nodeVersion) return RETRY;
+                int result = attemptSearch(e, child, cmp, childVersion);
+                if (result != RETRY) return result;
+            }
+        }
+    }
+
+    /**
+     * Inserts or deletes an element.
+     *
+     * @param e the element.
+     * @param insert true to insert the element, false to delete it.
+     * @return UPDATED if the tree was changed, otherwise UNCHANGED.
+     */
+    private int update(E e, boolean insert) {
+        while (true) {
+            Node<E> right = holder.right;
+            if (right == null) {
+                if (!insert) return UNCHANGED;
+                if (attemptInsertIntoEmpty(e)) return UPDATED;
+            } else {
+                long version = right.version;
+                if (isShrinkingOrUnlinked(version)) {
+                    waitUntilNotChanging(right);
+                } else if (right == holder.right) {
+                    int result = attemptUpdate(e, insert, holder, right, version);
+                    if (result != RETRY) return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes an element the root of the tree, if the tree is still empty.
+     *
+     * @param e the element.
+     * @return true if the element was inserted, false if another thread inserted a root first.
+     */
+    private boolean attemptInsertIntoEmpty(E e) {
+        synchronized (holder) {
+            if (holder.right != null) return false;
+            holder.right = new Node<>(e, 1, true, holder);
+            holder.height = 2;
+            return true;
+        }
+    }
+
+    /**
+     * Inserts or deletes an element in the subtree of a node whose version has been validated.
+     *
+     * @param e the element.
+     * @param insert true to insert the element, false to delete it.
+     * @param parent the parent of the node.
+     * @param node the node.
+     * @param nodeVersion the version of the node read before it was validated.
+     * @return UPDATED or UNCHANGED, or RETRY if the node has changed since.
+     */
+    private int attemptUpdate(E e, boolean insert, Node<E> parent, Node<E> node, long nodeVersion) {
+        int cmp = e.compareTo(node.element);
+        if (cmp == 0) return attemptNodeUpdate(insert, parent, node);
+        while (true) {
+            Node<E> child = node.child(cmp);
+            if (node.version != nodeVersion) return RETRY;
+            if (child == null) {
+                if (!insert) return UNCHANGED;
+                Node<E> damaged;
+                synchronized (node) {
+                    if (node.version != nodeVersion) return RETRY;
+                    if (node.child(cmp) != null) continue;
+                    node.setChild(cmp, new Node<>(e, 1, true, node));
+                    damaged = fixHeight(node);
+                }
+                fixHeightAndRebalance(damaged);
+                return UPDATED;
+            }
+            long childVersion = child.version;
+            if (isShrinkingOrUnlinked(childVersion)) {
+                waitUntilNotChanging(child);
+            } else if (child == node.child(cmp)) {
+                if (node.version != nodeVersion) return RETRY;
+                int result = attemptUpdate(e, insert, node, child, childVersion);
+                if (result != RETRY) return result;
+            }
+        }
+    }
+
+    /**
+     * Inserts or deletes the element of the node that holds it. A deleted node with at most one child is unlinked right
+     * away; otherwise it stays in the tree as a routing node.
+     *
+     * @param insert true to insert the element, false to delete it.
+     * @param parent the parent of the node.
+     * @param node the node.
+     * @return UPDATED or UNCHANGED, or RETRY if the node has been moved or unlinked.
+     */
+    private int attemptNodeUpdate(boolean insert, Node<E> parent, Node<E> node) {
+        if (!insert && !node.present) return UNCHANGED;
+        if (!insert && (node.left == null || node.right == null)) {
+            Node<E> damaged;
+            synchronized (parent) {
+                if (isUnlinked(parent.version) || node.parent != parent) return RETRY;
+                synchronized (node) {
+                    if (!node.present) return UNCHANGED;
+                    if (!attemptUnlink(parent, node)) return RETRY;
+                }
+                damaged = fixHeight(parent);
+            }
+            fixHeightAndRebalance(damaged);
+            return UPDATED;
+        }
+        synchronized (node) {
+            if (isUnlinked(node.version)) return RETRY;
+            if (node.present == insert) return UNCHANGED;
+            // A node that lost a child since it was checked above must be unlinked instead
+            if (!insert && (node.left == null || node.right == null)) return RETRY;
+            node.present = insert;
+            return UPDATED;
+        }
+    }
+
+    /**
+     * Unlinks a node with at most one child, replacing it by that child. The caller holds the locks of the parent and
+     * the node.
+     *
+     * @param parent the parent of the node.
+     * @param node the node.
+     * @return true if the node was unlinked, false if it is no longer a child of the parent or has two children.
+     */
+    private boolean attemptUnlink(Node<E> parent, Node<E> node) {
+        Node<E> parentLeft = parent.left;
+        Node<E> parentRight = parent.right;
+        if (parentLeft != node && parentRight != node) return false;
+        Node<E> left = node.left;
+        Node<E> right = node.right;
+        if (left != null && right != null) return false;
+        Node<E> splice = (left != null) ? left : right;
+        if (parentLeft == node) parent.left = splice;
+        else parent.right = splice;
+        if (splice != null) splice.parent = parent;
+        node.version = UNLINKED;
+        node.present = false;
+        return true;
+    }
+
+    /**
+     * Repairs heights, unlinks routing nodes and rebalances, from a damaged node towards the root.
+     *
+     * @param node the damaged node, or null if nothing was damaged.
+     */
+    private void fixHeightAndRebalance(Node<E> node) {
+        while (node != null && node.parent != null) {
+            int condition = nodeCondition(node);
+            if (condition == NOTHING_REQUIRED || isUnlinked(node.version)) return;
+            if (condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED) {
+                synchronized (node) {
+                    node = fixHeight(node);
+                }
+            } else {
+                Node<E> parent = node.parent;
+                synchronized (parent) {
+                    if (!isUnlinked(parent.version) && node.parent == parent) {
+                        synchronized (node) {
+                            node = rebalance(parent, node);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out what a node needs, from the heights of its children.
+     *
+     * @param node the node.
+     * @return UNLINK_REQUIRED, REBALANCE_REQUIRED, NOTHING_REQUIRED or the height the node should have.
+     */
+    private static int nodeCondition(Node<?> node) {
+        Node<?> left = node.left;
+        Node<?> right = node.right;
+        if ((left == null || right == null) && !node.present) return UNLINK_REQUIRED;
+        int heightLeft = heightOf(left);
+        int heightRight = heightOf(right);
+        int balance = heightLeft - heightRight;
+        if (balance < -1 || balance > 1) return REBALANCE_REQUIRED;
+        int height = 1 + Math.max(heightLeft, heightRight);
+        return (node.height != height) ? height : NOTHING_REQUIRED;
+    }
+
+    /**
+     * Repairs the height of a node, whose lock the caller holds.
+     *
+     * @param node the node.
+     * @return the node to repair next: the node itself if it needs unlinking or rebalancing, its parent if its height
+     *         changed, or null if nothing more is needed.
+     */
+    private Node<E> fixHeight(Node<E> node) {
+        int condition = nodeCondition(node);
+        if (condition == REBALANCE_REQUIRED || condition == UNLINK_REQUIRED) return node;
+        if (condition == NOTHING_REQUIRED) return null;
+        node.height = condition;
+        return node.parent;
+    }
+
+    /**
+     * Unlinks, rebalances or repairs the height of a node. The caller holds the locks of the parent and the node.
+     *
+     * @param parent the parent of the node.
+     * @param node the node.
+     * @return the node to repair next, or null if nothing more is needed.
+     */
+    private Node<E> rebalance(Node<E> parent, Node<E> node) {
+        Node<E> left = node.left;
+        Node<E> right = node.right;
+        if ((left == null || right == null) && !node.present) {
+            return attemptUnlink(parent, node) ? fixHeight(parent) : node;
+        }
+        int heightLeft = heightOf(left);
+        int heightRight = heightOf(right);
+        int height = 1 + Math.max(heightLeft, heightRight);
+        int balance = heightLeft - heightRight;
+        if (balance > 1) return rebalanceToRight(parent, node, left, heightRight);
+        if (balance < -1) return rebalanceToLeft(parent, node, right, heightLeft);
+        if (height == node.height) return null;
+        node.height = height;
+        return fixHeight(parent);
+    }
+
+    /**
+     * Rebalances a node whose left subtree is too high, by a single or double right rotation.
+     *
+     * @param parent the parent of the node.
+     * @param node the node.
+     * @param left the left child of the node.
+     * @param heightRight the height of the right subtree of the node.
+     * @return the node to repair next, or null if nothing more is needed.
+     */
+    private Node<E> rebalanceToRight(Node<E> parent, Node<E> node, Node<E> left, int heightRight) {
+        synchronized (left) {
+            if (left.height - heightRight <= 1) return node;
+            Node<E> leftRight = left.right;
+            int heightLeftLeft = heightOf(left.left);
+            int heightLeftRight = heightOf(leftRight);
+            if (heightLeftLeft >= heightLeftRight) {
+                return rotateRight(parent, node, left, heightRight, heightLeftLeft, leftRight, heightLeftRight);
+            }
+            synchronized (leftRight) {
+                heightLeftRight = leftRight.height;
+                if (heightLeftLeft >= heightLeftRight) {
+                    return rotateRight(parent, node, left, heightRight, heightLeftLeft, leftRight, heightLeftRight);
+                }
+                int heightLeftRightLeft = heightOf(leftRight.left);
+                int balance = heightLeftLeft - heightLeftRightLeft;
+                // A double rotation must not leave the left child unbalanced, or a routing leaf
+                if (balance >= -1 && balance <= 1
+                        && !((heightLeftLeft == 0 || heightLeftRightLeft == 0) && !left.present)) {
+                    return rotateRightOverLeft(parent, node, left, heightRight, heightLeftLeft, leftRight,
+                            heightLeftRightLeft);
+                }
+            }
+            // Rebalance the left child first; the node is rebalanced on a later pass
+            return rebalanceToLeft(node, left, leftRight, heightLeftLeft);
+        }
+    }
+
+    /**
+     * Rebalances a node whose right subtree is too high, by a single or double left rotation.
+     *
+     * @param parent the parent of the node.
+     * @param node the node.
+     * @param right the right child of the node.
+     * @param heightLeft the height of the left subtree of the node.
+     * @return the node to repair next, or null if nothing more is needed.
+     */
+    private Node<E> rebalanceToLeft(Node<E> parent, Node<E> node, Node<E> right, int heightLeft) {
+        synchronized (right) {
+            if (heightLeft - right.height >= -1) return node;
+            Node<E> rightLeft = right.left;
+            int heightRightLeft = heightOf(rightLeft);
+            int heightRightRight = heightOf(right.right);
+            if (heightRightRight >= heightRightLeft) {
+                return rotateLeft(parent, node, heightLeft, right, rightLeft, heightRightLeft, heightRightRight);
+            }
+            synchronized (rightLeft) {
+                heightRightLeft = rightLeft.height;
+                if (heightRightRight >= heightRightLeft) {
+                    return rotateLeft(parent, node, heightLeft, right, rightLeft, heightRightLeft, heightRightRight);
+                }
+                int heightRightLeftRight = heightOf(rightLeft.right);
+                int balance = heightRightRight - heightRightLeftRight;
+                if (balance >= -1 && balance <= 1
+                        && !((heightRightRight == 0 || heightRightLeftRight == 0) && !right.present)) {
+                    return rotateLeftOverRight(parent, node, heightLeft, right, rightLeft, heightRightRight,
+                            heightRightLeftRight);
+                }
+            }
+            return rebalanceToRight(node, right, rightLeft, heightRightRight);
+        }
+    }
+
+    /**
+     * Rotates the subtree rooted at a node to the right (the LL balance). The caller holds the locks of the parent, the
+     * node and its left child.
+     *
+     * @param parent the parent of the node.
+     * @param node the root of the subtree.
+     * @param left the left child of the node.
+     * @param heightRight the height of the right subtree of the node.
+     * @param heightLeftLeft the height of the left subtree of the left child.
+     * @param leftRight the right child of the left child, may be null.
+     * @param heightLeftRight the height of the right subtree of the left child.
+     * @return the node to repair next, or null if nothing more is needed.
+     */
+    private Node<E> rotateRight(Node<E> parent, Node<E> node, Node<E> left, int heightRight, int heightLeftLeft,
+                                Node<E> leftRight, int heightLeftRight) {
+        long version = node.version;
+        node.version = version | SHRINKING;
+        node.left = leftRight;
+        if (leftRight != null) leftRight.parent = node;
+        left.right = node;
+        node.parent = left;
+        parent.replaceChild(node, left);
+        left.parent = parent;
+        int heightNode = 1 + Math.max(heightLeftRight, heightRight);
+        node.height = heightNode;
+        left.height = 1 + Math.max(heightLeftLeft, heightNode);
+        node.version = version + SHRINK_COUNT_INCREMENT;
+
+        int balanceNode = heightLeftRight - heightRight;
+        if (balanceNode < -1 || balanceNode > 1) return node;
+        // A routing node left with at most one child must be unlinked
+        if ((leftRight == null || heightRight == 0) && !node.present) return node;
+        int balanceLeft = heightLeftLeft - heightNode;
+        if (balanceLeft < -1 || balanceLeft > 1) return left;
+        if (heightLeftLeft == 0 && !left.present) return left;
+        return fixHeight(parent);
+    }
+
+    /**
+     * Rotates the subtree rooted at a node to the left (the RR balance). The caller holds the locks of the parent, the
+     * node and its right child.
+     *
+     * @param parent the parent of the node.
+     * @param node the root of the subtree.
+     * @param heightLeft the height of the left subtree of the node.
+     * @param right the right child of the node.
+     * @param rightLeft the left child of the right child, may be null.
+     * @param heightRightLeft the height of the left subtree of the right child.
+     * @param heightRightRight the height of the right subtree of the right child.
+     * @return the node to repair next, or null if nothing more is needed.
+     */
+    private Node<E> rotateLeft(Node<E> parent, Node<E> node, int heightLeft, Node<E> right, Node<E> rightLeft,
+                               int heightRightLeft, int heightRightRight) {
+        long version = node.version;
+        node.version = version | SHRINKING;
+        node.right = rightLeft;
+        if (rightLeft != null) rightLeft.parent = node;
+        right.left = node;
+        node.parent = right;
+        parent.replaceChild(node, right);
+        right.parent = parent;
+        int heightNode = 1 + Math.max(heightLeft, heightRightLeft);
+        node.height = heightNode;
+        right.height = 1 + Math.max(heightNode, heightRightRight);
+        node.version = version + SHRINK_COUNT_INCREMENT;
+
+        int balanceNode = heightRightLeft - heightLeft;
+        if (balanceNode < -1 || balanceNode > 1) return node;
+        // A routing node left with at most one child must be unlinked
+        if ((rightLeft == null || heightLeft == 0) && !node.present) return node;
+        int balanceRight = heightRightRight - heightNode;
+        if (balanceRight < -1 || balanceRight > 1) return right;
+        if (heightRightRight == 0 && !right.present) return right;
+        return fixHeight(parent);
+    }
+
+    /**
+     * Rotates the left child of a node to the left and then the node to the right (the LR balance). The caller holds
+     * the locks of the parent, the node, its left child and that child's right child.
+     *
+     * @param parent the parent of the node.
+     * @param node the root of the subtree.
+     * @param left the left child of the node.
+     * @param heightRight the height of the right subtree of the node.
+     * @param heightLeftLeft the height of the left subtree of the left child.
+     * @param leftRight the right child of the left child.
+     * @param heightLeftRightLeft the height of the left subtree of leftRight.
+     * @return the node to repair next, or null if nothing more is needed.
+     */
+    private Node<E> rotateRightOverLeft(Node<E> parent, Node<E> node, Node<E> left, int heightRight,
+                                        int heightLeftLeft, Node<E> leftRight, int heightLeftRightLeft) {
+        long version = node.version;
+        long leftVersion = left.version;
+        Node<E> leftRightLeft = leftRight.left;
+        Node<E> leftRightRight = leftRight.right;
+        int heightLeftRightRight = heightOf(leftRightRight);
+        node.version = version | SHRINKING;
+        left.version = leftVersion | SHRINKING;
+        node.left = leftRightRight;
+        if (leftRightRight != null) leftRightRight.parent = node;
+        left.right = leftRightLeft;
+        if (leftRightLeft != null) leftRightLeft.parent = left;
+        leftRight.left = left;
+        left.parent = leftRight;
+        leftRight.right = node;
+        node.parent = leftRight;
+        parent.replaceChild(node, leftRight);
+        leftRight.parent = parent;
+        int heightNode = 1 + Math.max(heightLeftRightRight, heightRight);
+        node.height = heightNode;
+        int heightLeft = 1 + Math.max(heightLeftLeft, heightLeftRightLeft);
+        left.height = heightLeft;
+        leftRight.height = 1 + Math.max(heightLeft, heightNode);
+        node.version = version + SHRINK_COUNT_INCREMENT;
+        left.version = leftVersion + SHRINK_COUNT_INCREMENT;
+
+        int balanceNode = heightLeftRightRight - heightRight;
+        if (balanceNode < -1 || balanceNode > 1) return node;
+        // A routing node left with at most one child must be unlinked; rebalanceToRight made sure left keeps two
+        if ((leftRightRight == null || heightRight == 0) && !node.present) return node;
+        int balanceLeftRight = heightLeft - heightNode;
+        if (balanceLeftRight < -1 || balanceLeftRight > 1) return leftRight;
+        return fixHeight(parent);
+    }
+
+    /**
+     * Rotates the right child of a node to the right and then the node to the left (the RL balance). The caller holds
+     * the locks of the parent, the node, its right child and that child's left child.
+     *
+     * @param parent the parent of the node.
+     * @param node the root of the subtree.
+     * @param heightLeft the height of the left subtree of the node.
+     * @param right the right child of the node.
+     * @param rightLeft the left child of the right child.
+     * @param heightRightRight the height of the right subtree of the right child.
+     * @param heightRightLeftRight the height of the right subtree of rightLeft.
+     * @return the node to repair next, or null if nothing more is needed.
+     */
+    private Node<E> rotateLeftOverRight(Node<E> parent, Node<E> node, int heightLeft, Node<E> right,
+                                        Node<E> rightLeft, int heightRightRight, int heightRightLeftRight) {
+        long version = node.version;
+        long rightVersion = right.version;
+        Node<E> rightLeftLeft = rightLeft.left;
+        Node<E> rightLeftRight = rightLeft.right;
+        int heightRightLeftLeft = heightOf(rightLeftLeft);
+        node.version = version | SHRINKING;
+        right.version = rightVersion | SHRINKING;
+        node.right = rightLeftLeft;
+        if (rightLeftLeft != null) rightLeftLeft.parent = node;
+        right.left = rightLeftRight;
+        if (rightLeftRight != null) rightLeftRight.parent = right;
+        rightLeft.right = right;
+        right.parent = rightLeft;
+        rightLeft.left = node;
+        node.parent = rightLeft;
+        parent.replaceChild(node, rightLeft);
+        rightLeft.parent = parent;
+        int heightNode = 1 + Math.max(heightLeft, heightRightLeftLeft);
+        node.height = heightNode;
+        int heightRight = 1 + Math.max(heightRightLeftRight, heightRightRight);
+        right.height = heightRight;
+        rightLeft.height = 1 + Math.max(heightNode, heightRight);
+        node.version = version + SHRINK_COUNT_INCREMENT;
+        right.version = rightVersion + SHRINK_COUNT_INCREMENT;
+
+        int balanceNode = heightRightLeftLeft - heightLeft;
+        if (balanceNode < -1 || balanceNode > 1) return node;
+        // A routing node left with at most one child must be unlinked; rebalanceToLeft made sure right keeps two
+        if ((rightLeftLeft == null || heightLeft == 0) && !node.present) return node;
+        int balanceRightLeft = heightRight - heightNode;
+        if (balanceRightLeft < -1 || balanceRightLeft > 1) return rightLeft;
+        return fixHeight(parent);
+    }
+
+    /**
+     * Finds the smallest element greater than a key without locking.
+     *
+     * @param key the key, or null to find the smallest element.
+     * @return the smallest element greater than the key, or null if there is none.
+     */
+    private E successor(E key) {
+        while (true) {
+            Node<E> right = holder.right;
+            if (right == null) return null;
+            long version = right.version;
+            if (isShrinkingOrUnlinked(version)) {
+                waitUntilNotChanging(right);
+            } else if (right == holder.right) {
+                Object result = attemptSuccessor(key, right, version);
+                if (result != RETRY_SEARCH) return elementOf(result);
+            }
+        }
+    }
+
+    /**
+     * Finds the smallest element greater than a key in the subtree of a node whose version has been validated.
+     *
+     * @param key the key, or null to find the smallest element.
+     * @param node the node.
+     * @param nodeVersion the version of the node read before it was validated.
+     * @return the element, null if the subtree holds no element greater than the key, or RETRY_SEARCH if the node has
+     *         changed since.
+     */
+    private Object attemptSuccessor(E key, Node<E> node, long nodeVersion) {
+        if (key == null || key.compareTo(node.element) < 0) {
+            Object result = attemptSuccessorBelow(key, node, -1, nodeVersion);
+            if (result != null) return result;
+            if (node.present) return (node.version != nodeVersion) ? RETRY_SEARCH : node.element;
+        }
+        return attemptSuccessorBelow(key, node, 1, nodeVersion);
+    }
+
+    /**
+     * Finds the smallest element greater than a key in one subtree of a node whose version has been validated.
+     *
+     * @param key the key, or null to find the smallest element.
+     * @param node the node.
+     * @param dir the subtree to search, negative for the left one.
+     * @param nodeVersion the version of the node read before it was validated.
+     * @return the element, null if the subtree holds no element greater than the key, or RETRY_SEARCH if the node has
+     *         changed since.
+     */
+    private Object attemptSuccessorBelow(E key, Node<E> node, int dir, long nodeVersion) {
+        while (true) {
+            Node<E> child = node.child(dir);
+            if (node.version != nodeVersion) return RETRY_SEARCH;
+            if (child == null) return null;
+            long childVersion = child.version;
+            if (isShrinkingOrUnlinked(childVersion)) {
+                waitUntilNotChanging(child);
+            } else if (child == node.child(dir)) {
+                if (node.version != nodeVersion) return RETRY_SEARCH;
+                Object result = attemptSuccessor(key, child, childVersion);
+                if (result != RETRY_SEARCH) return result;
+            }
+        }
+    }
+
+    /**
+     * Casts a successor search result back to the element type.
+     *
+     * @param result an element found by attemptSuccessor, or null.
+     * @return the element.
+     */
+    @SuppressWarnings("unchecked")
+    private E elementOf(Object result) {
+        return (E) result;
+    }
+
+    /**
+     * Waits until a rotation that is moving keys out of a node's subtree has finished, spinning briefly before blocking
+     * on the lock of the node, which the rotating thread holds.
+     *
+     * @param node the node.
+     */
+    private static void waitUntilNotChanging(Node<?> node) {
+        long version = node.version;
+        if ((version & SHRINKING) == 0) return;
+        for (int i = 0; i < SPIN_COUNT; i++) {
+            if (node.version != version) return;
+            Thread.onSpinWait();
+        }
+        synchronized (node) {
+            // Acquiring the lock waits for the rotation to finish
+        }
+    }
+
+    /**
+     * Checks if a version marks its node as unlinked.
+     *
+     * @param version the version.
+     * @return true if the node has been removed from the tree.
+     */
+    private static boolean isUnlinked(long version) {
+        return (version & UNLINKED) != 0;
+    }
+
+    /**
+     * Checks if a version marks its node as unlinked, or as the root of a subtree that is being rotated.
+     *
+     * @param version the version.
+     * @return true if the node's subtree can not be searched right now.
+     */
+    private static boolean isShrinkingOrUnlinked(long version) {
+        return (version & (SHRINKING | UNLINKED)) != 0;
+    }
+
+    /**
+     * Gets the height of a subtree.
+     *
+     * @param node the root of the subtree, may be null.
+     * @return the height of the subtree, or 0 if it is empty.
+     */
+    private static int heightOf(Node<?> node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    /**
+     * Represents a weakly consistent in order iterator, which finds each element by searching for the successor of
+     * the previous one.
+     */
+    private class InOrderIterator implements Iterator<E> {
+        private E next = successor(null);
+        private E lastReturned;
+
+        /**
+         * Constructs the iterator.
+         */
+        InOrderIterator() {}
+
+        /**
+         * Checks if the iterator has another element.
+         *
+         * @return true if there is another element in the iteration, otherwise false.
+         */
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        /**
+         * Gets the next element in the iteration.
+         *
+         * @return the next element in the iteration.
+         */
+        @Override
+        public E next() {
+            if (next == null) throw new NoSuchElementException();
+            lastReturned = next;
+            next = successor(lastReturned);
+            return lastReturned;
+        }
+
+        /**
+         * Deletes the last element returned from the tree.
+         */
+        @Override
+        public void remove() {
+            if (lastReturned == null) throw new IllegalStateException();
+            delete(lastReturned);
+            lastReturned = null;
+        }
+    }
+
+    /**
+     * Represents a node of the tree. A node whose element is not present is a routing node, which only guides searches.
+     * Links, heights and versions are read without locking, and written only under the node's lock.
+     *
+     * @param <E> The type of the element.
+     */
+    private static final class Node<E> {
+        final E element;
+        volatile int height;
+        volatile boolean present;
+        volatile long version;
+        volatile Node<E> parent;
+        volatile Node<E> left;
+        volatile Node<E> right;
+
+        /**
+         * Constructs a node with no children.
+         *
+         * @param element the element.
+         * @param height the height of the node.
+         * @param present whether the element is present.
+         * @param parent the parent of the node.
+         */
+        Node(E element, int height, boolean present, Node<E> parent) {
+            this.element = element;
+            this.height = height;
+            this.present = present;
+            this.parent = parent;
+        }
+
+        /**
+         * Gets a child of the node.
+         *
+         * @param dir negative for the left child, otherwise the right child.
+         * @return the child, or null.
+         */
+        Node<E> child(int dir) {
+            return (dir < 0) ? left : right;
+        }
+
+        /**
+         * Sets a child of the node.
+         *
+         * @param dir negative for the left child, otherwise the right child.
+         * @param child the new child.
+         */
+        void setChild(int dir, Node<E> child) {
+            if (dir < 0) left = child;
+            else right = child;
+        }
+
+        /**
+         * Replaces one child of the node with another node.
+         *
+         * @param oldChild the child being replaced.
+         * @param newChild the new child.
+         */
+        void replaceChild(Node<E> oldChild, Node<E> newChild) {
+            if (left == oldChild) left = newChild;
+            else right = newChild;
+        }
+    }
+}
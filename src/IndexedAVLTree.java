@@ -0,0 +1,253 @@
+/**
+ * Represents the structure shared by the AVL trees whose nodes are referred to by an int index rather than a node
+ * object (ArrayAVLTree and OffHeapLongAVLTree): the root, the path stack, insertion and deletion relinking and
+ * rebalancing. Index 0 (NIL) is a sentinel standing in for null, with a height of -1.
+ * <p>
+ * Each subclass decides where the fields of a node are stored, in parallel arrays or in off-heap memory, and exposes
+ * them through the accessors declared here. It implements the searches that compare its keys, and a search that ends
+ * in an insertion or deletion leaves the nodes it visited on the path stack, from which this class relinks and
+ * rebalances the tree.
+ */
+public abstract class IndexedAVLTree {
+    protected static final int NIL = 0;
+
+    /**
+     * Upper bound on the height of any AVL tree holding at most Integer.MAX_VALUE nodes.
+     */
+    protected static final int MAX_PATH_LENGTH = 64;
+
+    protected int root = NIL;
+    protected int size = 0;
+    protected int modCount = 0;
+
+    /**
+     * Reusable stack of the nodes visited by the current insert/delete, from the root down.
+     */
+    protected final int[] path = new int[MAX_PATH_LENGTH];
+
+    /**
+     * Default constructor.
+     */
+    protected IndexedAVLTree() {}
+
+    /**
+     * Gets the current size of the tree.
+     *
+     * @return the number of keys in the tree.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the size of the tree is 0, otherwise false.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Links a new leaf node into the tree below the last node on the path stack, or as the root if the stack is empty,
+     * and rebalances the tree.
+     *
+     * @param depth the number of nodes on the path stack.
+     * @param node the new node.
+     * @param left whether the node becomes the left child of its parent rather than the right one.
+     */
+    protected void attach(int depth, int node, boolean left) {
+        if (depth == 0) root = node;
+        else if (left) setLeft(path[depth - 1], node);
+        else setRight(path[depth - 1], node);
+        size++;
+        modCount++;
+        balancePath(depth);
+    }
+
+    /**
+     * Removes a node from the tree and rebalances it. A node with a left child takes over the entry of the largest node
+     * in its left subtree, which is unlinked instead.
+     *
+     * @param depth the number of nodes on the path stack, which holds the ancestors of the node.
+     * @param node the node to remove.
+     * @return the node that was unlinked, whose slot the subclass may reuse.
+     */
+    protected int detach(int depth, int node) {
+        int removed;
+        if (left(node) == NIL) {
+            replaceChild((depth == 0) ? NIL : path[depth - 1], node, right(node));
+            removed = node;
+        } else {
+            path[depth++] = node;
+            int rightMost = left(node);
+            while (right(rightMost) != NIL) {
+                path[depth++] = rightMost;
+                rightMost = right(rightMost);
+            }
+            int parentOfRightMost = path[depth - 1];
+            copyEntry(node, rightMost);
+            if (right(parentOfRightMost) == rightMost) setRight(parentOfRightMost, left(rightMost));
+            else setLeft(parentOfRightMost, left(rightMost));
+            removed = rightMost;
+        }
+        size--;
+        modCount++;
+        balancePath(depth);
+        return removed;
+    }
+
+    /**
+     * Balances the tree along the recorded path, starting at the deepest node and moving towards the root.
+     * Stops as soon as a subtree ends up with the same height it had before the modification.
+     *
+     * @param depth the number of nodes on the path stack.
+     */
+    private void balancePath(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int A = path[i];
+            int oldHeight = height(A);
+            updateHeight(A);
+            int parentOfA = (i == 0) ? NIL : path[i - 1];
+            int subtreeRoot = A;
+
+            int balance = balanceFactor(A);
+            if (balance == -2) {
+                if (balanceFactor(left(A)) <= 0) subtreeRoot = rotateRight(A, parentOfA);
+                else {
+                    rotateLeft(left(A), A);
+                    subtreeRoot = rotateRight(A, parentOfA);
+                }
+            } else if (balance == 2) {
+                if (balanceFactor(right(A)) >= 0) subtreeRoot = rotateLeft(A, parentOfA);
+                else {
+                    rotateRight(right(A), A);
+                    subtreeRoot = rotateLeft(A, parentOfA);
+                }
+            }
+            if (height(subtreeRoot) == oldHeight) break;
+        }
+    }
+
+    /**
+     * Rotates the subtree rooted at A to the right (the LL balance), relinking it into its parent.
+     *
+     * @param A the root of the subtree.
+     * @param parentOfA the parent of A, or NIL if A is the root.
+     * @return the new root of the subtree.
+     */
+    private int rotateRight(int A, int parentOfA) {
+        int B = left(A);
+        replaceChild(parentOfA, A, B);
+        setLeft(A, right(B));
+        setRight(B, A);
+        updateHeight(A);
+        updateHeight(B);
+        return B;
+    }
+
+    /**
+     * Rotates the subtree rooted at A to the left (the RR balance), relinking it into its parent.
+     *
+     * @param A the root of the subtree.
+     * @param parentOfA the parent of A, or NIL if A is the root.
+     * @return the new root of the subtree.
+     */
+    private int rotateLeft(int A, int parentOfA) {
+        int B = right(A);
+        replaceChild(parentOfA, A, B);
+        setRight(A, left(B));
+        setLeft(B, A);
+        updateHeight(A);
+        updateHeight(B);
+        return B;
+    }
+
+    /**
+     * Replaces a child of a node, or the root if the node is NIL.
+     *
+     * @param parent the parent node, or NIL to replace the root.
+     * @param oldChild the child being replaced.
+     * @param newChild the new child.
+     */
+    private void replaceChild(int parent, int oldChild, int newChild) {
+        if (parent == NIL) root = newChild;
+        else if (left(parent) == oldChild) setLeft(parent, newChild);
+        else setRight(parent, newChild);
+    }
+
+    /**
+     * Updates the height of a node from the heights of its children.
+     *
+     * @param node the node whose height is to be updated.
+     */
+    private void updateHeight(int node) {
+        setHeight(node, Math.max(height(left(node)), height(right(node))) + 1);
+    }
+
+    /**
+     * Calculates the balance factor of a node.
+     *
+     * @param node the node at which to calculate the balance factor.
+     * @return the height of the right subtree minus the height of the left subtree.
+     */
+    private int balanceFactor(int node) {
+        return height(right(node)) - height(left(node));
+    }
+
+    /**
+     * Gets the left child of a node.
+     *
+     * @param node the index of the node.
+     * @return the index of the left child, or NIL.
+     */
+    protected abstract int left(int node);
+
+    /**
+     * Sets the left child of a node.
+     *
+     * @param node the index of the node.
+     * @param left the index of the new left child, or NIL.
+     */
+    protected abstract void setLeft(int node, int left);
+
+    /**
+     * Gets the right child of a node.
+     *
+     * @param node the index of the node.
+     * @return the index of the right child, or NIL.
+     */
+    protected abstract int right(int node);
+
+    /**
+     * Sets the right child of a node.
+     *
+     * @param node the index of the node.
+     * @param right the index of the new right child, or NIL.
+     */
+    protected abstract void setRight(int node, int right);
+
+    /**
+     * Gets the height of the subtree rooted at a node.
+     *
+     * @param node the index of the node, which may be NIL.
+     * @return the height of the subtree, -1 for NIL.
+     */
+    protected abstract int height(int node);
+
+    /**
+     * Sets the height of the subtree rooted at a node.
+     *
+     * @param node the index of the node.
+     * @param height the new height.
+     */
+    protected abstract void setHeight(int node, int height);
+
+    /**
+     * Copies the key and value of one node into another, when that node takes over the other's entry.
+     *
+     * @param to the index of the node taking over the entry.
+     * @param from the index of the node whose entry is copied.
+     */
+    protected abstract void copyEntry(int to, int from);
+}
@@ -0,0 +1,198 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Represents a hash map keyed by primitive int values, such as process ids.
+ * Keys are stored unboxed in an open-addressing table with linear probing, so lookups take O(1) expected time and
+ * neither the keys nor the entries need wrapper objects. Deleted entries are removed by shifting the rest of their probe
+ * run back, so the table never fills up with tombstones.
+ *
+ * @param <V> The type of value associated with each key.
+ */
+public class IntHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    /**
+     * Multiplier for Fibonacci hashing (2^32 divided by the golden ratio), which spreads sequential keys evenly.
+     */
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private int[] keys;
+    private V[] values;
+    private int shift;
+    private int size = 0;
+
+    /**
+     * Default constructor.
+     */
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a map with room for a number of keys before it has to grow.
+     *
+     * @param expectedSize the number of keys expected.
+     */
+    public IntHashMap(int expectedSize) {
+        allocate(Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize + expectedSize / 2)) << 1));
+    }
+
+    /**
+     * Checks if a key exists in the map.
+     *
+     * @param key the key to search for.
+     * @return true if the key is found in the map, otherwise false.
+     */
+    public boolean contains(int key) {
+        return values[slotOf(key)] != null;
+    }
+
+    /**
+     * Gets the value associated with a key.
+     *
+     * @param key the key to search for.
+     * @return the value associated with the key, or null if the key is not in the map.
+     */
+    public V get(int key) {
+        return values[slotOf(key)];
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     *
+     * @param key the key.
+     * @param value the value, not null.
+     * @return the previous value associated with the key, or null if the key was not in the map.
+     */
+    public V put(int key, V value) {
+        if (value == null) throw new NullPointerException("IntHashMap does not hold null values");
+        int slot = slotOf(key);
+        V previous = values[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        if (previous == null && ++size > maxSize()) grow();
+        return previous;
+    }
+
+    /**
+     * Removes a key from the map.
+     *
+     * @param key the key to be removed.
+     * @return the value that was associated with the key, or null if the key was not in the map.
+     */
+    public V remove(int key) {
+        int slot = slotOf(key);
+        V previous = values[slot];
+        if (previous == null) return null;
+        int mask = keys.length - 1;
+        // Shift later entries of the probe run back into the gap, unless that would move them before their home slot
+        int gap = slot;
+        for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = indexFor(keys[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        values[gap] = null;
+        size--;
+        return previous;
+    }
+
+    /**
+     * Removes every key from the map, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of keys in the map.
+     *
+     * @return the number of keys.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return true if the size of the map is 0, otherwise false.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Performs an action on every value in the map, in no particular order.
+     *
+     * @param action the action to perform on each value.
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        for (V value : values) {
+            if (value != null) action.accept(value);
+        }
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot where it would be placed.
+     *
+     * @param key the key to search for.
+     * @return the index of the slot.
+     */
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int i = indexFor(key);
+        while (values[i] != null && keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * Gets the home slot of a key.
+     *
+     * @param key the key.
+     * @return the index of the first slot probed for the key.
+     */
+    private int indexFor(int key) {
+        return (key * HASH_MULTIPLIER) >>> shift;
+    }
+
+    /**
+     * Gets the number of keys the table may hold before it grows, keeping it at most two-thirds full.
+     *
+     * @return the maximum size for the current capacity.
+     */
+    private int maxSize() {
+        return keys.length / 3 * 2;
+    }
+
+    /**
+     * Doubles the capacity of the table and re-inserts every entry.
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = slotOf(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Allocates an empty table.
+     *
+     * @param capacity the number of slots, a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = (V[]) new Object[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity - 1);
+    }
+}
@@ -0,0 +1,253 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Represents an AVL tree mapping primitive int keys to primitive long values, such as process ids to elapsed times.
+ * Neither keys nor values are boxed, so updating a value (for example accumulating time with {@link #add(int, long)})
+ * allocates nothing once the key is in the tree. The balancing is shared with the other primitive-keyed trees through
+ * PrimitiveAVLTree.
+ * <p>
+ * As a Tree the keys are seen as Integers, and inserting a key through it gives the key the value 0.
+ */
+public class IntLongAVLTree extends PrimitiveAVLTree<IntLongAVLTree.Entry> implements Tree<Integer> {
+    /**
+     * Default constructor.
+     */
+    public IntLongAVLTree() {}
+
+    /**
+     * Checks if a key exists in the tree.
+     *
+     * @param key the key to search for.
+     * @return true if the key is found in the tree, otherwise false.
+     */
+    public boolean contains(int key) {
+        return findNode(key) != null;
+    }
+
+    /**
+     * Gets the value associated with a key.
+     *
+     * @param key the key to search for.
+     * @param defaultValue the value to return if the key is not in the tree.
+     * @return the value associated with the key, or defaultValue if the key is not in the tree.
+     */
+    public long get(int key, long defaultValue) {
+        Entry node = findNode(key);
+        return (node == null) ? defaultValue : node.value;
+    }
+
+    /**
+     * Inserts a key with the value 0 into the tree, unless it is already present.
+     *
+     * @param key the key to be inserted.
+     * @return true if the insertion was successful, false if the key was already present.
+     */
+    public boolean insert(int key) {
+        int oldSize = size;
+        entry(key);
+        return size != oldSize;
+    }
+
+    /**
+     * Associates a value with a key, inserting the key if it is not in the tree yet.
+     *
+     * @param key the key to be inserted.
+     * @param value the value to associate with the key.
+     * @return true if the key was inserted, false if it was present and only its value was replaced.
+     */
+    public boolean put(int key, long value) {
+        int oldSize = size;
+        entry(key).value = value;
+        return size != oldSize;
+    }
+
+    /**
+     * Adds an amount to the value associated with a key, inserting the key with the amount as its value if it is not in
+     * the tree yet.
+     *
+     * @param key the key whose value is updated.
+     * @param delta the amount to add.
+     * @return the new value associated with the key.
+     */
+    public long add(int key, long delta) {
+        Entry node = entry(key);
+        node.value += delta;
+        return node.value;
+    }
+
+    /**
+     * Deletes a key (and its value) from the tree.
+     *
+     * @param key the key to be deleted.
+     * @return true if the key is found and successfully deleted, otherwise false.
+     */
+    public boolean delete(int key) {
+        int depth = 0;
+        Entry current = root;
+        while (current != null && key != current.key) {
+            visit(depth++, current);
+            current = (key < current.key) ? current.left : current.right;
+        }
+        if (current == null) {
+            clearPath(depth);
+            return false;
+        }
+        detach(depth, current);
+        return true;
+    }
+
+    /**
+     * Gets the smallest key in the tree.
+     *
+     * @return the smallest key.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    public int firstKey() {
+        return firstNode().key;
+    }
+
+    /**
+     * Gets the largest key in the tree.
+     *
+     * @return the largest key.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    public int lastKey() {
+        return lastNode().key;
+    }
+
+    /**
+     * Performs an action on every key in the tree in ascending order.
+     *
+     * @param action the action to perform.
+     */
+    public void forEachKey(IntConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    /**
+     * Checks if a key exists in the tree.
+     *
+     * @param key the key to search for.
+     * @return true if the key is found in the tree, otherwise false.
+     */
+    @Override
+    public boolean search(Integer key) {
+        return contains(key.intValue());
+    }
+
+    /**
+     * Inserts a key with the value 0 into the tree, unless it is already present.
+     *
+     * @param key the key to be inserted.
+     * @return true if the insertion was successful, false if the key was already present.
+     */
+    @Override
+    public boolean insert(Integer key) {
+        return insert(key.intValue());
+    }
+
+    /**
+     * Deletes a key (and its value) from the tree.
+     *
+     * @param key the key to be deleted.
+     * @return true if the key is found and successfully deleted, otherwise false.
+     */
+    @Override
+    public boolean delete(Integer key) {
+        return delete(key.intValue());
+    }
+
+    /**
+     * Returns an iterator over the keys in ascending order. Its nextInt method returns the keys without boxing them.
+     *
+     * @return the iterator.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * Finds the node holding a key.
+     *
+     * @param key the key to search for.
+     * @return the node holding the key, or null if it is not in the tree.
+     */
+    private Entry findNode(int key) {
+        Entry current = root;
+        while (current != null) {
+            if (key < current.key) current = current.left;
+            else if (key > current.key) current = current.right;
+            else return current;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the node holding a key, inserting the key with the value 0 if it is not in the tree yet.
+     * Rebalancing moves nodes but never the entries in them, so the node returned still holds the key.
+     *
+     * @param key the key to search for.
+     * @return the node holding the key.
+     */
+    private Entry entry(int key) {
+        int depth = 0;
+        Entry current = root;
+        Entry parent = null;
+        while (current != null) {
+            if (key == current.key) {
+                clearPath(depth);
+                return current;
+            }
+            visit(depth++, current);
+            parent = current;
+            current = (key < current.key) ? current.left : current.right;
+        }
+        Entry node = new Entry(key, 0);
+        attach(depth, node, parent != null && key < parent.key);
+        return node;
+    }
+
+    /**
+     * Represents an iterator over the keys of the tree in ascending order.
+     */
+    private class KeyIterator extends InOrderIterator implements PrimitiveIterator.OfInt {
+        @Override
+        public int nextInt() {
+            return nextNode().key;
+        }
+    }
+
+    /**
+     * Represents a node holding an int key and its long value.
+     */
+    static final class Entry extends PrimitiveAVLTree.Node<Entry> {
+        int key;
+        long value;
+
+        /**
+         * Constructs a leaf node.
+         *
+         * @param key the key to be stored in the node.
+         * @param value the value to be stored in the node.
+         */
+        Entry(int key, long value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        void copyEntry(Entry other) {
+            key = other.key;
+            value = other.value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(key);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Represents an AVL tree keyed by primitive long values, such as packed (priority << 32 | id) process keys.
+ * Keys are stored and compared as raw longs, so no wrapper objects are created and no compareTo calls are made. Each key
+ * may optionally carry a value; trees used as plain sets simply store null values. The balancing is shared with the
+ * other primitive-keyed trees through PrimitiveAVLTree.
+ * <p>
+ * As a Tree the keys are seen as Longs; those methods box their arguments, so code that knows the key type should
+ * call the long methods instead.
+ *
+ * @param <V> The type of value associated with each key.
+ */
+public class LongAVLTree<V> extends PrimitiveAVLTree<LongAVLTree.Entry<V>> implements Tree<Long> {
+    /**
+     * Default constructor.
+     */
+    public LongAVLTree() {}
+
+    /**
+     * Checks if a key exists in the tree.
+     *
+     * @param key the key to search for.
+     * @return true if the key is found in the tree, otherwise false.
+     */
+    public boolean contains(long key) {
+        return findNode(key) != null;
+    }
+
+    /**
+     * Gets the value associated with a key.
+     *
+     * @param key the key to search for.
+     * @return the value associated with the key, or null if the key is not in the tree (or has no value).
+     */
+    public V get(long key) {
+        Entry<V> node = findNode(key);
+        return (node == null) ? null : node.value;
+    }
+
+    /**
+     * Inserts a key with no value into the tree. A key already in the tree keeps its value.
+     *
+     * @param key the key to be inserted.
+     * @return true if the insertion was successful, false if the key was already present.
+     */
+    public boolean insert(long key) {
+        int oldSize = size;
+        entry(key);
+        return size != oldSize;
+    }
+
+    /**
+     * Associates a value with a key, inserting the key if it is not in the tree yet.
+     *
+     * @param key the key to be inserted.
+     * @param value the value to associate with the key.
+     * @return the previous value associated with the key, or null if there was none.
+     */
+    public V put(long key, V value) {
+        Entry<V> node = entry(key);
+        V oldValue = node.value;
+        node.value = value;
+        return oldValue;
+    }
+
+    /**
+     * Deletes a key (and its value) from the tree.
+     *
+     * @param key the key to be deleted.
+     * @return true if the key is found and successfully deleted, otherwise false.
+     */
+    public boolean delete(long key) {
+        int depth = 0;
+        Entry<V> current = root;
+        while (current != null && key != current.key) {
+            visit(depth++, current);
+            current = (key < current.key) ? current.left : current.right;
+        }
+        if (current == null) {
+            clearPath(depth);
+            return false;
+        }
+        detach(depth, current);
+        return true;
+    }
+
+    /**
+     * Gets the smallest key in the tree.
+     *
+     * @return the smallest key.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    public long firstKey() {
+        return firstNode().key;
+    }
+
+    /**
+     * Gets the largest key in the tree.
+     *
+     * @return the largest key.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    public long lastKey() {
+        return lastNode().key;
+    }
+
+    /**
+     * Performs an action on every key in the tree in ascending order.
+     *
+     * @param action the action to perform.
+     */
+    public void forEachKey(LongConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    /**
+     * Checks if a key exists in the tree.
+     *
+     * @param key the key to search for.
+     * @return true if the key is found in the tree, otherwise false.
+     */
+    @Override
+    public boolean search(Long key) {
+        return contains(key.longValue());
+    }
+
+    /**
+     * Inserts a key with no value into the tree. A key already in the tree keeps its value.
+     *
+     * @param key the key to be inserted.
+     * @return true if the insertion was successful, false if the key was already present.
+     */
+    @Override
+    public boolean insert(Long key) {
+        return insert(key.longValue());
+    }
+
+    /**
+     * Deletes a key (and its value) from the tree.
+     *
+     * @param key the key to be deleted.
+     * @return true if the key is found and successfully deleted, otherwise false.
+     */
+    @Override
+    public boolean delete(Long key) {
+        return delete(key.longValue());
+    }
+
+    /**
+     * Returns an iterator over the keys in ascending order. Its nextLong method returns the keys without boxing them.
+     *
+     * @return the iterator.
+     */
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * Finds the node holding a key.
+     *
+     * @param key the key to search for.
+     * @return the node holding the key, or null if it is not in the tree.
+     */
+    private Entry<V> findNode(long key) {
+        Entry<V> current = root;
+        while (current != null) {
+            if (key < current.key) current = current.left;
+            else if (key > current.key) current = current.right;
+            else return current;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the node holding a key, inserting the key with a null value if it is not in the tree yet.
+     * Rebalancing moves nodes but never the entries in them, so the node returned still holds the key.
+     *
+     * @param key the key to search for.
+     * @return the node holding the key.
+     */
+    private Entry<V> entry(long key) {
+        int depth = 0;
+        Entry<V> current = root;
+        Entry<V> parent = null;
+        while (current != null) {
+            if (key == current.key) {
+                clearPath(depth);
+                return current;
+            }
+            visit(depth++, current);
+            parent = current;
+            current = (key < current.key) ? current.left : current.right;
+        }
+        Entry<V> node = new Entry<>(key, null);
+        attach(depth, node, parent != null && key < parent.key);
+        return node;
+    }
+
+    /**
+     * Represents an iterator over the keys of the tree in ascending order.
+     */
+    private class KeyIterator extends InOrderIterator implements PrimitiveIterator.OfLong {
+        @Override
+        public long nextLong() {
+            return nextNode().key;
+        }
+    }
+
+    /**
+     * Represents a node holding a long key and its optional value.
+     *
+     * @param <V> The type of value stored in the node.
+     */
+    static final class Entry<V> extends PrimitiveAVLTree.Node<Entry<V>> {
+        long key;
+        V value;
+
+        /**
+         * Constructs a leaf node.
+         *
+         * @param key the key to be stored in the node.
+         * @param value the value to be stored in the node.
+         */
+        Entry(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        void copyEntry(Entry<V> other) {
+            key = other.key;
+            value = other.value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(key);
+        }
+    }
+}
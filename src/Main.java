@@ -1,23 +1,27 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
  * Main driver class for assignment 5.
  */
 public class Main {
+    private static final long AGING_THRESHOLD = 100_000_000L; // 100 ms
+    private static final int AGING_BOOST = 1;
     private static String fileName = "processList.txt";
+    private static Path journalDirectory;
     private static final AVLTree<ProcessInfo> tree = new AVLTree<>();
 
     /**
      * The entry point for the application.
      *
-     * @param args may optionally include a fileName to be processed.
+     * @param args may optionally include a fileName to be processed, followed by a directory to journal the scheduler
+     *             in.
      */
     public static void main(String[] args) {
         printIntro();
-        initializeFileName(args);
+        initializeArgs(args);
         loadFile();
         System.out.println();
         tree.inorder();
@@ -36,31 +40,29 @@ public class Main {
     }
 
     /**
-     * Loads the file and inserts the parsed string into the tree.
+     * Loads the file and inserts the parsed processes into the tree.
      */
     private static void loadFile() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                ProcessInfo processInfo = new ProcessInfo(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
-                tree.insert(processInfo);
-                System.out.printf("Adding process %s\n", processInfo);
-            }
+        ProcessListLoader loader = new ProcessListLoader(true, processInfo -> System.out.printf("Adding process %s\n", processInfo));
+        try {
+            loader.load(Path.of(fileName), tree);
         } catch (IOException e) {
             System.out.println("Error loading data from file: " + fileName + "\n" + e.getMessage());
         }
     }
 
     /**
-     * Grabs the optionally specified file name from args if it exists.
+     * Grabs the optionally specified file name and journal directory from args if they exist.
      *
-     * @param args optionally contains a filename to be processed.
+     * @param args optionally contains a filename to be processed, followed by a journal directory.
      */
-    private static void initializeFileName(String[] args) {
+    private static void initializeArgs(String[] args) {
         if (args.length > 0) {
             fileName = args[0];
         }
+        if (args.length > 1) {
+            journalDirectory = Path.of(args[1]);
+        }
     }
 
     /**
@@ -86,20 +88,57 @@ public class Main {
     }
 
     /**
-     * Executes the processes in the tree by priority and prints results.
+     * Executes the processes in the tree by priority, aging processes that wait too long, and prints results.
+     * Processes may share an id; only a process with the same id and priority as a scheduled one is skipped.
+     * <p>
+     * With a journal directory, the scheduler is journaled there. If the journal holds processes that had not completed
+     * when an earlier run stopped, those are resumed instead of the processes in the tree.
      */
     private static void executeProcesses() {
-        List<ProcessInfo> completedProcessInfos = new ArrayList<>();
-        while (tree.size > 0) {
-            for (ProcessInfo current : tree) {
-                if (current.executeProcess(10 - current.getProcessPriority())) {
-                    tree.delete(current);
-                    completedProcessInfos.add(current);
-                    System.out.println("Process completed: " + current.getProcessName() + " (ID: " + current.getProcessId() + ")");
+        if (journalDirectory == null) {
+            ProcessRegistry registry = new ProcessRegistry();
+            for (ProcessInfo processInfo : tree) {
+                if (!registry.add(processInfo)) printDuplicate(processInfo);
+            }
+            runScheduler(new PriorityScheduler(registry, PriorityScheduler.DEFAULT_POLICY));
+            return;
+        }
+        try (ProcessJournal journal = ProcessJournal.open(journalDirectory, ProcessJournal.Durability.GROUP)) {
+            if (journal.registry().isEmpty()) {
+                for (ProcessInfo processInfo : tree) {
+                    if (!journal.insert(processInfo)) printDuplicate(processInfo);
                 }
+            } else {
+                System.out.println("Resuming " + journal.registry().getSize() + " processes from journal: "
+                        + journalDirectory);
             }
+            runScheduler(new PriorityScheduler(journal, PriorityScheduler.DEFAULT_POLICY));
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Error using journal: " + journalDirectory + "\n" + e.getMessage());
         }
+    }
+
+    /**
+     * Prints that a process is skipped because a process with its id and priority is already scheduled.
+     *
+     * @param processInfo the skipped process.
+     */
+    private static void printDuplicate(ProcessInfo processInfo) {
+        System.out.println("Skipping process with duplicate id and priority: " + processInfo);
+    }
+
+    /**
+     * Runs a scheduler until every process has completed, aging processes that wait too long, and prints results.
+     *
+     * @param scheduler the scheduler to run.
+     */
+    private static void runScheduler(PriorityScheduler scheduler) {
+        scheduler.setAging(AGING_THRESHOLD, AGING_BOOST);
+        List<PriorityScheduler.Completion> completions = scheduler.run(completion -> {
+            ProcessInfo current = completion.getProcessInfo();
+            System.out.println("Process completed: " + current.getProcessName() + " (ID: " + current.getProcessId() + ")");
+        });
         System.out.println("Results >");
-        completedProcessInfos.forEach(e -> System.out.println(e.displayCompletedInfo()));
+        completions.forEach(e -> System.out.println(e.getProcessInfo().displayCompletedInfo()));
     }
 }
@@ -0,0 +1,329 @@
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents an AVL tree of long keys and long values whose nodes live outside the Java heap.
+ * Nodes are fixed-width records in native memory chunks that are allocated as the tree grows, so the node graph adds no
+ * objects for the garbage collector to trace no matter how many entries the tree holds. A node is referred to by its
+ * index; index 0 is a sentinel standing in for null, with a height of -1, and slots of deleted nodes are reused through
+ * a free list linked through the left field. Relinking and rebalancing are shared with ArrayAVLTree through
+ * IndexedAVLTree.
+ * <p>
+ * The chunks are allocated from a confined java.lang.foreign Arena, which is a preview API on Java 21: the tree must be
+ * compiled and run with --enable-preview. The chunks are not limited by -XX:MaxDirectMemorySize, only by the memory
+ * available to the process. A confined arena can only be used by the thread that created it, so the tree must be
+ * created, used and closed by one thread; using it from another thread throws a WrongThreadException.
+ * <p>
+ * The tree must be closed when it is no longer needed. Closing frees all of the tree's native memory immediately, and
+ * any later use of the tree fails with an IllegalStateException.
+ */
+@SuppressWarnings("preview")
+public class OffHeapLongAVLTree extends IndexedAVLTree implements AutoCloseable {
+    private static final int KEY_OFFSET = 0;
+    private static final int VALUE_OFFSET = 8;
+    private static final int LEFT_OFFSET = 16;
+    private static final int RIGHT_OFFSET = 20;
+    private static final int HEIGHT_OFFSET = 24;
+    private static final int NODE_SIZE = 32;
+
+    private static final int CHUNK_SHIFT = 15;
+    private static final int NODES_PER_CHUNK = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = NODES_PER_CHUNK - 1;
+
+    private final Arena arena = Arena.ofConfined();
+    private MemorySegment[] chunks = new MemorySegment[1];
+    private int chunkCount = 0;
+    private int nextUnused = 1;
+    private int freeList = NIL;
+    private boolean closed = false;
+
+    /**
+     * Default constructor.
+     */
+    public OffHeapLongAVLTree() {
+        addChunk();
+        chunks[0].set(ValueLayout.JAVA_INT, offset(NIL, HEIGHT_OFFSET), -1);
+    }
+
+    /**
+     * Checks if a key exists in the tree.
+     *
+     * @param key the key to search for.
+     * @return true if the key is found in the tree, otherwise false.
+     */
+    public boolean contains(long key) {
+        return findNode(key) != NIL;
+    }
+
+    /**
+     * Gets the value associated with a key.
+     *
+     * @param key the key to search for.
+     * @param defaultValue the value to return if the key is not in the tree.
+     * @return the value associated with the key, or defaultValue if the key is not in the tree.
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        int node = findNode(key);
+        return (node == NIL) ? defaultValue : value(node);
+    }
+
+    /**
+     * Associates a value with a key, inserting the key if it is not in the tree yet.
+     *
+     * @param key the key to be inserted.
+     * @param value the value to associate with the key.
+     * @return true if the key was inserted, false if it was already present and only its value was replaced.
+     */
+    public boolean put(long key, long value) {
+        checkOpen();
+        int depth = 0;
+        int current = root;
+        while (current != NIL) {
+            long currentKey = key(current);
+            if (key == currentKey) {
+                setValue(current, value);
+                return false;
+            }
+            path[depth++] = current;
+            current = (key < currentKey) ? left(current) : right(current);
+        }
+        attach(depth, allocate(key, value), depth > 0 && key < key(path[depth - 1]));
+        return true;
+    }
+
+    /**
+     * Deletes a key (and its value) from the tree.
+     *
+     * @param key the key to be deleted.
+     * @return true if the key is found and successfully deleted, otherwise false.
+     */
+    public boolean delete(long key) {
+        checkOpen();
+        int depth = 0;
+        int current = root;
+        while (current != NIL && key != key(current)) {
+            path[depth++] = current;
+            current = (key < key(current)) ? left(current) : right(current);
+        }
+        if (current == NIL) return false;
+        int removed = detach(depth, current);
+        setLeft(removed, freeList);
+        freeList = removed;
+        return true;
+    }
+
+    /**
+     * Gets the smallest key in the tree.
+     *
+     * @return the smallest key.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    public long firstKey() {
+        checkOpen();
+        if (root == NIL) throw new NoSuchElementException();
+        int current = root;
+        while (left(current) != NIL) current = left(current);
+        return key(current);
+    }
+
+    /**
+     * Gets the largest key in the tree.
+     *
+     * @return the largest key.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    public long lastKey() {
+        checkOpen();
+        if (root == NIL) throw new NoSuchElementException();
+        int current = root;
+        while (right(current) != NIL) current = right(current);
+        return key(current);
+    }
+
+    /**
+     * Performs an action on every entry in the tree in ascending key order.
+     *
+     * @param action the action to perform.
+     */
+    public void forEach(EntryConsumer action) {
+        checkOpen();
+        int[] stack = new int[MAX_PATH_LENGTH];
+        int top = 0;
+        int current = root;
+        while (current != NIL || top > 0) {
+            while (current != NIL) {
+                stack[top++] = current;
+                current = left(current);
+            }
+            current = stack[--top];
+            action.accept(key(current), value(current));
+            current = right(current);
+        }
+    }
+
+    /**
+     * Gets the amount of off-heap memory currently reserved for nodes.
+     *
+     * @return the number of bytes reserved.
+     */
+    public long reservedBytes() {
+        return (long) chunkCount * NODES_PER_CHUNK * NODE_SIZE;
+    }
+
+    /**
+     * Frees the tree's native memory. The tree can not be used afterwards.
+     *
+     * @throws WrongThreadException if called from a thread other than the one that created the tree.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        arena.close();
+        closed = true;
+        Arrays.fill(chunks, null);
+        chunkCount = 0;
+        root = NIL;
+        size = 0;
+    }
+
+    /**
+     * Checks that the tree has not been closed.
+     *
+     * @throws IllegalStateException if the tree has been closed.
+     */
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("Tree has been closed");
+    }
+
+    /**
+     * Finds the node holding a key.
+     *
+     * @param key the key to search for.
+     * @return the index of the node holding the key, or NIL if it is not in the tree.
+     */
+    private int findNode(long key) {
+        checkOpen();
+        int current = root;
+        while (current != NIL) {
+            long currentKey = key(current);
+            if (key < currentKey) current = left(current);
+            else if (key > currentKey) current = right(current);
+            else return current;
+        }
+        return NIL;
+    }
+
+    /**
+     * Allocates a leaf node, reusing a freed slot if there is one and adding a chunk otherwise.
+     *
+     * @param key the key to be stored in the node.
+     * @param value the value to be stored in the node.
+     * @return the index of the new node.
+     */
+    private int allocate(long key, long value) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = left(node);
+        } else {
+            if (nextUnused == Integer.MAX_VALUE) throw new IllegalStateException("Tree is full");
+            if ((nextUnused >>> CHUNK_SHIFT) == chunkCount) addChunk();
+            node = nextUnused++;
+        }
+        setKey(node, key);
+        setValue(node, value);
+        setLeft(node, NIL);
+        setRight(node, NIL);
+        setHeight(node, 0);
+        return node;
+    }
+
+    /**
+     * Reserves another chunk of native memory for nodes.
+     *
+     * @throws OutOfMemoryError if the memory can not be allocated.
+     */
+    private void addChunk() {
+        if (chunkCount == chunks.length) chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        chunks[chunkCount++] = arena.allocate((long) NODES_PER_CHUNK * NODE_SIZE, Long.BYTES);
+    }
+
+    // Accessors for the fields of a node record
+
+    private MemorySegment chunk(int node) {
+        return chunks[node >>> CHUNK_SHIFT];
+    }
+
+    private static long offset(int node, int field) {
+        return (long) (node & CHUNK_MASK) * NODE_SIZE + field;
+    }
+
+    private long key(int node) {
+        return chunk(node).get(ValueLayout.JAVA_LONG, offset(node, KEY_OFFSET));
+    }
+
+    private void setKey(int node, long key) {
+        chunk(node).set(ValueLayout.JAVA_LONG, offset(node, KEY_OFFSET), key);
+    }
+
+    private long value(int node) {
+        return chunk(node).get(ValueLayout.JAVA_LONG, offset(node, VALUE_OFFSET));
+    }
+
+    private void setValue(int node, long value) {
+        chunk(node).set(ValueLayout.JAVA_LONG, offset(node, VALUE_OFFSET), value);
+    }
+
+    @Override
+    protected int left(int node) {
+        return chunk(node).get(ValueLayout.JAVA_INT, offset(node, LEFT_OFFSET));
+    }
+
+    @Override
+    protected void setLeft(int node, int left) {
+        chunk(node).set(ValueLayout.JAVA_INT, offset(node, LEFT_OFFSET), left);
+    }
+
+    @Override
+    protected int right(int node) {
+        return chunk(node).get(ValueLayout.JAVA_INT, offset(node, RIGHT_OFFSET));
+    }
+
+    @Override
+    protected void setRight(int node, int right) {
+        chunk(node).set(ValueLayout.JAVA_INT, offset(node, RIGHT_OFFSET), right);
+    }
+
+    @Override
+    protected int height(int node) {
+        return chunk(node).get(ValueLayout.JAVA_INT, offset(node, HEIGHT_OFFSET));
+    }
+
+    @Override
+    protected void setHeight(int node, int height) {
+        chunk(node).set(ValueLayout.JAVA_INT, offset(node, HEIGHT_OFFSET), height);
+    }
+
+    @Override
+    protected void copyEntry(int to, int from) {
+        setKey(to, key(from));
+        setValue(to, value(from));
+    }
+
+    /**
+     * Represents an action performed on a key and its value.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Performs the action.
+         *
+         * @param key the key of the entry.
+         * @param value the value of the entry.
+         */
+        void accept(long key, long value);
+    }
+}
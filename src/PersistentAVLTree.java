@@ -0,0 +1,376 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents a persistent AVL tree. Nodes are never modified once created: insertions, deletions and rotations copy
+ * the nodes on the path from the root to the change and share every other node with the previous version of the tree.
+ * Taking a snapshot only copies the root reference, and a snapshot is not affected by later changes to the tree it
+ * was taken from, so readers can iterate an old version while a writer keeps modifying the tree.
+ * <p>
+ * The root is volatile and each change publishes a fully built version with a single write, so a snapshot taken or a
+ * search made on another thread sees a complete version. Writers must still be serialized by the caller.
+ *
+ * @param <E> The type of element to be stored in nodes in the tree. (Must implement comparable).
+ */
+public class PersistentAVLTree<E extends Comparable<E>> implements Tree<E> {
+    private volatile Node<E> root;
+
+    /**
+     * Default constructor.
+     */
+    public PersistentAVLTree() {}
+
+    /**
+     * Constructs a tree over an existing version of the nodes.
+     *
+     * @param root the root of the version, may be null.
+     */
+    private PersistentAVLTree(Node<E> root) {
+        this.root = root;
+    }
+
+    /**
+     * Takes a snapshot of the current version of the tree in constant time.
+     *
+     * @return an independent tree holding the current elements, sharing all of its nodes with this tree.
+     */
+    public PersistentAVLTree<E> snapshot() {
+        return new PersistentAVLTree<>(root);
+    }
+
+    /**
+     * Traverses the tree to search for if an item exists in the tree.
+     *
+     * @param e the item to search for.
+     * @return true if the item is found in the tree, otherwise false.
+     */
+    @Override
+    public boolean search(E e) {
+        return search(root, e);
+    }
+
+    /**
+     * Inserts an element into the tree, copying the nodes on its path.
+     *
+     * @param e the element to be inserted.
+     * @return true if the insertion was successful, false if the element was already present.
+     */
+    @Override
+    public boolean insert(E e) {
+        Node<E> current = root;
+        Node<E> updated = insert(current, e);
+        if (updated == current) return false;
+        root = updated;
+        return true;
+    }
+
+    /**
+     * Deletes an element from the tree, copying the nodes on its path.
+     *
+     * @param e the element to be deleted.
+     * @return true if the element is found and successfully deleted, otherwise false.
+     */
+    @Override
+    public boolean delete(E e) {
+        Node<E> current = root;
+        Node<E> updated = delete(current, e);
+        if (updated == current) return false;
+        root = updated;
+        return true;
+    }
+
+    /**
+     * Prints the tree in order.
+     */
+    @Override
+    public void inorder() {
+        inorder(root);
+    }
+
+    /**
+     * Helper method to print the tree inorder recursively.
+     *
+     * @param root the current node being processed.
+     */
+    private void inorder(Node<E> root) {
+        if (root == null) return;
+        inorder(root.left);
+        System.out.println(root.element + " ");
+        inorder(root.right);
+    }
+
+    /**
+     * Prints the tree in preorder.
+     */
+    @Override
+    public void preorder() {
+        preorder(root);
+    }
+
+    /**
+     * Helper method to print the tree in preorder recursively.
+     *
+     * @param root the current node being processed.
+     */
+    private void preorder(Node<E> root) {
+        if (root == null) return;
+        System.out.print(root.element + " ");
+        preorder(root.left);
+        preorder(root.right);
+    }
+
+    /**
+     * Prints the tree in postorder.
+     */
+    @Override
+    public void postorder() {
+        postorder(root);
+    }
+
+    /**
+     * Helper method to print the tree in postorder recursively.
+     *
+     * @param root the current node being processed.
+     */
+    private void postorder(Node<E> root) {
+        if (root == null) return;
+        postorder(root.left);
+        postorder(root.right);
+        System.out.print(root.element + " ");
+    }
+
+    /**
+     * Gets the current size of the tree.
+     *
+     * @return the number of nodes in the tree.
+     */
+    @Override
+    public int getSize() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the tree has no nodes, otherwise false.
+     */
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns an in order iterator over the current version of the tree.
+     * Changes made to the tree after the iterator is created are not visible to it, and it does not support removal.
+     *
+     * @return the in order iterator.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new InOrderIterator<>(root);
+    }
+
+    /**
+     * Searches a subtree for an element.
+     *
+     * @param node the root of the subtree, may be null.
+     * @param e the element to search for.
+     * @return true if the element is found in the subtree, otherwise false.
+     */
+    private static <E extends Comparable<E>> boolean search(Node<E> node, E e) {
+        while (node != null) {
+            int cmp = e.compareTo(node.element);
+            if (cmp < 0) node = node.left;
+            else if (cmp > 0) node = node.right;
+            else return true;
+        }
+        return false;
+    }
+
+    /**
+     * Inserts an element into a subtree without modifying it.
+     *
+     * @param node the root of the subtree, may be null.
+     * @param e the element to be inserted.
+     * @return the root of the new subtree, or node itself if the element is already present.
+     */
+    private static <E extends Comparable<E>> Node<E> insert(Node<E> node, E e) {
+        if (node == null) return new Node<>(e, null, null);
+        int cmp = e.compareTo(node.element);
+        if (cmp < 0) {
+            Node<E> left = insert(node.left, e);
+            return (left == node.left) ? node : balance(node.element, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<E> right = insert(node.right, e);
+            return (right == node.right) ? node : balance(node.element, node.left, right);
+        }
+        return node;
+    }
+
+    /**
+     * Deletes an element from a subtree without modifying it.
+     * A node with two children is replaced by the rightmost node of its left subtree.
+     *
+     * @param node the root of the subtree, may be null.
+     * @param e the element to be deleted.
+     * @return the root of the new subtree, or node itself if the element is not present.
+     */
+    private static <E extends Comparable<E>> Node<E> delete(Node<E> node, E e) {
+        if (node == null) return null;
+        int cmp = e.compareTo(node.element);
+        if (cmp < 0) {
+            Node<E> left = delete(node.left, e);
+            return (left == node.left) ? node : balance(node.element, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<E> right = delete(node.right, e);
+            return (right == node.right) ? node : balance(node.element, node.left, right);
+        }
+        if (node.left == null) return node.right;
+        if (node.right == null) return node.left;
+        Node<E> rightMost = node.left;
+        while (rightMost.right != null) rightMost = rightMost.right;
+        return balance(rightMost.element, deleteMax(node.left), node.right);
+    }
+
+    /**
+     * Deletes the largest element from a non-empty subtree without modifying it.
+     *
+     * @param node the root of the subtree.
+     * @return the root of the new subtree.
+     */
+    private static <E> Node<E> deleteMax(Node<E> node) {
+        if (node.right == null) return node.left;
+        return balance(node.element, node.left, deleteMax(node.right));
+    }
+
+    /**
+     * Creates a node from an element and two subtrees whose heights differ by at most 2, performing a LL, LR, RR or RL
+     * rotation on the new nodes if they would be out of balance.
+     *
+     * @param e the element of the new node.
+     * @param left the left subtree.
+     * @param right the right subtree.
+     * @return the root of the balanced subtree.
+     */
+    private static <E> Node<E> balance(E e, Node<E> left, Node<E> right) {
+        int leftHeight = heightOf(left);
+        int rightHeight = heightOf(right);
+        if (leftHeight > rightHeight + 1) {
+            if (heightOf(left.left) >= heightOf(left.right))
+                return new Node<>(left.element, left.left, new Node<>(e, left.right, right));
+            Node<E> C = left.right;
+            return new Node<>(C.element, new Node<>(left.element, left.left, C.left), new Node<>(e, C.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (heightOf(right.right) >= heightOf(right.left))
+                return new Node<>(right.element, new Node<>(e, left, right.left), right.right);
+            Node<E> C = right.left;
+            return new Node<>(C.element, new Node<>(e, left, C.left), new Node<>(right.element, C.right, right.right));
+        }
+        return new Node<>(e, left, right);
+    }
+
+    /**
+     * Gets the height of a subtree.
+     *
+     * @param node the root of the subtree, may be null.
+     * @return the height of the subtree, or -1 if it is empty.
+     */
+    private static int heightOf(Node<?> node) {
+        return (node == null) ? -1 : node.height;
+    }
+
+    /**
+     * Gets the number of nodes in a subtree.
+     *
+     * @param node the root of the subtree, may be null.
+     * @return the number of nodes in the subtree.
+     */
+    private static int sizeOf(Node<?> node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    /**
+     * Represents an immutable node of the tree, along with the height and size of its subtree.
+     *
+     * @param <E> The type of element stored in the node.
+     */
+    private static final class Node<E> {
+        final E element;
+        final Node<E> left;
+        final Node<E> right;
+        final int height;
+        final int size;
+
+        /**
+         * Constructs a node, deriving its height and size from its children.
+         *
+         * @param element the element to be stored in the node.
+         * @param left the left child, may be null.
+         * @param right the right child, may be null.
+         */
+        Node(E element, Node<E> left, Node<E> right) {
+            this.element = element;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(heightOf(left), heightOf(right)) + 1;
+            this.size = sizeOf(left) + sizeOf(right) + 1;
+        }
+    }
+
+    /**
+     * Represents an in order iterator over one version of the tree.
+     *
+     * @param <E> The type of element stored in the tree.
+     */
+    private static class InOrderIterator<E> implements Iterator<E> {
+        private final ArrayDeque<Node<E>> stack = new ArrayDeque<>();
+
+        /**
+         * Constructs the iterator.
+         *
+         * @param root the root of the version of the tree to iterate over.
+         */
+        InOrderIterator(Node<E> root) {
+            pushLeft(root);
+        }
+
+        /**
+         * Pushes a node and the left spine below it onto the stack.
+         *
+         * @param node the top of the spine, may be null.
+         */
+        private void pushLeft(Node<E> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        /**
+         * Checks if the iterator has another element.
+         *
+         * @return true if there is another element in the iteration, otherwise false.
+         */
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        /**
+         * Gets the next element in the iteration.
+         *
+         * @return the next element in the iteration.
+         */
+        @Override
+        public E next() {
+            Node<E> node = stack.poll();
+            if (node == null) throw new NoSuchElementException();
+            pushLeft(node.right);
+            return node.element;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents the structure shared by the AVL trees keyed by primitive values (IntAVLTree, LongAVLTree and
+ * IntLongAVLTree): the root, the path stack, insertion and deletion relinking, rebalancing and in-order traversal.
+ * <p>
+ * Each subclass declares its own node type holding a primitive key (and value), and implements the searches that
+ * compare those keys, so keys are compared as raw primitives without boxing or compareTo calls. A search that ends in
+ * an insertion or deletion leaves the nodes it visited on the path stack, from which this class relinks and rebalances
+ * the tree.
+ *
+ * @param <N> The type of node stored in the tree.
+ */
+public abstract class PrimitiveAVLTree<N extends PrimitiveAVLTree.Node<N>> {
+    /**
+     * Upper bound on the height of any AVL tree holding at most Integer.MAX_VALUE nodes.
+     */
+    private static final int MAX_PATH_LENGTH = 64;
+
+    protected N root;
+    protected int size = 0;
+    protected int modCount = 0;
+
+    /**
+     * Reusable stack of the nodes visited by the current insert/delete, from the root down. It holds nodes of type N,
+     * but is typed by the node base class since an array of the type parameter can not be created.
+     */
+    private final Node<?>[] path = new Node<?>[MAX_PATH_LENGTH];
+
+    /**
+     * Default constructor.
+     */
+    protected PrimitiveAVLTree() {}
+
+    /**
+     * Gets the current size of the tree.
+     *
+     * @return the number of keys in the tree.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the size of the tree is 0, otherwise false.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Prints the keys of the tree in order.
+     */
+    public void inorder() {
+        inorder(root);
+    }
+
+    /**
+     * Helper method to print the keys of a subtree in order recursively.
+     *
+     * @param root the current node being processed.
+     */
+    private void inorder(N root) {
+        if (root == null) return;
+        inorder(root.left);
+        System.out.println(root + " ");
+        inorder(root.right);
+    }
+
+    /**
+     * Prints the keys of the tree in preorder.
+     */
+    public void preorder() {
+        preorder(root);
+    }
+
+    /**
+     * Helper method to print the keys of a subtree in preorder recursively.
+     *
+     * @param root the current node being processed.
+     */
+    private void preorder(N root) {
+        if (root == null) return;
+        System.out.print(root + " ");
+        preorder(root.left);
+        preorder(root.right);
+    }
+
+    /**
+     * Prints the keys of the tree in postorder.
+     */
+    public void postorder() {
+        postorder(root);
+    }
+
+    /**
+     * Helper method to print the keys of a subtree in postorder recursively.
+     *
+     * @param root the current node being processed.
+     */
+    private void postorder(N root) {
+        if (root == null) return;
+        postorder(root.left);
+        postorder(root.right);
+        System.out.print(root + " ");
+    }
+
+    /**
+     * Gets the node holding the smallest key.
+     *
+     * @return the first node.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    protected N firstNode() {
+        if (root == null) throw new NoSuchElementException();
+        N current = root;
+        while (current.left != null) current = current.left;
+        return current;
+    }
+
+    /**
+     * Gets the node holding the largest key.
+     *
+     * @return the last node.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    protected N lastNode() {
+        if (root == null) throw new NoSuchElementException();
+        N current = root;
+        while (current.right != null) current = current.right;
+        return current;
+    }
+
+    /**
+     * Links a new node into the tree below the last node on the path stack, or as the root if the stack is empty, and
+     * rebalances the tree.
+     *
+     * @param depth the number of nodes on the path stack.
+     * @param node the new node.
+     * @param left whether the node becomes the left child of its parent rather than the right one.
+     */
+    protected void attach(int depth, N node, boolean left) {
+        if (depth == 0) root = node;
+        else if (left) pathAt(depth - 1).left = node;
+        else pathAt(depth - 1).right = node;
+        size++;
+        modCount++;
+        balancePath(depth);
+    }
+
+    /**
+     * Removes a node from the tree and rebalances it. A node with a left child takes over the entry of the largest node
+     * in its left subtree, which is unlinked instead.
+     *
+     * @param depth the number of nodes on the path stack, which holds the ancestors of the node.
+     * @param node the node to remove.
+     */
+    protected void detach(int depth, N node) {
+        if (node.left == null) {
+            replaceChild((depth == 0) ? null : pathAt(depth - 1), node, node.right);
+        } else {
+            path[depth++] = node;
+            N rightMost = node.left;
+            while (rightMost.right != null) {
+                path[depth++] = rightMost;
+                rightMost = rightMost.right;
+            }
+            N parentOfRightMost = pathAt(depth - 1);
+            node.copyEntry(rightMost);
+            if (parentOfRightMost.right == rightMost) parentOfRightMost.right = rightMost.left;
+            else parentOfRightMost.left = rightMost.left;
+        }
+        size--;
+        modCount++;
+        balancePath(depth);
+    }
+
+    /**
+     * Records a node visited on the way down on the path stack.
+     *
+     * @param depth the level of the node, the number of nodes already on the path stack.
+     * @param node the node visited.
+     */
+    protected void visit(int depth, N node) {
+        path[depth] = node;
+    }
+
+    /**
+     * Gets a node from the path stack.
+     *
+     * @param depth the level of the node.
+     * @return the node at that level.
+     */
+    @SuppressWarnings("unchecked")
+    private N pathAt(int depth) {
+        return (N) path[depth];
+    }
+
+    /**
+     * Clears the path stack so that it does not keep removed nodes reachable.
+     *
+     * @param depth the number of nodes on the path stack.
+     */
+    protected void clearPath(int depth) {
+        Arrays.fill(path, 0, depth, null);
+    }
+
+    /**
+     * Balances the tree along the recorded path, starting at the deepest node and moving towards the root.
+     * Stops as soon as a subtree ends up with the same height it had before the modification.
+     *
+     * @param depth the number of nodes on the path stack.
+     */
+    private void balancePath(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            N A = pathAt(i);
+            int oldHeight = A.height;
+            updateHeight(A);
+            N parentOfA = (i == 0) ? null : pathAt(i - 1);
+            N subtreeRoot = A;
+
+            int balance = balanceFactor(A);
+            if (balance == -2) {
+                if (balanceFactor(A.left) <= 0) subtreeRoot = rotateRight(A, parentOfA);
+                else {
+                    rotateLeft(A.left, A);
+                    subtreeRoot = rotateRight(A, parentOfA);
+                }
+            } else if (balance == 2) {
+                if (balanceFactor(A.right) >= 0) subtreeRoot = rotateLeft(A, parentOfA);
+                else {
+                    rotateRight(A.right, A);
+                    subtreeRoot = rotateLeft(A, parentOfA);
+                }
+            }
+            if (subtreeRoot.height == oldHeight) break;
+        }
+        clearPath(depth);
+    }
+
+    /**
+     * Rotates the subtree rooted at A to the right (the LL balance), relinking it into its parent.
+     *
+     * @param A the root of the subtree.
+     * @param parentOfA the parent of A, or null if A is the root.
+     * @return the new root of the subtree.
+     */
+    private N rotateRight(N A, N parentOfA) {
+        N B = A.left;
+        replaceChild(parentOfA, A, B);
+        A.left = B.right;
+        B.right = A;
+        updateHeight(A);
+        updateHeight(B);
+        return B;
+    }
+
+    /**
+     * Rotates the subtree rooted at A to the left (the RR balance), relinking it into its parent.
+     *
+     * @param A the root of the subtree.
+     * @param parentOfA the parent of A, or null if A is the root.
+     * @return the new root of the subtree.
+     */
+    private N rotateLeft(N A, N parentOfA) {
+        N B = A.right;
+        replaceChild(parentOfA, A, B);
+        A.right = B.left;
+        B.left = A;
+        updateHeight(A);
+        updateHeight(B);
+        return B;
+    }
+
+    /**
+     * Replaces a child of a node, or the root if the node is null.
+     *
+     * @param parent the parent node, or null to replace the root.
+     * @param oldChild the child being replaced.
+     * @param newChild the new child.
+     */
+    private void replaceChild(N parent, N oldChild, N newChild) {
+        if (parent == null) root = newChild;
+        else if (parent.left == oldChild) parent.left = newChild;
+        else parent.right = newChild;
+    }
+
+    /**
+     * Updates the height of a node from the heights of its children.
+     *
+     * @param node the node whose height is to be updated.
+     */
+    private static void updateHeight(Node<?> node) {
+        node.height = Math.max(heightOf(node.left), heightOf(node.right)) + 1;
+    }
+
+    /**
+     * Calculates the balance factor of a node.
+     *
+     * @param node the node at which to calculate the balance factor.
+     * @return the height of the right subtree minus the height of the left subtree.
+     */
+    private static int balanceFactor(Node<?> node) {
+        return heightOf(node.right) - heightOf(node.left);
+    }
+
+    /**
+     * Gets the height of a subtree.
+     *
+     * @param node the root of the subtree, may be null.
+     * @return the height of the subtree, or -1 if it is empty.
+     */
+    private static int heightOf(Node<?> node) {
+        return (node == null) ? -1 : node.height;
+    }
+
+    /**
+     * Represents an in order traversal of the nodes of the tree, on which the subclasses build their key iterators.
+     * It fails fast if the tree is modified during the traversal.
+     */
+    protected abstract class InOrderIterator {
+        @SuppressWarnings("unchecked")
+        private N[] stack = (N[]) new Node<?>[Math.max(1, heightOf(root) + 1)];
+        private int depth;
+        private final int expectedModCount = modCount;
+
+        /**
+         * Constructs the traversal, positioned before the smallest key.
+         */
+        protected InOrderIterator() {
+            pushLeft(root);
+        }
+
+        /**
+         * Checks if the traversal has another node.
+         *
+         * @return true if there is another node, otherwise false.
+         */
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        /**
+         * Gets the next node in the traversal.
+         *
+         * @return the next node.
+         * @throws NoSuchElementException if there are no more nodes.
+         * @throws ConcurrentModificationException if the tree was modified since the traversal started.
+         */
+        protected N nextNode() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (depth == 0) throw new NoSuchElementException();
+            N node = stack[--depth];
+            stack[depth] = null;
+            pushLeft(node.right);
+            return node;
+        }
+
+        /**
+         * Pushes a node and its chain of left children onto the stack.
+         *
+         * @param node the node to start from, may be null.
+         */
+        private void pushLeft(N node) {
+            for (; node != null; node = node.left) {
+                if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                stack[depth++] = node;
+            }
+        }
+    }
+
+    /**
+     * Represents a node of a primitive-keyed tree: its children and the height of its subtree. Subclasses add the key
+     * and value fields.
+     *
+     * @param <N> The type of the node itself.
+     */
+    protected abstract static class Node<N extends Node<N>> {
+        N left;
+        N right;
+        int height;
+
+        /**
+         * Copies the key and value of another node into this node, when this node takes over the other's entry.
+         *
+         * @param other the node whose entry is copied.
+         */
+        abstract void copyEntry(N other);
+    }
+}
@@ -0,0 +1,409 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Represents a round-robin scheduler that runs processes in priority order.
+ * <p>
+ * Each round gives every queued process one time slice, lowest priority value first. The processes are kept in a
+ * ProcessRegistry, which holds the processes waiting for the current round and those requeued for the next round, and
+ * indexes them by id and name so that they can be found and reprioritized while they wait. Picking the next process
+ * and re-queueing it are both O(log n), so running s slices costs O(s log n) instead of re-scanning the whole queue
+ * every round.
+ * <p>
+ * With aging enabled (see {@link #setAging(long, int)}), processes that have waited too long are given a better
+ * priority before each slice, so that a steady stream of urgent processes can not starve the others.
+ * <p>
+ * A scheduler constructed over a ProcessJournal schedules the journal's registry and logs every change to its processes
+ * through the journal: additions, priority changes (including aging), the remaining runtime after each slice and
+ * completions. After a crash, a scheduler over the reopened journal carries on with the processes that had not
+ * completed, from their last logged state.
+ * <p>
+ * A time slice that throws is recorded as a failed completion and its process is removed, rather than requeued to
+ * fail again. Slices can also be taken and finished separately ({@link #takeSlice()}, {@link #finishSlice(Slice,
+ * boolean)}), which lets a ProcessDispatcher run several of them at once on other threads.
+ * <p>
+ * The scheduler measures its running time with a ProcessClock. Together with processes created on a
+ * SimulatedProcessClock, this lets a workload be replayed without waiting out each time slice.
+ */
+public class PriorityScheduler {
+    /**
+     * Represents a policy deciding how long a process may run in one time slice.
+     */
+    @FunctionalInterface
+    public interface TimeSlicePolicy {
+        /**
+         * Gets the length of the next time slice of a process.
+         *
+         * @param processInfo the process about to run.
+         * @return the length of the time slice, at least 1.
+         */
+        int timeSlice(ProcessInfo processInfo);
+    }
+
+    /**
+     * The default policy: processes with a lower priority value get longer slices (10 - priority, at least 1).
+     */
+    public static final TimeSlicePolicy DEFAULT_POLICY = processInfo -> Math.max(1, 10 - processInfo.getProcessPriority());
+
+    private final ProcessRegistry registry;
+    private final ProcessJournal journal;
+    private final TimeSlicePolicy policy;
+    private final ProcessClock clock;
+    private final long startTime;
+    private final List<Completion> completions = new ArrayList<>();
+    private long agingThreshold;
+    private int agingBoost = 0;
+    private int round = 0;
+    private long slicesExecuted = 0;
+
+    /**
+     * Constructs a scheduler that takes over the processes in a registry.
+     * The processes are removed from the registry as they complete, and the registry is empty once the scheduler has
+     * finished.
+     *
+     * @param registry the registry of processes to schedule.
+     * @param policy the time slice policy.
+     */
+    public PriorityScheduler(ProcessRegistry registry, TimeSlicePolicy policy) {
+        this(registry, policy, ProcessClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a scheduler that takes over the processes in a registry and measures its running time with a clock.
+     * The clock should be the one the processes run on, so that the elapsed time covers their time slices.
+     *
+     * @param registry the registry of processes to schedule.
+     * @param policy the time slice policy.
+     * @param clock the clock used to measure the running time of the scheduler.
+     */
+    public PriorityScheduler(ProcessRegistry registry, TimeSlicePolicy policy, ProcessClock clock) {
+        this(registry, null, policy, clock);
+    }
+
+    /**
+     * Constructs a scheduler that takes over the processes in the registry of a journal, logging every change to them.
+     * The journal is not closed by the scheduler.
+     *
+     * @param journal the journal whose processes to schedule.
+     * @param policy the time slice policy.
+     */
+    public PriorityScheduler(ProcessJournal journal, TimeSlicePolicy policy) {
+        this(journal, policy, ProcessClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a scheduler that takes over the processes in the registry of a journal, logging every change to them,
+     * and measures its running time with a clock.
+     *
+     * @param journal the journal whose processes to schedule.
+     * @param policy the time slice policy.
+     * @param clock the clock used to measure the running time of the scheduler.
+     */
+    public PriorityScheduler(ProcessJournal journal, TimeSlicePolicy policy, ProcessClock clock) {
+        this(journal.registry(), journal, policy, clock);
+    }
+
+    /**
+     * Constructs a scheduler over a registry, optionally logging changes to its processes through a journal.
+     *
+     * @param registry the registry of processes to schedule.
+     * @param journal the journal maintaining the registry, or null if the processes are not logged.
+     * @param policy the time slice policy.
+     * @param clock the clock used to measure the running time of the scheduler.
+     */
+    private PriorityScheduler(ProcessRegistry registry, ProcessJournal journal, TimeSlicePolicy policy,
+                              ProcessClock clock) {
+        this.registry = registry;
+        this.journal = journal;
+        this.policy = policy;
+        this.clock = clock;
+        this.startTime = clock.nanoTime();
+    }
+
+    /**
+     * Enables aging: before each time slice, every process that has waited longer than a threshold has its priority
+     * value lowered by a boost (see {@link ProcessRegistry#age(long, int)}).
+     *
+     * @param waitThreshold the time a process may wait before it is aged, in nanoseconds, at least 0.
+     * @param boost the amount to lower the priority value by, at least 1.
+     */
+    public void setAging(long waitThreshold, int boost) {
+        if (waitThreshold < 0) throw new IllegalArgumentException("The wait threshold must not be negative");
+        if (boost < 1) throw new IllegalArgumentException("The boost must be at least 1");
+        this.agingThreshold = waitThreshold;
+        this.agingBoost = boost;
+    }
+
+    /**
+     * Adds a process to the scheduler. It runs in the current round, in priority order.
+     *
+     * @param processInfo the process to add.
+     * @return true if the process was added, false if a process with the same id and priority is already scheduled.
+     */
+    public boolean add(ProcessInfo processInfo) {
+        return (journal == null) ? registry.add(processInfo) : journal.insert(processInfo);
+    }
+
+    /**
+     * Changes the priority of a scheduled process, moving it to its new place in whichever round it is waiting for, in
+     * O(log n). If several processes have the id, the one scheduled first is changed.
+     *
+     * @param processId the id of the process.
+     * @param newPriority the new priority.
+     * @return true if the process is scheduled and has the new priority, false if there is no process with the id or
+     *         another process with the id already has the new priority.
+     */
+    public boolean reprioritize(int processId, int newPriority) {
+        return (journal == null) ? registry.reprioritize(processId, newPriority)
+                : journal.reprioritize(processId, newPriority);
+    }
+
+    /**
+     * Gets the registry holding the scheduled processes, through which they can be looked up by id or name. Processes
+     * should only be added, removed or reprioritized through the scheduler (or its journal).
+     *
+     * @return the registry.
+     */
+    public ProcessRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Runs one time slice of the next process in line. If the slice throws, the process is removed and recorded as a
+     * failed completion.
+     *
+     * @return the completion record if the process finished or failed during the slice, otherwise null.
+     * @throws IllegalStateException if there are no queued processes.
+     */
+    public Completion runSlice() {
+        Slice slice = takeSlice();
+        if (slice == null) throw new IllegalStateException("No processes queued");
+        boolean completed;
+        try {
+            completed = slice.processInfo.executeProcess(slice.length);
+        } catch (RuntimeException e) {
+            return failSlice(slice, e);
+        }
+        return finishSlice(slice, completed);
+    }
+
+    /**
+     * Takes the next process in line out of its round to run a time slice, aging the waiting processes and starting the
+     * next round first when due. The slice must be run by the caller and then passed to
+     * {@link #finishSlice(Slice, boolean)} or {@link #failSlice(Slice, Throwable)}. Other slices may be taken before it
+     * is finished.
+     *
+     * @return the time slice, or null if no process is waiting for the current or the next round.
+     */
+    public Slice takeSlice() {
+        if (agingBoost > 0) age();
+        if (registry.startNextRound()) round++;
+        ProcessInfo processInfo = registry.peekFirst();
+        if (processInfo == null) return null;
+        int length = policy.timeSlice(processInfo);
+        registry.takeFirst();
+        return new Slice(processInfo, round, length);
+    }
+
+    /**
+     * Finishes a time slice that has been run: a completed process is removed and recorded, any other process is
+     * requeued for the next round.
+     *
+     * @param slice the slice, taken with {@link #takeSlice()}.
+     * @param completed true if the process finished during the slice.
+     * @return the completion record if the process finished, otherwise null.
+     */
+    public Completion finishSlice(Slice slice, boolean completed) {
+        slicesExecuted++;
+        ProcessInfo processInfo = slice.processInfo;
+        if (completed) return complete(slice, null);
+        if (journal != null) journal.updateRuntime(processInfo, processInfo.getProcessRemainingRuntime());
+        registry.requeue(processInfo);
+        return null;
+    }
+
+    /**
+     * Finishes a time slice that threw: the process is removed and recorded as a failed completion.
+     *
+     * @param slice the slice, taken with {@link #takeSlice()}.
+     * @param failure what the slice threw.
+     * @return the failed completion record.
+     */
+    public Completion failSlice(Slice slice, Throwable failure) {
+        slicesExecuted++;
+        return complete(slice, failure);
+    }
+
+    /**
+     * Removes the process of a finished time slice and records its completion.
+     *
+     * @param slice the slice.
+     * @param failure what the slice threw, or null if the process completed.
+     * @return the completion record.
+     */
+    private Completion complete(Slice slice, Throwable failure) {
+        if (journal == null) registry.remove(slice.processInfo);
+        else journal.delete(slice.processInfo);
+        Completion completion = new Completion(slice.processInfo, slice.round, failure);
+        completions.add(completion);
+        return completion;
+    }
+
+    /**
+     * Runs time slices until every queued process has completed.
+     *
+     * @param listener an action to perform on each completion as it happens, or null for none.
+     * @return the completion records, in completion order.
+     */
+    public List<Completion> run(Consumer<Completion> listener) {
+        while (hasQueuedProcesses()) {
+            Completion completion = runSlice();
+            if (completion != null && listener != null) listener.accept(completion);
+        }
+        return getCompletions();
+    }
+
+    /**
+     * Ages the queued processes, through the journal if there is one.
+     */
+    private void age() {
+        if (journal == null) registry.age(agingThreshold, agingBoost);
+        else journal.age(agingThreshold, agingBoost);
+    }
+
+    /**
+     * Checks if any processes are still queued.
+     *
+     * @return true if there are processes waiting to run, otherwise false.
+     */
+    public boolean hasQueuedProcesses() {
+        return registry.getQueuedCount() > 0;
+    }
+
+    /**
+     * Gets the number of processes still queued.
+     *
+     * @return the number of processes waiting to run.
+     */
+    public int getQueuedCount() {
+        return registry.getQueuedCount();
+    }
+
+    /**
+     * Gets the completion records so far.
+     *
+     * @return the completion records, in completion order.
+     */
+    public List<Completion> getCompletions() {
+        return List.copyOf(completions);
+    }
+
+    /**
+     * Gets the number of time slices run so far.
+     *
+     * @return the number of time slices.
+     */
+    public long getSlicesExecuted() {
+        return slicesExecuted;
+    }
+
+    /**
+     * Gets the time passed on the clock of the scheduler since it was constructed.
+     *
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsedTime() {
+        return clock.nanoTime() - startTime;
+    }
+
+    /**
+     * Represents a time slice of a process, taken out of its round to run.
+     */
+    public static final class Slice {
+        private final ProcessInfo processInfo;
+        private final int round;
+        private final int length;
+
+        /**
+         * Constructs a time slice.
+         *
+         * @param processInfo the process to run.
+         * @param round the zero-based round the slice belongs to.
+         * @param length the length of the slice, from the time slice policy.
+         */
+        Slice(ProcessInfo processInfo, int round, int length) {
+            this.processInfo = processInfo;
+            this.round = round;
+            this.length = length;
+        }
+
+        // Getters
+        public ProcessInfo getProcessInfo() {
+            return processInfo;
+        }
+
+        public int getRound() {
+            return round;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Represents the completion of a process, which either finished its runtime or failed during a time slice.
+     */
+    public static class Completion {
+        private final ProcessInfo processInfo;
+        private final int round;
+        private final Throwable failure;
+
+        /**
+         * Constructs a completion record.
+         *
+         * @param processInfo the completed process.
+         * @param round the zero-based round in which the process completed.
+         * @param failure what the last time slice of the process threw, or null if the process finished.
+         */
+        Completion(ProcessInfo processInfo, int round, Throwable failure) {
+            this.processInfo = processInfo;
+            this.round = round;
+            this.failure = failure;
+        }
+
+        // Getters
+        public ProcessInfo getProcessInfo() {
+            return processInfo;
+        }
+
+        public int getRound() {
+            return round;
+        }
+
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+         * Checks if the process failed instead of finishing its runtime.
+         *
+         * @return true if the last time slice of the process threw, otherwise false.
+         */
+        public boolean isFailed() {
+            return failure != null;
+        }
+
+        /**
+         * Gets the completion statistics of the process, and the failure if it failed.
+         *
+         * @return the string containing the process completion statistics.
+         */
+        @Override
+        public String toString() {
+            if (failure == null) return processInfo.displayCompletedInfo();
+            return processInfo.displayCompletedInfo() + " Failed: " + failure;
+        }
+    }
+}
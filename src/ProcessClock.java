@@ -0,0 +1,59 @@
+/**
+ * Represents the source of time used to run and time processes.
+ * Times are in nanoseconds. The system clock really waits for time to pass, while a SimulatedProcessClock just moves
+ * its time forward, so a workload can be replayed far faster than it would run.
+ */
+public interface ProcessClock {
+    /**
+     * The clock backed by the system timer: real waits, with nanosecond timestamps counted from the Unix epoch.
+     */
+    ProcessClock SYSTEM = new SystemClock();
+
+    /**
+     * Gets the current time.
+     *
+     * @return the current time in nanoseconds.
+     */
+    long nanoTime();
+
+    /**
+     * Lets a number of milliseconds pass.
+     *
+     * @param millis the number of milliseconds to pass.
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Represents the clock backed by the system timer.
+     * Timestamps combine the wall clock at startup with the monotonic nanosecond timer, so they have nanosecond
+     * resolution, never go backwards, and remain comparable across restarts.
+     */
+    final class SystemClock implements ProcessClock {
+        private final long originNanos = System.nanoTime();
+        private final long originEpochNanos = System.currentTimeMillis() * 1_000_000L;
+
+        private SystemClock() {}
+
+        /**
+         * Gets the current time.
+         *
+         * @return the number of nanoseconds since the Unix epoch.
+         */
+        @Override
+        public long nanoTime() {
+            return originEpochNanos + (System.nanoTime() - originNanos);
+        }
+
+        /**
+         * Sleeps the current thread.
+         *
+         * @param millis the number of milliseconds to sleep.
+         * @throws InterruptedException if the current thread is interrupted while sleeping.
+         */
+        @Override
+        public void sleep(long millis) throws InterruptedException {
+            Thread.sleep(millis);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Represents a runner that executes the time slices of a PriorityScheduler on a pool of workers, several at once.
+ * <p>
+ * The scheduler decides what runs: rounds, priority order, time slice lengths, aging and journaling all work as when it
+ * runs its slices itself. The dispatcher is the only thread that touches the scheduler: it takes the next slice, hands
+ * it to a worker, and finishes it with the scheduler when the worker hands it back. A process is only ever held by one
+ * worker at a time, so ProcessInfo needs no locking. At most {@code workers} slices run at the same time.
+ * <p>
+ * A slice that throws is handed back like any other, and the scheduler records it as a failed completion instead of
+ * requeueing the process. If it threw an Error, the dispatcher stops and rethrows it once the failure is recorded.
+ * <p>
+ * Workers are either a fixed pool of platform threads or a new virtual thread per slice. Virtual threads suit
+ * processes that spend their slice sleeping (the system clock), since a blocked virtual thread does not hold on to a
+ * platform thread.
+ */
+public class ProcessDispatcher {
+    /**
+     * Represents the kind of threads that run time slices.
+     */
+    public enum WorkerMode {
+        /**
+         * A fixed pool with one platform thread per worker.
+         */
+        PLATFORM,
+        /**
+         * A new virtual thread for each time slice.
+         */
+        VIRTUAL
+    }
+
+    private final PriorityScheduler scheduler;
+    private final WorkerMode mode;
+    private final int workers;
+    private final BlockingQueue<Task> finishedTasks = new LinkedBlockingQueue<>();
+
+    /**
+     * Constructs a dispatcher that runs the time slices of a scheduler.
+     * The scheduler must not run slices itself while the dispatcher is running.
+     *
+     * @param scheduler the scheduler deciding which slices run.
+     * @param mode the kind of threads that run time slices.
+     * @param workers the maximum number of time slices running at once, at least 1.
+     */
+    public ProcessDispatcher(PriorityScheduler scheduler, WorkerMode mode, int workers) {
+        if (workers < 1) throw new IllegalArgumentException("At least one worker is needed");
+        this.scheduler = scheduler;
+        this.mode = mode;
+        this.workers = workers;
+    }
+
+    /**
+     * Runs time slices until every queued process has completed or failed.
+     * Completions are recorded by the scheduler, and the listener is called, on the dispatching thread.
+     *
+     * @param listener an action to perform on each completion, or null for none.
+     * @return the completion records, in completion order.
+     * @throws InterruptedException if the current thread is interrupted while waiting for a worker.
+     */
+    public List<PriorityScheduler.Completion> run(Consumer<PriorityScheduler.Completion> listener)
+            throws InterruptedException {
+        try (ExecutorService executor = createExecutor()) {
+            int running = 0;
+            while (running > 0 || scheduler.hasQueuedProcesses()) {
+                while (running < workers) {
+                    PriorityScheduler.Slice slice = scheduler.takeSlice();
+                    if (slice == null) break;
+                    executor.execute(new Task(slice));
+                    running++;
+                }
+                Task task = finishedTasks.take();
+                running--;
+                PriorityScheduler.Completion completion = (task.failure == null)
+                        ? scheduler.finishSlice(task.slice, task.completed)
+                        : scheduler.failSlice(task.slice, task.failure);
+                if (task.failure instanceof Error error) throw error;
+                if (completion != null && listener != null) listener.accept(completion);
+            }
+        }
+        return getCompletions();
+    }
+
+    /**
+     * Gets the completion records so far.
+     *
+     * @return the completion records, in completion order.
+     */
+    public List<PriorityScheduler.Completion> getCompletions() {
+        return scheduler.getCompletions();
+    }
+
+    /**
+     * Gets the number of time slices run so far.
+     *
+     * @return the number of time slices.
+     */
+    public long getSlicesExecuted() {
+        return scheduler.getSlicesExecuted();
+    }
+
+    /**
+     * Creates the executor that runs time slices.
+     *
+     * @return a new executor for the worker mode.
+     */
+    private ExecutorService createExecutor() {
+        if (mode == WorkerMode.VIRTUAL) return Executors.newVirtualThreadPerTaskExecutor();
+        return Executors.newFixedThreadPool(workers);
+    }
+
+    /**
+     * Represents one time slice being run by a worker, handed back to the dispatcher with its outcome.
+     */
+    private class Task implements Runnable {
+        private final PriorityScheduler.Slice slice;
+        private boolean completed;
+        private Throwable failure;
+
+        /**
+         * Constructs the task running a time slice.
+         *
+         * @param slice the time slice to run.
+         */
+        Task(PriorityScheduler.Slice slice) {
+            this.slice = slice;
+        }
+
+        /**
+         * Runs the slice, keeping whether the process finished or what it threw, and hands the task back.
+         */
+        @Override
+        public void run() {
+            try {
+                completed = slice.getProcessInfo().executeProcess(slice.getLength());
+            } catch (Throwable e) {
+                failure = e;
+            }
+            finishedTasks.add(this);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 /**
  * Represents a process info tracking object.
+ * Start, end and elapsed times are in nanoseconds, taken from the ProcessClock of the process.
  */
 public class ProcessInfo implements Comparable<ProcessInfo> {
+    private final ProcessClock clock;
     private String processName;
     private int processId;
     private int processPriority;
@@ -19,7 +21,21 @@ public class ProcessInfo implements Comparable<ProcessInfo> {
      * @param processRemainingRuntime the remaining runtime of the process being tracked.
      */
     public ProcessInfo(String processName, int processId, int processPriority, int processRemainingRuntime) {
-        this.processStartTime = System.currentTimeMillis();
+        this(processName, processId, processPriority, processRemainingRuntime, ProcessClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a new process info tracker that runs and is timed by the given clock.
+     *
+     * @param processName the name of the process being tracked.
+     * @param processId the id of the process being tracked.
+     * @param processPriority the priority of the process being tracked.
+     * @param processRemainingRuntime the remaining runtime of the process being tracked.
+     * @param clock the clock used to run and time the process.
+     */
+    public ProcessInfo(String processName, int processId, int processPriority, int processRemainingRuntime, ProcessClock clock) {
+        this.clock = clock;
+        this.processStartTime = clock.nanoTime();
         this.processName = processName;
         this.processId = processId;
         this.processPriority = processPriority;
@@ -65,6 +81,13 @@ public class ProcessInfo implements Comparable<ProcessInfo> {
         return processPriority;
     }
 
+    /**
+     * Sets the priority of the process. The priority is part of the ordering used by compareTo, so changing it while
+     * the process is in a tree (or any other sorted collection) silently breaks that tree. Use
+     * ProcessRegistry.reprioritize or PriorityScheduler.reprioritize for queued processes, which move them instead.
+     *
+     * @param processPriority the new priority.
+     */
     public void setProcessPriority(int processPriority) {
         this.processPriority = processPriority;
     }
@@ -101,10 +124,14 @@ public class ProcessInfo implements Comparable<ProcessInfo> {
         this.processElapsedTime = processElapsedTime;
     }
 
+    public ProcessClock getProcessClock() {
+        return clock;
+    }
+
     /**
-     * Executes a process for the timeframe specified in executionTime.
+     * Executes a process for the timeframe specified in executionTime, letting that much time pass on its clock.
      *
-     * @param executionTime the timeframe alloted to the execution of this process.
+     * @param executionTime the timeframe alloted to the execution of this process, in milliseconds.
      * @return true if the process has finished execution, otherwise false.
      */
     public boolean executeProcess(int executionTime) {
@@ -112,7 +139,7 @@ public class ProcessInfo implements Comparable<ProcessInfo> {
 
         try {
             if (timeToExecute > 0) {
-                Thread.sleep(timeToExecute);
+                clock.sleep(timeToExecute);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -120,7 +147,7 @@ public class ProcessInfo implements Comparable<ProcessInfo> {
         }
 
         this.processRemainingRuntime -= timeToExecute;
-        this.processEndTime = System.currentTimeMillis();
+        this.processEndTime = clock.nanoTime();
 
         if (this.processRemainingRuntime <= 0) {
             endProcess();
@@ -131,7 +158,7 @@ public class ProcessInfo implements Comparable<ProcessInfo> {
 
 
     /**
-     * Gets process completion statistics.
+     * Gets process completion statistics. The completion time is shown in milliseconds.
      *
      * @return the string containing the process completion statistics.
      */
@@ -139,7 +166,7 @@ public class ProcessInfo implements Comparable<ProcessInfo> {
         return String.format("Process Name: %-10s Process Priority: %-5d Completion Time: %-5s",
                 processName,
                 processPriority,
-                processElapsedTime);
+                processElapsedTime / 1_000_000);
     }
 
     /**
@@ -161,7 +188,7 @@ public class ProcessInfo implements Comparable<ProcessInfo> {
      */
     private void endProcess() {
         // Set the end time and calculate elapsed time
-        this.processEndTime = System.currentTimeMillis();
+        this.processEndTime = clock.nanoTime();
         this.processElapsedTime = processEndTime - processStartTime;
     }
 
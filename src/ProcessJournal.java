@@ -0,0 +1,651 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Represents a durable ProcessRegistry, backed by a write-ahead log and periodic snapshots.
+ * <p>
+ * Every insert, delete, runtime update and priority change is appended to an append-only log as a length-prefixed,
+ * checksummed record before it is applied to the registry, so an operation that can not be logged leaves the registry
+ * unchanged. How soon a record reaches the disk depends on the durability mode (see {@link Durability}). Every
+ * checkpointInterval records the registered processes are saved as a ProcessSnapshot and a new, empty log is started.
+ * <p>
+ * If writing the log fails, including a periodic flush in the background, the failure is kept and every later
+ * operation, sync and checkpoint fails with it, since records may have been lost.
+ * <p>
+ * Log records name a process by its id and priority, which tell registered processes apart (see ProcessRegistry).
+ * <p>
+ * Each checkpoint starts a new generation: snapshot n holds the processes as they were when log n was started, and
+ * the files of earlier generations are deleted once both exist. Opening a journal recovers the registry by loading the
+ * latest snapshot and replaying only the log of its generation, so a crash during a checkpoint leaves either the
+ * previous snapshot with its complete log or the new snapshot with an empty one, and no record is applied twice.
+ * Replay stops at the first truncated or corrupt record (a write torn by a crash) and cuts the log there.
+ * <p>
+ * Processes in the registry returned by {@link #registry()} must only be added, removed, reprioritized, aged or have
+ * their runtime changed through the journal. Rounds are not logged: a PriorityScheduler over the journal takes and
+ * requeues processes on the registry directly, and every recovered process is queued for the current round. All journal
+ * methods are synchronized.
+ */
+public class ProcessJournal implements AutoCloseable {
+    /**
+     * Represents how soon log records are forced to disk, trading durability for throughput.
+     */
+    public enum Durability {
+        /**
+         * Each operation is written and forced to disk before it returns. Nothing acknowledged is ever lost.
+         */
+        SYNC,
+        /**
+         * Operations are buffered and forced to disk together once a group is full or the group delay has passed
+         * (group commit). At most one group of operations is lost on a crash.
+         */
+        GROUP,
+        /**
+         * Operations are buffered and handed to the operating system without forcing them to disk. Survives a crash
+         * of the process once written, but not a crash of the machine.
+         */
+        ASYNC
+    }
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String LOG_PREFIX = "journal-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = BUFFER_SIZE - HEADER_SIZE;
+
+    private static final byte INSERT = 1;
+    private static final byte DELETE = 2;
+    private static final byte UPDATE_RUNTIME = 3;
+    private static final byte REPRIORITIZE = 4;
+
+    private final Path directory;
+    private final Durability durability;
+    private final int groupSize;
+    private final int checkpointInterval;
+    private final ProcessRegistry registry;
+    private long generation;
+    private FileChannel log;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32C checksum = new CRC32C();
+    private final ScheduledExecutorService flusher;
+    private int pendingRecords = 0;
+    private int recordsSinceCheckpoint = 0;
+    private boolean closed = false;
+    private IOException writeFailure;
+
+    /**
+     * Constructs a journal over a recovered registry.
+     *
+     * @param directory the directory holding the snapshot and log.
+     * @param durability the durability mode.
+     * @param groupSize the number of operations per group commit in GROUP mode.
+     * @param groupDelayMillis the longest time an operation waits for its group commit in GROUP mode.
+     * @param checkpointInterval the number of logged operations between snapshots.
+     * @param registry the recovered registry.
+     * @param generation the generation of the log.
+     * @param log the log, positioned at its end.
+     */
+    private ProcessJournal(Path directory, Durability durability, int groupSize, long groupDelayMillis,
+                           int checkpointInterval, ProcessRegistry registry, long generation, FileChannel log) {
+        this.directory = directory;
+        this.durability = durability;
+        this.groupSize = groupSize;
+        this.checkpointInterval = checkpointInterval;
+        this.registry = registry;
+        this.generation = generation;
+        this.log = log;
+        if (durability == Durability.SYNC) {
+            flusher = null;
+        } else {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "process-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, groupDelayMillis, groupDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Opens a journal in a directory, recovering the registry from the snapshot and log found there.
+     *
+     * @param directory the directory holding the snapshot and log; created if it does not exist.
+     * @param durability the durability mode.
+     * @param groupSize the number of operations per group commit in GROUP mode.
+     * @param groupDelayMillis the longest time an operation waits to be flushed in GROUP and ASYNC mode.
+     * @param checkpointInterval the number of logged operations between snapshots.
+     * @return the journal.
+     * @throws IOException if the snapshot or log can not be read.
+     */
+    public static ProcessJournal open(Path directory, Durability durability, int groupSize, long groupDelayMillis,
+                                      int checkpointInterval) throws IOException {
+        if (groupSize < 1 || groupDelayMillis < 1 || checkpointInterval < 1)
+            throw new IllegalArgumentException("Group size, group delay and checkpoint interval must be positive");
+        Files.createDirectories(directory);
+        long generation = latestGeneration(directory);
+        ProcessRegistry registry = new ProcessRegistry();
+        if (generation > 0) {
+            for (ProcessInfo processInfo : ProcessSnapshot.load(snapshotFile(directory, generation)))
+                registry.add(processInfo);
+        }
+        FileChannel log = FileChannel.open(logFile(directory, generation), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = replay(log, registry);
+            log.truncate(end);
+            log.position(end);
+            deleteEarlierGenerations(directory, generation);
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+        return new ProcessJournal(directory, durability, groupSize, groupDelayMillis, checkpointInterval, registry,
+                generation, log);
+    }
+
+    /**
+     * Opens a journal in a directory with group commits of up to 256 operations or 10 milliseconds, and a snapshot
+     * every million operations.
+     *
+     * @param directory the directory holding the snapshot and log; created if it does not exist.
+     * @param durability the durability mode.
+     * @return the journal.
+     * @throws IOException if the snapshot or log can not be read.
+     */
+    public static ProcessJournal open(Path directory, Durability durability) throws IOException {
+        return open(directory, durability, 256, 10, 1_000_000);
+    }
+
+    /**
+     * Gets the registry maintained by the journal. Its processes must only be changed through the journal.
+     *
+     * @return the registry.
+     */
+    public ProcessRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * Logs the insertion of a process and adds it to the registry, queued for the current round.
+     *
+     * @param processInfo the process to be inserted.
+     * @return true if the insertion was successful, false if a process with the same id and priority is already
+     *         registered.
+     * @throws IllegalArgumentException if the name of the process is too long to be logged.
+     * @throws UncheckedIOException if the log can not be written.
+     */
+    public synchronized boolean insert(ProcessInfo processInfo) {
+        checkOpen();
+        byte[] name = processInfo.getProcessName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_RECORD_SIZE - 64) throw new IllegalArgumentException("Process name too long");
+        if (registry.get(processInfo.getProcessId(), processInfo.getProcessPriority()) != null) return false;
+        record.clear();
+        record.put(INSERT)
+                .putInt(processInfo.getProcessId())
+                .putInt(processInfo.getProcessPriority())
+                .putInt(processInfo.getProcessRemainingRuntime())
+                .putLong(processInfo.getProcessStartTime())
+                .putInt(name.length)
+                .put(name);
+        append();
+        registry.add(processInfo);
+        checkpointIfDue();
+        return true;
+    }
+
+    /**
+     * Logs the deletion of a process and removes it from the registry.
+     *
+     * @param processInfo the process to be deleted.
+     * @return true if the process is registered and has been deleted, otherwise false.
+     * @throws UncheckedIOException if the log can not be written.
+     */
+    public synchronized boolean delete(ProcessInfo processInfo) {
+        checkOpen();
+        if (!isRegistered(processInfo)) return false;
+        record.clear();
+        record.put(DELETE).putInt(processInfo.getProcessId()).putInt(processInfo.getProcessPriority());
+        append();
+        registry.remove(processInfo);
+        checkpointIfDue();
+        return true;
+    }
+
+    /**
+     * Logs an update of the remaining runtime of a registered process and sets it.
+     *
+     * @param processInfo the process to be updated.
+     * @param remainingRuntime the new remaining runtime.
+     * @return true if the process is registered and has been updated, false if it is not registered (nothing is
+     *         logged).
+     * @throws UncheckedIOException if the log can not be written.
+     */
+    public synchronized boolean updateRuntime(ProcessInfo processInfo, int remainingRuntime) {
+        checkOpen();
+        if (!isRegistered(processInfo)) return false;
+        record.clear();
+        record.put(UPDATE_RUNTIME)
+                .putInt(processInfo.getProcessId())
+                .putInt(processInfo.getProcessPriority())
+                .putInt(remainingRuntime);
+        append();
+        processInfo.setProcessRemainingRuntime(remainingRuntime);
+        checkpointIfDue();
+        return true;
+    }
+
+    /**
+     * Logs a change of the priority of the process with an id and makes it (see
+     * {@link ProcessRegistry#reprioritize(int, int)}). If several processes have the id, the one registered first is
+     * changed.
+     *
+     * @param processId the id of the process.
+     * @param newPriority the new priority.
+     * @return true if the process is registered and has the new priority, false if there is no process with the id or
+     *         another process with the id already has the new priority (nothing is logged).
+     * @throws UncheckedIOException if the log can not be written.
+     */
+    public synchronized boolean reprioritize(int processId, int newPriority) {
+        checkOpen();
+        ProcessInfo processInfo = registry.get(processId);
+        if (processInfo == null) return false;
+        if (processInfo.getProcessPriority() == newPriority) return true;
+        if (registry.get(processId, newPriority) != null) return false;
+        logPriority(processInfo, newPriority);
+        registry.reprioritize(processInfo, newPriority);
+        checkpointIfDue();
+        return true;
+    }
+
+    /**
+     * Ages the queued processes of the registry (see {@link ProcessRegistry#age(long, int)}), logging each priority
+     * change before it is made.
+     *
+     * @param waitThreshold the time a process may wait before it is aged, in nanoseconds, at least 0.
+     * @param boost the amount to lower the priority value by, at least 1.
+     * @return the number of processes whose priority was raised.
+     * @throws UncheckedIOException if the log can not be written.
+     */
+    public synchronized int age(long waitThreshold, int boost) {
+        checkOpen();
+        int aged = registry.age(waitThreshold, boost, this::logPriority);
+        if (aged > 0) {
+            // One checkpoint at most, after every aged process has been moved
+            recordsSinceCheckpoint += aged - 1;
+            checkpointIfDue();
+        }
+        return aged;
+    }
+
+    /**
+     * Forces every logged operation to disk, whatever the durability mode.
+     *
+     * @throws IOException if the log can not be written.
+     */
+    public synchronized void sync() throws IOException {
+        checkOpen();
+        checkWriteFailure();
+        writeBuffer();
+        force();
+        pendingRecords = 0;
+    }
+
+    /**
+     * Saves the registered processes as the snapshot of a new generation, starts its empty log and deletes the files of
+     * the previous generation.
+     *
+     * @throws IOException if the snapshot or log can not be written.
+     */
+    public synchronized void checkpoint() throws IOException {
+        checkOpen();
+        checkWriteFailure();
+        writeBuffer();
+        long next = generation + 1;
+        ProcessSnapshot.save(registry.getProcesses(), snapshotFile(directory, next));
+        FileChannel nextLog;
+        try {
+            nextLog = FileChannel.open(logFile(directory, next), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            // Recovery would start from the new snapshot, so nothing more may be logged to the old generation
+            writeFailure = e;
+            throw e;
+        }
+        log.close();
+        log = nextLog;
+        generation = next;
+        pendingRecords = 0;
+        recordsSinceCheckpoint = 0;
+        deleteEarlierGenerations(directory, generation);
+    }
+
+    /**
+     * Forces every logged operation to disk and closes the log.
+     *
+     * @throws IOException if the log can not be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        if (flusher != null) flusher.shutdown();
+        try {
+            sync();
+        } finally {
+            closed = true;
+            log.close();
+        }
+    }
+
+    /**
+     * Logs a change of the priority of a process, without making it.
+     *
+     * @param processInfo the process.
+     * @param newPriority the new priority.
+     * @throws UncheckedIOException if the log can not be written.
+     */
+    private void logPriority(ProcessInfo processInfo, int newPriority) {
+        record.clear();
+        record.put(REPRIORITIZE)
+                .putInt(processInfo.getProcessId())
+                .putInt(processInfo.getProcessPriority())
+                .putInt(newPriority);
+        append();
+    }
+
+    /**
+     * Checks if a process is registered.
+     *
+     * @param processInfo the process.
+     * @return true if the process is the registered process with its id and priority, otherwise false.
+     */
+    private boolean isRegistered(ProcessInfo processInfo) {
+        return registry.get(processInfo.getProcessId(), processInfo.getProcessPriority()) == processInfo;
+    }
+
+    /**
+     * Frames the current record with its length and checksum, adds it to the write buffer and commits it according to
+     * the durability mode. Called before the operation is applied to the registry.
+     *
+     * @throws UncheckedIOException if the log can not be written, or an earlier write failed.
+     */
+    private void append() {
+        try {
+            checkWriteFailure();
+            record.flip();
+            checksum.reset();
+            checksum.update(record.array(), 0, record.limit());
+            if (buffer.remaining() < HEADER_SIZE + record.limit()) writeBuffer();
+            buffer.putInt(record.limit()).putInt((int) checksum.getValue()).put(record);
+            pendingRecords++;
+
+            if (durability == Durability.SYNC || (durability == Durability.GROUP && pendingRecords >= groupSize)) {
+                writeBuffer();
+                force();
+                pendingRecords = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Saves a snapshot once checkpointInterval operations have been logged. Called after the operation is applied to
+     * the registry, so that the snapshot includes it.
+     *
+     * @throws UncheckedIOException if the snapshot or log can not be written.
+     */
+    private void checkpointIfDue() {
+        if (++recordsSinceCheckpoint < checkpointInterval) return;
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the buffered records to the log, forcing them to disk in GROUP mode. Called periodically by the flusher,
+     * which has no caller to report a failure to, so the failure is kept for the next operation to throw.
+     */
+    private synchronized void flushQuietly() {
+        if (closed || writeFailure != null || buffer.position() == 0) return;
+        try {
+            writeBuffer();
+            if (durability == Durability.GROUP) force();
+            pendingRecords = 0;
+        } catch (IOException e) {
+            // Kept in writeFailure by writeBuffer or force
+        }
+    }
+
+    /**
+     * Writes the buffered records to the log without forcing them to disk.
+     *
+     * @throws IOException if the log can not be written.
+     */
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) log.write(buffer);
+        } catch (IOException e) {
+            writeFailure = e;
+            throw e;
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Forces the records written to the log to disk.
+     *
+     * @throws IOException if the log can not be forced.
+     */
+    private void force() throws IOException {
+        try {
+            log.force(false);
+        } catch (IOException e) {
+            writeFailure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Checks that no earlier write to the log has failed.
+     *
+     * @throws IOException if an earlier write failed, with that failure as its cause.
+     */
+    private void checkWriteFailure() throws IOException {
+        if (writeFailure != null) throw new IOException("An earlier write to the journal failed", writeFailure);
+    }
+
+    /**
+     * Checks that the journal has not been closed.
+     *
+     * @throws IllegalStateException if the journal has been closed.
+     */
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("Journal has been closed");
+    }
+
+    /**
+     * Replays the records of a log onto a registry, stopping at the first truncated or corrupt record.
+     *
+     * @param log the log to replay.
+     * @param registry the registry to apply the records to.
+     * @return the offset just past the last valid record.
+     * @throws IOException if the log can not be read.
+     */
+    private static long replay(FileChannel log, ProcessRegistry registry) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        ByteBuffer body = ByteBuffer.allocate(MAX_RECORD_SIZE);
+        CRC32C checksum = new CRC32C();
+        long position = 0;
+        long size = log.size();
+
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(log, header, position);
+            int length = header.getInt(0);
+            if (length <= 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > size) break;
+            body.clear().limit(length);
+            readFully(log, body, position + HEADER_SIZE);
+            checksum.reset();
+            checksum.update(body.array(), 0, length);
+            if ((int) checksum.getValue() != header.getInt(Integer.BYTES)) break;
+            body.flip();
+            if (!apply(body, registry)) break;
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    /**
+     * Applies one log record to a registry.
+     *
+     * @param body the record, positioned at its type.
+     * @param registry the registry to apply the record to.
+     * @return true if the record was understood, false if it is corrupt.
+     */
+    private static boolean apply(ByteBuffer body, ProcessRegistry registry) {
+        byte type = body.get();
+        if (type == INSERT) {
+            int processId = body.getInt();
+            int priority = body.getInt();
+            int remainingRuntime = body.getInt();
+            long startTime = body.getLong();
+            byte[] name = new byte[body.getInt()];
+            body.get(name);
+            ProcessInfo processInfo = new ProcessInfo(new String(name, StandardCharsets.UTF_8), processId, priority, remainingRuntime);
+            processInfo.setProcessStartTime(startTime);
+            registry.add(processInfo);
+        } else if (type == DELETE) {
+            ProcessInfo processInfo = registry.get(body.getInt(), body.getInt());
+            if (processInfo != null) registry.remove(processInfo);
+        } else if (type == UPDATE_RUNTIME) {
+            ProcessInfo processInfo = registry.get(body.getInt(), body.getInt());
+            int remainingRuntime = body.getInt();
+            if (processInfo != null) processInfo.setProcessRemainingRuntime(remainingRuntime);
+        } else if (type == REPRIORITIZE) {
+            ProcessInfo processInfo = registry.get(body.getInt(), body.getInt());
+            int newPriority = body.getInt();
+            if (processInfo != null) registry.reprioritize(processInfo, newPriority);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the snapshot file of a generation.
+     *
+     * @param directory the directory of the journal.
+     * @param generation the generation, at least 1.
+     * @return the path of the snapshot.
+     */
+    private static Path snapshotFile(Path directory, long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Gets the log file of a generation.
+     *
+     * @param directory the directory of the journal.
+     * @param generation the generation.
+     * @return the path of the log.
+     */
+    private static Path logFile(Path directory, long generation) {
+        return directory.resolve(LOG_PREFIX + generation + LOG_SUFFIX);
+    }
+
+    /**
+     * Finds the latest generation with a snapshot in a directory.
+     *
+     * @param directory the directory of the journal.
+     * @return the latest generation, or 0 if there is no snapshot.
+     * @throws IOException if the directory can not be listed.
+     */
+    private static long latestGeneration(Path directory) throws IOException {
+        long latest = 0;
+        for (Path file : list(directory)) {
+            latest = Math.max(latest, generationOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX));
+        }
+        return latest;
+    }
+
+    /**
+     * Deletes the snapshots and logs of the generations before a generation.
+     *
+     * @param directory the directory of the journal.
+     * @param generation the generation to keep.
+     * @throws IOException if a file can not be deleted.
+     */
+    private static void deleteEarlierGenerations(Path directory, long generation) throws IOException {
+        for (Path file : list(directory)) {
+            long snapshotGeneration = generationOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            long logGeneration = generationOf(file, LOG_PREFIX, LOG_SUFFIX);
+            if ((snapshotGeneration >= 0 && snapshotGeneration < generation)
+                    || (logGeneration >= 0 && logGeneration < generation))
+                Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Lists the files in a directory.
+     *
+     * @param directory the directory.
+     * @return the files.
+     * @throws IOException if the directory can not be listed.
+     */
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    /**
+     * Gets the generation in the name of a journal file.
+     *
+     * @param file the file.
+     * @param prefix the prefix of the file name before the generation.
+     * @param suffix the suffix of the file name after the generation.
+     * @return the generation, or -1 if the file name does not have the prefix and suffix around a generation.
+     */
+    private static long generationOf(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(prefix) || !name.endsWith(suffix)) return -1;
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads from a channel until a buffer is full.
+     *
+     * @param channel the channel to read from.
+     * @param buffer the buffer to fill.
+     * @param position the position in the channel to read from.
+     * @throws IOException if the channel can not be read or ends first.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("Unexpected end of journal");
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Loads process lists made of "name|id|priority|runtime" lines into a tree.
+ * The file is memory mapped and records are parsed straight from its bytes, without reading lines into Strings or
+ * splitting them with a regular expression; only the process name becomes a String, and repeated names share one
+ * instance. Large files can be split into chunks at line boundaries and parsed in parallel. Each chunk is added to the
+ * tree in batches as soon as it and the chunks before it are parsed, so processes are added in file order while later
+ * chunks are still being parsed.
+ */
+public class ProcessListLoader {
+    private static final int BATCH_SIZE = 8192;
+    private static final long MAX_CHUNK_SIZE = 1L << 28;
+    private static final long MIN_PARALLEL_CHUNK_SIZE = 1L << 22;
+
+    private final boolean parallel;
+    private final Consumer<ProcessInfo> listener;
+    private final ProcessClock clock;
+
+    /**
+     * Constructs a loader for processes timed by the system clock.
+     *
+     * @param parallel whether large files may be parsed by several threads at once.
+     * @param listener an action to perform on each process after it is added to the tree, or null for none.
+     */
+    public ProcessListLoader(boolean parallel, Consumer<ProcessInfo> listener) {
+        this(parallel, listener, ProcessClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a loader.
+     *
+     * @param parallel whether large files may be parsed by several threads at once.
+     * @param listener an action to perform on each process after it is added to the tree, or null for none.
+     * @param clock the clock used to run and time the loaded processes.
+     */
+    public ProcessListLoader(boolean parallel, Consumer<ProcessInfo> listener, ProcessClock clock) {
+        this.parallel = parallel;
+        this.listener = listener;
+        this.clock = clock;
+    }
+
+    /**
+     * Loads a process list file into a tree.
+     *
+     * @param file the process list file.
+     * @param tree the tree to add the processes to.
+     * @return the number of records read from the file.
+     * @throws IOException if the file can not be read or contains a malformed record.
+     */
+    public int load(Path file, AVLTree<ProcessInfo> tree) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            int chunks = bounds.length - 1;
+            if (chunks == 1) return addChunk(parseChunk(channel, bounds[0], bounds[1], clock), tree);
+
+            List<Future<List<ProcessInfo>>> parsed = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                parsed.add(ForkJoinPool.commonPool().submit(() -> parseChunk(channel, start, end, clock)));
+            }
+            int count = 0;
+            try {
+                for (Future<List<ProcessInfo>> chunk : parsed) count += addChunk(chunk.get(), tree);
+            } catch (ExecutionException e) {
+                // The pool may wrap the parser's exception more than once on its way back to this thread
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) throw (IOException) cause;
+                }
+                throw new IOException("Could not parse " + file, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while loading " + file);
+            } finally {
+                for (Future<List<ProcessInfo>> chunk : parsed) chunk.cancel(true);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Adds the processes parsed from one chunk to the tree in batches.
+     *
+     * @param processes the processes in the chunk, in file order.
+     * @param tree the tree to add the processes to.
+     * @return the number of processes in the chunk.
+     */
+    private int addChunk(List<ProcessInfo> processes, AVLTree<ProcessInfo> tree) {
+        for (int start = 0; start < processes.size(); start += BATCH_SIZE) {
+            List<ProcessInfo> batch = processes.subList(start, Math.min(start + BATCH_SIZE, processes.size()));
+            tree.addAll(batch);
+            if (listener != null) batch.forEach(listener);
+        }
+        return processes.size();
+    }
+
+    /**
+     * Splits the file into chunks that end at line boundaries.
+     *
+     * @param channel the channel of the file.
+     * @return the start offsets of the chunks, followed by the size of the file.
+     * @throws IOException if the file can not be read.
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        int chunks = (int) ((fileSize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        if (parallel) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            chunks = (int) Math.max(chunks, Math.min(threads, fileSize / MIN_PARALLEL_CHUNK_SIZE));
+        }
+        chunks = Math.max(chunks, 1);
+
+        long[] bounds = new long[chunks + 1];
+        bounds[chunks] = fileSize;
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, fileSize * i / chunks));
+        }
+        return bounds;
+    }
+
+    /**
+     * Finds the start of the first line at or after a position.
+     *
+     * @param channel the channel of the file.
+     * @param position the position to search from.
+     * @return the offset just past the next line feed, or the size of the file if there is none.
+     * @throws IOException if the file can not be read.
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        if (position == 0) return 0;
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long offset = position - 1;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) return channel.size();
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return offset + i + 1;
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Parses a chunk of the file.
+     *
+     * @param channel the channel of the file.
+     * @param start the offset of the first byte of the chunk.
+     * @param end the offset just past the last byte of the chunk.
+     * @param clock the clock used to run and time the processes.
+     * @return the processes in the chunk, in file order.
+     * @throws IOException if the file can not be mapped or contains a malformed record.
+     */
+    private static List<ProcessInfo> parseChunk(FileChannel channel, long start, long end, ProcessClock clock)
+            throws IOException {
+        List<ProcessInfo> processes = new ArrayList<>();
+        if (end <= start) return processes;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        NameCache names = new NameCache();
+        int limit = buffer.limit();
+        int position = 0;
+        int[] fields = new int[3];
+
+        while (position < limit) {
+            int lineEnd = position;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') lineEnd++;
+            int contentEnd = lineEnd;
+            if (contentEnd > position && buffer.get(contentEnd - 1) == '\r') contentEnd--;
+
+            if (contentEnd > position) {
+                int nameEnd = position;
+                while (nameEnd < contentEnd && buffer.get(nameEnd) != '|') nameEnd++;
+                if (nameEnd == contentEnd) throw malformed(start + position);
+                String name = names.get(buffer, position, nameEnd);
+
+                int fieldStart = nameEnd + 1;
+                for (int f = 0; f < fields.length; f++) {
+                    int fieldEnd = fieldStart;
+                    while (fieldEnd < contentEnd && buffer.get(fieldEnd) != '|') fieldEnd++;
+                    // Every field but the last must end at a separator, and the last one must end the line
+                    if ((f < fields.length - 1) == (fieldEnd == contentEnd)) throw malformed(start + position);
+                    fields[f] = parseInt(buffer, fieldStart, fieldEnd, start + position);
+                    fieldStart = fieldEnd + 1;
+                }
+                processes.add(new ProcessInfo(name, fields[0], fields[1], fields[2], clock));
+            }
+            position = lineEnd + 1;
+        }
+        return processes;
+    }
+
+    /**
+     * Parses a decimal int from a range of bytes.
+     *
+     * @param buffer the buffer holding the bytes.
+     * @param start the index of the first byte.
+     * @param end the index just past the last byte.
+     * @param recordOffset the file offset of the record, for error messages.
+     * @return the parsed value.
+     * @throws IOException if the bytes are not a valid int.
+     */
+    private static int parseInt(ByteBuffer buffer, int start, int end, long recordOffset) throws IOException {
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) throw malformed(recordOffset);
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) throw malformed(recordOffset);
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw malformed(recordOffset);
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw malformed(recordOffset);
+        return (int) value;
+    }
+
+    /**
+     * Creates the exception reported for a malformed record.
+     *
+     * @param recordOffset the file offset of the record.
+     * @return the exception.
+     */
+    private static IOException malformed(long recordOffset) {
+        return new IOException("Malformed process record at byte " + recordOffset);
+    }
+
+    /**
+     * Represents a small cache of process names, so that lines repeating a name do not each create a new String.
+     * Names are looked up by a hash of their bytes and compared byte for byte against the cached String.
+     */
+    private static class NameCache {
+        private final String[] names = new String[256];
+
+        /**
+         * Gets the String for a name, creating it if it is not cached.
+         *
+         * @param buffer the buffer holding the name.
+         * @param start the index of the first byte of the name.
+         * @param end the index just past the last byte of the name.
+         * @return the name.
+         */
+        String get(ByteBuffer buffer, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) hash = 31 * hash + buffer.get(i);
+            int slot = (hash ^ (hash >>> 16)) & (names.length - 1);
+            String cached = names[slot];
+            if (cached != null && matches(cached, buffer, start, end)) return cached;
+
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            names[slot] = name;
+            return name;
+        }
+
+        /**
+         * Checks if a cached name is made of the given ASCII bytes.
+         *
+         * @param name the cached name.
+         * @param buffer the buffer holding the bytes.
+         * @param start the index of the first byte.
+         * @param end the index just past the last byte.
+         * @return true if the name matches the bytes, otherwise false.
+         */
+        private static boolean matches(String name, ByteBuffer buffer, int start, int end) {
+            if (name.length() != end - start) return false;
+            for (int i = 0; i < name.length(); i++) {
+                byte b = buffer.get(start + i);
+                if (b < 0 || name.charAt(i) != b) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,508 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Represents the processes of a PriorityScheduler, indexed by priority, by id and by name.
+ * <p>
+ * The priority index is a pair of AVLTrees in priority order (ProcessInfo's natural ordering): the processes waiting
+ * for the current round, which the scheduler takes from, and the processes waiting for the next round. Because that
+ * order is by priority first, finding a process by id alone would mean scanning the trees, so the registry also keeps
+ * an IntHashMap from process id to the processes with that id and a map from process name to the processes with that
+ * name. All indexes are updated together: looking a process up by id takes O(1) expected time, and removing it takes
+ * O(log n).
+ * <p>
+ * Like the trees, the registry tells processes apart by id and priority together, so several processes may share an
+ * id as long as their priorities differ. Where a method only takes an id, it acts on the process with that id that was
+ * registered first. A priority change that would give a process the id and priority of another registered process is
+ * refused, since the two could no longer be told apart.
+ * <p>
+ * A process taken from the current round (to run a time slice) stays registered, but is in neither round until it is
+ * requeued for the next round or removed.
+ * <p>
+ * The id, name and priority of a registered process must not be changed through its setters, since the indexes would
+ * no longer find it. Priorities are changed with {@link #reprioritize(ProcessInfo, int)}, or for all long-waiting
+ * processes at once with {@link #age(long, int)}.
+ */
+public class ProcessRegistry implements Iterable<ProcessInfo> {
+    private AVLTree<ProcessInfo> currentRound = new AVLTree<>();
+    private AVLTree<ProcessInfo> nextRound = new AVLTree<>();
+    /**
+     * The entry of the first registered process with each id, linked to the others with that id in registration order.
+     */
+    private final IntHashMap<Entry> entries = new IntHashMap<>();
+    private final Map<String, Set<ProcessInfo>> processesByName = new HashMap<>();
+    private int size = 0;
+
+    /**
+     * The queued processes, linked from the one that has waited longest to the one queued last.
+     */
+    private Entry oldest;
+    private Entry newest;
+
+    /**
+     * Default constructor.
+     */
+    public ProcessRegistry() {}
+
+    /**
+     * Adds a process to every index, queued for the current round.
+     *
+     * @param processInfo the process to add.
+     * @return true if the process was added, false if a process with the same id and priority is already registered.
+     */
+    public boolean add(ProcessInfo processInfo) {
+        if (find(processInfo.getProcessId(), processInfo.getProcessPriority()) != null) return false;
+        Entry entry = new Entry(processInfo);
+        Entry first = entries.get(processInfo.getProcessId());
+        if (first == null) {
+            entries.put(processInfo.getProcessId(), entry);
+        } else {
+            Entry last = first;
+            while (last.sameId != null) last = last.sameId;
+            last.sameId = entry;
+        }
+        size++;
+        processesByName.computeIfAbsent(processInfo.getProcessName(), name -> new LinkedHashSet<>()).add(processInfo);
+        enqueue(entry, currentRound);
+        return true;
+    }
+
+    /**
+     * Gets the process with an id. If several processes have the id, the one registered first is returned.
+     *
+     * @param processId the id to look up.
+     * @return the first registered process with the id, or null if there is none.
+     */
+    public ProcessInfo get(int processId) {
+        Entry entry = entries.get(processId);
+        return (entry == null) ? null : entry.processInfo;
+    }
+
+    /**
+     * Gets the process with an id and priority.
+     *
+     * @param processId the id to look up.
+     * @param priority the priority to look up.
+     * @return the registered process with the id and priority, or null if there is none.
+     */
+    public ProcessInfo get(int processId, int priority) {
+        Entry entry = find(processId, priority);
+        return (entry == null) ? null : entry.processInfo;
+    }
+
+    /**
+     * Gets the processes with an id.
+     *
+     * @param processId the id to look up.
+     * @return the registered processes with the id, in the order they were added (empty if there are none).
+     */
+    public List<ProcessInfo> getAll(int processId) {
+        List<ProcessInfo> processes = new ArrayList<>(1);
+        for (Entry entry = entries.get(processId); entry != null; entry = entry.sameId) {
+            processes.add(entry.processInfo);
+        }
+        return processes;
+    }
+
+    /**
+     * Checks if a process with an id is registered.
+     *
+     * @param processId the id to look up.
+     * @return true if a process with the id is registered, otherwise false.
+     */
+    public boolean contains(int processId) {
+        return entries.contains(processId);
+    }
+
+    /**
+     * Gets the processes with a name.
+     *
+     * @param processName the name to look up.
+     * @return the registered processes with the name, in the order they were added (empty if there are none).
+     */
+    public List<ProcessInfo> getByName(String processName) {
+        Set<ProcessInfo> processes = processesByName.get(processName);
+        return (processes == null) ? List.of() : new ArrayList<>(processes);
+    }
+
+    /**
+     * Removes the process with an id from every index. If several processes have the id, the one registered first is
+     * removed.
+     *
+     * @param processId the id of the process to remove.
+     * @return the removed process, or null if there was no process with the id.
+     */
+    public ProcessInfo remove(int processId) {
+        Entry entry = entries.get(processId);
+        if (entry == null) return null;
+        unregister(entry);
+        return entry.processInfo;
+    }
+
+    /**
+     * Removes a process from every index.
+     *
+     * @param processInfo the process to remove.
+     * @return true if the process was registered and has been removed, otherwise false.
+     */
+    public boolean remove(ProcessInfo processInfo) {
+        Entry entry = find(processInfo);
+        if (entry == null) return false;
+        unregister(entry);
+        return true;
+    }
+
+    /**
+     * Changes the priority of the process with an id, moving it to its new place in its round in O(log n). If several
+     * processes have the id, the one registered first is changed.
+     *
+     * @param processId the id of the process.
+     * @param newPriority the new priority.
+     * @return true if the process is registered and has the new priority, false if there is no process with the id or
+     *         another process with the id already has the new priority.
+     */
+    public boolean reprioritize(int processId, int newPriority) {
+        Entry entry = entries.get(processId);
+        return entry != null && reprioritize(entry, newPriority);
+    }
+
+    /**
+     * Changes the priority of a registered process, moving it to its new place in its round in O(log n).
+     *
+     * @param processInfo the process.
+     * @param newPriority the new priority.
+     * @return true if the process is registered and has the new priority, false if it is not registered or another
+     *         process with its id already has the new priority.
+     */
+    public boolean reprioritize(ProcessInfo processInfo, int newPriority) {
+        Entry entry = find(processInfo);
+        return entry != null && reprioritize(entry, newPriority);
+    }
+
+    /**
+     * Raises the priority of every queued process that has been waiting longer than a threshold, so that processes with
+     * a high priority value are not starved by a steady stream of more urgent ones.
+     * <p>
+     * A process has been waiting since it was last queued (added, or requeued after a time slice) or last aged, as
+     * measured on its own clock. Its priority value is lowered by the boost, but not below 0, and its wait starts over,
+     * so a process keeps gaining priority by the boost for every threshold it waits. A process whose new priority is
+     * already held by another process with its id is not aged this time, but its wait starts over too. The queued
+     * processes are kept in the order they started waiting, which is the order of their waiting times as long as they
+     * share one clock, so aging only visits the k processes due and takes O(k log n) however many processes are queued,
+     * or O(1) when none are due.
+     *
+     * @param waitThreshold the time a process may wait before it is aged, in nanoseconds, at least 0.
+     * @param boost the amount to lower the priority value by, at least 1.
+     * @return the number of processes whose priority was raised.
+     */
+    public int age(long waitThreshold, int boost) {
+        return age(waitThreshold, boost, (processInfo, newPriority) -> {});
+    }
+
+    /**
+     * Ages the queued processes like {@link #age(long, int)}, performing an action just before each priority is raised,
+     * such as logging the change. If the action throws, that process keeps its priority and aging stops.
+     *
+     * @param waitThreshold the time a process may wait before it is aged, in nanoseconds, at least 0.
+     * @param boost the amount to lower the priority value by, at least 1.
+     * @param beforeAging the action to perform with each process about to be aged and its new priority.
+     * @return the number of processes whose priority was raised.
+     */
+    public int age(long waitThreshold, int boost, ObjIntConsumer<ProcessInfo> beforeAging) {
+        if (waitThreshold < 0) throw new IllegalArgumentException("The wait threshold must not be negative");
+        if (boost < 1) throw new IllegalArgumentException("The boost must be at least 1");
+        int aged = 0;
+        // Processes aged here are queued again at the end, so the walk stops after the last one waiting when it began
+        Entry last = newest;
+        while (oldest != null) {
+            Entry entry = oldest;
+            long now = entry.processInfo.getProcessClock().nanoTime();
+            if (now - entry.queuedSince <= waitThreshold) break;
+            int priority = entry.processInfo.getProcessPriority();
+            int newPriority = Math.max(0, priority - boost);
+            if (priority > 0 && find(entry.processInfo.getProcessId(), newPriority) == null) {
+                beforeAging.accept(entry.processInfo, newPriority);
+                move(entry, newPriority);
+                aged++;
+            }
+            unlink(entry);
+            link(entry, now);
+            if (entry == last) break;
+        }
+        return aged;
+    }
+
+    /**
+     * Gets the process at the front of the current round without removing it.
+     *
+     * @return the process with the lowest priority value (and lowest id among those), or null if the current round is
+     *         empty.
+     */
+    public ProcessInfo peekFirst() {
+        return currentRound.isEmpty() ? null : currentRound.first();
+    }
+
+    /**
+     * Removes the process at the front of the current round from every index.
+     *
+     * @return the process with the lowest priority value (and lowest id among those), or null if the current round is
+     *         empty.
+     */
+    public ProcessInfo pollFirst() {
+        ProcessInfo processInfo = takeFirst();
+        if (processInfo != null) unregister(find(processInfo));
+        return processInfo;
+    }
+
+    /**
+     * Takes the process at the front of the current round out of its round, to run a time slice. The process stays
+     * registered until it is requeued or removed.
+     *
+     * @return the process with the lowest priority value (and lowest id among those), or null if the current round is
+     *         empty.
+     */
+    public ProcessInfo takeFirst() {
+        ProcessInfo processInfo = currentRound.pollFirst();
+        if (processInfo == null) return null;
+        Entry entry = find(processInfo);
+        entry.round = null;
+        unlink(entry);
+        return processInfo;
+    }
+
+    /**
+     * Queues a process taken from the current round for the next round.
+     *
+     * @param processInfo the process.
+     * @return true if the process was queued, false if it is not registered or is already queued.
+     */
+    public boolean requeue(ProcessInfo processInfo) {
+        Entry entry = find(processInfo);
+        if (entry == null || entry.round != null) return false;
+        enqueue(entry, nextRound);
+        return true;
+    }
+
+    /**
+     * Starts the next round once the current round has run out: the processes waiting for the next round now wait for
+     * the current one.
+     *
+     * @return true if a round was started, false if the current round still has processes or there are none waiting.
+     */
+    public boolean startNextRound() {
+        if (!currentRound.isEmpty() || nextRound.isEmpty()) return false;
+        AVLTree<ProcessInfo> finished = currentRound;
+        currentRound = nextRound;
+        nextRound = finished;
+        return true;
+    }
+
+    /**
+     * Gets a read-only view of the processes of the current round in priority order.
+     *
+     * @return an unmodifiable view of the current round.
+     */
+    public NavigableSet<ProcessInfo> getQueue() {
+        return Collections.unmodifiableNavigableSet(currentRound);
+    }
+
+    /**
+     * Gets an iterator over the queued processes in the order they will run: the current round and then the next
+     * round, each in priority order. The iterator does not support removal.
+     *
+     * @return the iterator.
+     */
+    @Override
+    public Iterator<ProcessInfo> iterator() {
+        return Stream.concat(getQueue().stream(), Collections.unmodifiableNavigableSet(nextRound).stream()).iterator();
+    }
+
+    /**
+     * Gets every registered process, including any taken out of their round, in priority order.
+     *
+     * @return a new tree holding the processes.
+     */
+    public AVLTree<ProcessInfo> getProcesses() {
+        List<ProcessInfo> processes = new ArrayList<>(size);
+        entries.forEachValue(first -> {
+            for (Entry entry = first; entry != null; entry = entry.sameId) processes.add(entry.processInfo);
+        });
+        return new AVLTree<>(processes);
+    }
+
+    /**
+     * Gets the number of registered processes, including any taken out of their round.
+     *
+     * @return the number of processes.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of processes waiting for the current or the next round.
+     *
+     * @return the number of queued processes.
+     */
+    public int getQueuedCount() {
+        return currentRound.size() + nextRound.size();
+    }
+
+    /**
+     * Checks if the registry is empty.
+     *
+     * @return true if no processes are registered, otherwise false.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Finds the entry of a registered process.
+     *
+     * @param processInfo the process.
+     * @return the entry of the process, or null if it is not registered.
+     */
+    private Entry find(ProcessInfo processInfo) {
+        Entry entry = entries.get(processInfo.getProcessId());
+        while (entry != null && entry.processInfo != processInfo) entry = entry.sameId;
+        return entry;
+    }
+
+    /**
+     * Finds the entry of the registered process with an id and priority.
+     *
+     * @param processId the id of the process.
+     * @param priority the priority of the process.
+     * @return the entry of the process, or null if there is none.
+     */
+    private Entry find(int processId, int priority) {
+        Entry entry = entries.get(processId);
+        while (entry != null && entry.processInfo.getProcessPriority() != priority) entry = entry.sameId;
+        return entry;
+    }
+
+    /**
+     * Changes the priority of a registered process, unless another process with its id already has that priority.
+     *
+     * @param entry the entry of the process.
+     * @param newPriority the new priority.
+     * @return true if the process has the new priority, otherwise false.
+     */
+    private boolean reprioritize(Entry entry, int newPriority) {
+        if (entry.processInfo.getProcessPriority() == newPriority) return true;
+        if (find(entry.processInfo.getProcessId(), newPriority) != null) return false;
+        move(entry, newPriority);
+        return true;
+    }
+
+    /**
+     * Removes a registered process from every index.
+     *
+     * @param entry the entry of the process.
+     */
+    private void unregister(Entry entry) {
+        ProcessInfo processInfo = entry.processInfo;
+        if (entry.round != null) {
+            entry.round.delete(processInfo);
+            unlink(entry);
+        }
+        Entry first = entries.get(processInfo.getProcessId());
+        if (first == entry) {
+            if (entry.sameId == null) entries.remove(processInfo.getProcessId());
+            else entries.put(processInfo.getProcessId(), entry.sameId);
+        } else {
+            Entry previous = first;
+            while (previous.sameId != entry) previous = previous.sameId;
+            previous.sameId = entry.sameId;
+        }
+        size--;
+        Set<ProcessInfo> processes = processesByName.get(processInfo.getProcessName());
+        if (processes != null && processes.remove(processInfo) && processes.isEmpty())
+            processesByName.remove(processInfo.getProcessName());
+    }
+
+    /**
+     * Queues a process for a round, as the process that has waited least.
+     *
+     * @param entry the entry of the process, which is in no round.
+     * @param round the round to queue it for.
+     */
+    private void enqueue(Entry entry, AVLTree<ProcessInfo> round) {
+        round.insert(entry.processInfo);
+        entry.round = round;
+        link(entry, entry.processInfo.getProcessClock().nanoTime());
+    }
+
+    /**
+     * Changes the priority of a process, which must leave its round before its place in the order changes.
+     *
+     * @param entry the entry of the process.
+     * @param newPriority the new priority.
+     */
+    private void move(Entry entry, int newPriority) {
+        if (entry.round != null) entry.round.delete(entry.processInfo);
+        entry.processInfo.setProcessPriority(newPriority);
+        if (entry.round != null) entry.round.insert(entry.processInfo);
+    }
+
+    /**
+     * Links a queued process at the end of the waiting list.
+     *
+     * @param entry the entry of the process.
+     * @param queuedSince the time the process starts waiting, on its clock.
+     */
+    private void link(Entry entry, long queuedSince) {
+        entry.queuedSince = queuedSince;
+        entry.older = newest;
+        entry.newer = null;
+        if (newest == null) oldest = entry;
+        else newest.newer = entry;
+        newest = entry;
+    }
+
+    /**
+     * Unlinks a process from the waiting list.
+     *
+     * @param entry the entry of the process.
+     */
+    private void unlink(Entry entry) {
+        if (entry.older == null) oldest = entry.newer;
+        else entry.older.newer = entry.newer;
+        if (entry.newer == null) newest = entry.older;
+        else entry.newer.older = entry.older;
+        entry.older = null;
+        entry.newer = null;
+    }
+
+    /**
+     * Represents a registered process, with the round it is queued for, its place in the waiting list and the next
+     * registered process with the same id.
+     */
+    private static final class Entry {
+        private final ProcessInfo processInfo;
+        private AVLTree<ProcessInfo> round;
+        private long queuedSince;
+        private Entry older;
+        private Entry newer;
+        private Entry sameId;
+
+        /**
+         * Constructs the entry of a process that is not queued yet.
+         *
+         * @param processInfo the process.
+         */
+        Entry(ProcessInfo processInfo) {
+            this.processInfo = processInfo;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves and restores an AVLTree of processes using a compact binary snapshot format.
+ * <p>
+ * A snapshot starts with a header (magic number, format version, record count and name count), followed by a string
+ * table holding each distinct process name once (length-prefixed UTF-8), followed by one fixed-width record per process
+ * in ascending tree order: name index, id, priority, remaining runtime, start time, end time and elapsed time. Times
+ * are in nanoseconds. Because the records are sorted, restoring builds the tree directly in linear time. The counts and
+ * name lengths in a snapshot are checked against the size of the file before anything is allocated for them, so a
+ * corrupt snapshot fails with an IOException rather than running out of memory.
+ * <p>
+ * Files are streamed through a FileChannel with a fixed-size buffer. A snapshot is written to a temporary file first
+ * and then moved over the target, so an existing snapshot is never left half written.
+ */
+public class ProcessSnapshot {
+    private static final int MAGIC = 0x5054534E;
+    private static final int VERSION = 2;
+    private static final int RECORD_SIZE = 4 * Integer.BYTES + 3 * Long.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private ProcessSnapshot() {}
+
+    /**
+     * Saves a tree of processes to a snapshot file.
+     *
+     * @param tree the tree to save.
+     * @param file the snapshot file, replaced if it exists.
+     * @throws IOException if the snapshot can not be written.
+     */
+    public static void save(AVLTree<ProcessInfo> tree, Path file) throws IOException {
+        Map<String, Integer> nameIndexes = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (ProcessInfo processInfo : tree) {
+            if (nameIndexes.putIfAbsent(processInfo.getProcessName(), names.size()) == null)
+                names.add(processInfo.getProcessName());
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(tree.size()).putInt(names.size());
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                ensureRemaining(channel, buffer, Integer.BYTES);
+                buffer.putInt(bytes.length);
+                for (int offset = 0; offset < bytes.length;) {
+                    ensureRemaining(channel, buffer, 1);
+                    int length = Math.min(buffer.remaining(), bytes.length - offset);
+                    buffer.put(bytes, offset, length);
+                    offset += length;
+                }
+            }
+            for (ProcessInfo processInfo : tree) {
+                ensureRemaining(channel, buffer, RECORD_SIZE);
+                buffer.putInt(nameIndexes.get(processInfo.getProcessName()))
+                        .putInt(processInfo.getProcessId())
+                        .putInt(processInfo.getProcessPriority())
+                        .putInt(processInfo.getProcessRemainingRuntime())
+                        .putLong(processInfo.getProcessStartTime())
+                        .putLong(processInfo.getProcessEndTime())
+                        .putLong(processInfo.getProcessElapsedTime());
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores a tree of processes from a snapshot file.
+     *
+     * @param file the snapshot file.
+     * @return a new balanced tree holding the processes in the snapshot.
+     * @throws IOException if the snapshot can not be read or is not a valid snapshot.
+     */
+    public static AVLTree<ProcessInfo> load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.flip();
+            fill(channel, buffer, 4 * Integer.BYTES);
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a process snapshot: " + file);
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported process snapshot version: " + version);
+            int count = buffer.getInt();
+            int nameCount = buffer.getInt();
+            // Every name takes at least its length prefix and every record its fixed width; the rest holds name bytes
+            long nameBytes = channel.size() - 4L * Integer.BYTES - (long) nameCount * Integer.BYTES
+                    - (long) count * RECORD_SIZE;
+            if (count < 0 || nameCount < 0 || nameBytes < 0) throw corrupt(file);
+
+            String[] names = new String[nameCount];
+            for (int i = 0; i < nameCount; i++) {
+                fill(channel, buffer, Integer.BYTES);
+                int nameLength = buffer.getInt();
+                if (nameLength < 0 || nameLength > nameBytes) throw corrupt(file);
+                nameBytes -= nameLength;
+                byte[] bytes = new byte[nameLength];
+                for (int offset = 0; offset < bytes.length;) {
+                    fill(channel, buffer, 1);
+                    int length = Math.min(buffer.remaining(), bytes.length - offset);
+                    buffer.get(bytes, offset, length);
+                    offset += length;
+                }
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            ProcessInfo[] processes = new ProcessInfo[count];
+            for (int i = 0; i < count; i++) {
+                fill(channel, buffer, RECORD_SIZE);
+                int nameIndex = buffer.getInt();
+                if (nameIndex < 0 || nameIndex >= nameCount) throw corrupt(file);
+                ProcessInfo processInfo = new ProcessInfo(names[nameIndex], buffer.getInt(), buffer.getInt(), buffer.getInt());
+                processInfo.setProcessStartTime(buffer.getLong());
+                processInfo.setProcessEndTime(buffer.getLong());
+                processInfo.setProcessElapsedTime(buffer.getLong());
+                processes[i] = processInfo;
+            }
+            return new AVLTree<>(processes);
+        }
+    }
+
+    /**
+     * Creates the exception reported for a snapshot whose contents are inconsistent.
+     *
+     * @param file the snapshot file.
+     * @return the exception.
+     */
+    private static IOException corrupt(Path file) {
+        return new IOException("Corrupt process snapshot: " + file);
+    }
+
+    /**
+     * Makes room in the write buffer, flushing it to the channel if fewer than the needed bytes are free.
+     *
+     * @param channel the channel being written.
+     * @param buffer the write buffer.
+     * @param needed the number of bytes about to be written.
+     * @throws IOException if the buffer can not be flushed.
+     */
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() < needed) flush(channel, buffer);
+    }
+
+    /**
+     * Writes the contents of the write buffer to the channel and clears it.
+     *
+     * @param channel the channel being written.
+     * @param buffer the write buffer.
+     * @throws IOException if the buffer can not be written.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Makes sure the read buffer holds at least the needed number of unread bytes, reading more from the channel.
+     *
+     * @param channel the channel being read.
+     * @param buffer the read buffer, in read mode.
+     * @param needed the number of bytes about to be read.
+     * @throws IOException if the channel ends before enough bytes are read.
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) return;
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) throw new EOFException("Truncated process snapshot");
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a discrete-event clock for simulating process execution.
+ * Time only moves when a process sleeps (or the clock is advanced explicitly), and it moves instantly, so simulated
+ * elapsed times are exact to the nanosecond and independent of how fast the machine is.
+ */
+public class SimulatedProcessClock implements ProcessClock {
+    private final AtomicLong now;
+
+    /**
+     * Constructs a clock starting at time 0.
+     */
+    public SimulatedProcessClock() {
+        this(0);
+    }
+
+    /**
+     * Constructs a clock starting at a given time.
+     *
+     * @param startNanos the starting time in nanoseconds.
+     */
+    public SimulatedProcessClock(long startNanos) {
+        now = new AtomicLong(startNanos);
+    }
+
+    /**
+     * Gets the current simulated time.
+     *
+     * @return the current time in nanoseconds.
+     */
+    @Override
+    public long nanoTime() {
+        return now.get();
+    }
+
+    /**
+     * Moves the simulated time forward without waiting.
+     *
+     * @param millis the number of milliseconds to pass.
+     */
+    @Override
+    public void sleep(long millis) {
+        advance(millis * 1_000_000L);
+    }
+
+    /**
+     * Moves the simulated time forward.
+     *
+     * @param nanos the number of nanoseconds to pass.
+     * @return the new time in nanoseconds.
+     */
+    public long advance(long nanos) {
+        if (nanos < 0) throw new IllegalArgumentException("Time can not move backwards");
+        return now.addAndGet(nanos);
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Collection;
+
 /**
  * Represents a tree interface.
  *
@@ -13,4 +15,32 @@ public interface Tree<E> extends Iterable<E> {
     int getSize();
     boolean isEmpty();
 
+    /**
+     * Inserts a batch of elements. Elements already in the tree are left in place.
+     * Trees that can merge a sorted batch in one pass override this to avoid a full descent per element.
+     *
+     * @param elements the elements to be inserted.
+     * @return the number of elements inserted.
+     */
+    default int insertAll(Collection<? extends E> elements) {
+        int inserted = 0;
+        for (E e : elements) {
+            if (insert(e)) inserted++;
+        }
+        return inserted;
+    }
+
+    /**
+     * Deletes a batch of elements. Elements not in the tree are ignored.
+     *
+     * @param elements the elements to be deleted.
+     * @return the number of elements deleted.
+     */
+    default int deleteAll(Collection<? extends E> elements) {
+        int deleted = 0;
+        for (E e : elements) {
+            if (delete(e)) deleted++;
+        }
+        return deleted;
+    }
 }
\ No newline at end of file
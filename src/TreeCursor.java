@@ -0,0 +1,110 @@
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents a reusable cursor over the elements of a BST (or AVLTree), in either direction.
+ * <p>
+ * The cursor keeps the path from the root to its current node in an array that grows with the height of the tree and
+ * is then reused, so positioning and moving the cursor allocate nothing and take no locks. Moving to the next or
+ * previous element takes amortized O(1) time during a full traversal, and seeking takes O(height).
+ * <p>
+ * A cursor is fail-fast: once positioned, moving it or reading its element after the tree has been modified throws a
+ * ConcurrentModificationException. Positioning it again (or resetting it) makes it usable again.
+ *
+ * @param <E> the type of the elements in the tree.
+ */
+public class TreeCursor<E extends Comparable<E>> extends TreePath<E> {
+    /**
+     * Constructs an unpositioned cursor over a tree.
+     *
+     * @param tree the tree to traverse.
+     */
+    TreeCursor(BST<E> tree) {
+        super(tree);
+    }
+
+    /**
+     * Moves the cursor to the smallest element.
+     *
+     * @return true if the cursor is positioned, false if the tree is empty.
+     */
+    public boolean first() {
+        return toFirst();
+    }
+
+    /**
+     * Moves the cursor to the largest element.
+     *
+     * @return true if the cursor is positioned, false if the tree is empty.
+     */
+    public boolean last() {
+        return toLast();
+    }
+
+    /**
+     * Moves the cursor to the smallest element greater than or equal to a key, for a forward traversal from the key.
+     *
+     * @param key the key to seek.
+     * @return true if the cursor is positioned, false if every element is less than the key.
+     */
+    public boolean seekCeiling(E key) {
+        return seek(key, true, true);
+    }
+
+    /**
+     * Moves the cursor to the largest element less than or equal to a key, for a reverse traversal from the key.
+     *
+     * @param key the key to seek.
+     * @return true if the cursor is positioned, false if every element is greater than the key.
+     */
+    public boolean seekFloor(E key) {
+        return seek(key, false, true);
+    }
+
+    /**
+     * Moves the cursor to the next larger element.
+     *
+     * @return true if the cursor is positioned, false if it moved past the largest element.
+     * @throws ConcurrentModificationException if the tree was modified since the cursor was positioned.
+     */
+    public boolean next() {
+        return step(true);
+    }
+
+    /**
+     * Moves the cursor to the next smaller element.
+     *
+     * @return true if the cursor is positioned, false if it moved past the smallest element.
+     * @throws ConcurrentModificationException if the tree was modified since the cursor was positioned.
+     */
+    public boolean previous() {
+        return step(false);
+    }
+
+    /**
+     * Checks if the cursor is positioned at an element.
+     *
+     * @return true if the cursor is at an element, otherwise false.
+     */
+    public boolean isValid() {
+        return isPositioned();
+    }
+
+    /**
+     * Gets the element the cursor is positioned at.
+     *
+     * @return the current element.
+     * @throws NoSuchElementException if the cursor is not positioned.
+     * @throws ConcurrentModificationException if the tree was modified since the cursor was positioned.
+     */
+    public E get() {
+        return current();
+    }
+
+    /**
+     * Unpositions the cursor and releases the nodes it refers to, keeping its path array for reuse.
+     */
+    public void reset() {
+        clear();
+    }
+}
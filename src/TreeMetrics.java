@@ -0,0 +1,340 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Collects opt-in metrics about the operations on one tree: comparisons, rotations, iterated elements and operation
+ * latencies.
+ * <p>
+ * Metrics are only collected when the JVM is started with {@code -Dtree.metrics=true}. Every collection point is
+ * guarded by the static final {@link #ENABLED} flag, so when metrics are off the JIT compiler folds the guard away and
+ * the tree code runs as if it were not instrumented; trees then do not even create their metrics. When on, each tree
+ * has its own TreeMetrics, whose counts go to LongAdders (striped, so threads updating them do not contend) and
+ * latencies to histograms with power-of-two nanosecond buckets.
+ * <p>
+ * {@link #register(String, BST)} publishes the metrics, along with the size and height of a tree, as an MXBean. Any BST
+ * can be registered; an unbalanced BST computes its height on each read, and only collects comparisons and latencies.
+ */
+public final class TreeMetrics {
+    /**
+     * Whether metrics are collected, read once from the tree.metrics system property.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("tree.metrics");
+
+    final LongAdder comparisons = new LongAdder();
+    final LongAdder rotationsLL = new LongAdder();
+    final LongAdder rotationsLR = new LongAdder();
+    final LongAdder rotationsRR = new LongAdder();
+    final LongAdder rotationsRL = new LongAdder();
+    final LongAdder iterated = new LongAdder();
+    final LatencyHistogram insert = new LatencyHistogram();
+    final LatencyHistogram delete = new LatencyHistogram();
+    final LatencyHistogram search = new LatencyHistogram();
+
+    /**
+     * Constructs the metrics of a tree, with every count at zero.
+     */
+    TreeMetrics() {}
+
+    /**
+     * Creates the metrics of a new tree.
+     *
+     * @return new metrics if metrics are enabled, otherwise null.
+     */
+    static TreeMetrics create() {
+        return ENABLED ? new TreeMetrics() : null;
+    }
+
+    /**
+     * Resets every count and latency histogram to zero.
+     */
+    void reset() {
+        comparisons.reset();
+        rotationsLL.reset();
+        rotationsLR.reset();
+        rotationsRR.reset();
+        rotationsRL.reset();
+        iterated.reset();
+        insert.reset();
+        delete.reset();
+        search.reset();
+    }
+
+    /**
+     * Registers an MXBean publishing the metrics and the size and height of a tree.
+     * The MXBean keeps the tree reachable until it is unregistered.
+     *
+     * @param name the name of the tree, used in the object name.
+     * @param tree the tree to monitor.
+     * @return the object name the MXBean was registered under.
+     * @throws JMException if the MXBean can not be registered.
+     */
+    public static ObjectName register(String name, BST<?> tree) throws JMException {
+        ObjectName objectName = new ObjectName("TreeMetrics:type=" + tree.getClass().getSimpleName() + ",name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new View(tree), objectName);
+        return objectName;
+    }
+
+    /**
+     * Unregisters an MXBean registered by {@link #register(String, BST)}.
+     *
+     * @param objectName the object name of the MXBean.
+     * @throws JMException if the MXBean can not be unregistered.
+     */
+    public static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    /**
+     * Represents a histogram of latencies. Bucket i counts latencies of less than 2^i nanoseconds (and at least
+     * 2^(i-1) for i &gt; 0).
+     */
+    static final class LatencyHistogram {
+        private static final int BUCKETS = 48;
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder totalNanos = new LongAdder();
+
+        /**
+         * Constructs an empty histogram.
+         */
+        LatencyHistogram() {
+            for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+        }
+
+        /**
+         * Records a latency.
+         *
+         * @param nanos the latency in nanoseconds.
+         */
+        void record(long nanos) {
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+            buckets[bucket].increment();
+            totalNanos.add(nanos);
+        }
+
+        /**
+         * Gets the bucket counts.
+         *
+         * @return a new array of the count in each bucket.
+         */
+        long[] counts() {
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) counts[i] = buckets[i].sum();
+            return counts;
+        }
+
+        /**
+         * Gets the number of latencies recorded.
+         *
+         * @return the number of latencies.
+         */
+        long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) count += bucket.sum();
+            return count;
+        }
+
+        /**
+         * Gets the mean latency.
+         *
+         * @return the mean latency in nanoseconds, or 0 if none were recorded.
+         */
+        double mean() {
+            long count = count();
+            return (count == 0) ? 0 : (double) totalNanos.sum() / count;
+        }
+
+        /**
+         * Gets an upper bound on a percentile of the latencies.
+         *
+         * @param percentile the percentile, between 0 and 100.
+         * @return the upper bound of the bucket holding the percentile, in nanoseconds, or 0 if none were recorded.
+         */
+        long percentile(double percentile) {
+            long[] counts = counts();
+            long count = 0;
+            for (long c : counts) count += c;
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return 1L << i;
+            }
+            return 1L << (BUCKETS - 1);
+        }
+
+        /**
+         * Resets the histogram to empty.
+         */
+        void reset() {
+            for (LongAdder bucket : buckets) bucket.reset();
+            totalNanos.reset();
+        }
+    }
+
+    /**
+     * Represents the MXBean publishing the metrics of one tree.
+     */
+    private static final class View implements TreeMetricsMXBean {
+        private final BST<?> tree;
+        private final TreeMetrics metrics;
+
+        /**
+         * Constructs the MXBean. If metrics are disabled the tree has none, and the counts published stay at zero.
+         *
+         * @param tree the tree to monitor.
+         */
+        View(BST<?> tree) {
+            this.tree = tree;
+            this.metrics = (tree.metrics != null) ? tree.metrics : new TreeMetrics();
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return ENABLED;
+        }
+
+        @Override
+        public long getComparisons() {
+            return metrics.comparisons.sum();
+        }
+
+        @Override
+        public long getRotationsLL() {
+            return metrics.rotationsLL.sum();
+        }
+
+        @Override
+        public long getRotationsLR() {
+            return metrics.rotationsLR.sum();
+        }
+
+        @Override
+        public long getRotationsRR() {
+            return metrics.rotationsRR.sum();
+        }
+
+        @Override
+        public long getRotationsRL() {
+            return metrics.rotationsRL.sum();
+        }
+
+        @Override
+        public long getIteratedElements() {
+            return metrics.iterated.sum();
+        }
+
+        @Override
+        public long getInsertCount() {
+            return metrics.insert.count();
+        }
+
+        @Override
+        public double getInsertMeanNanos() {
+            return metrics.insert.mean();
+        }
+
+        @Override
+        public long getInsertP99Nanos() {
+            return metrics.insert.percentile(99);
+        }
+
+        @Override
+        public long[] getInsertLatencyHistogram() {
+            return metrics.insert.counts();
+        }
+
+        @Override
+        public long getDeleteCount() {
+            return metrics.delete.count();
+        }
+
+        @Override
+        public double getDeleteMeanNanos() {
+            return metrics.delete.mean();
+        }
+
+        @Override
+        public long getDeleteP99Nanos() {
+            return metrics.delete.percentile(99);
+        }
+
+        @Override
+        public long[] getDeleteLatencyHistogram() {
+            return metrics.delete.counts();
+        }
+
+        @Override
+        public long getSearchCount() {
+            return metrics.search.count();
+        }
+
+        @Override
+        public double getSearchMeanNanos() {
+            return metrics.search.mean();
+        }
+
+        @Override
+        public long getSearchP99Nanos() {
+            return metrics.search.percentile(99);
+        }
+
+        @Override
+        public long[] getSearchLatencyHistogram() {
+            return metrics.search.counts();
+        }
+
+        @Override
+        public int getSize() {
+            return tree.getSize();
+        }
+
+        @Override
+        public int getHeight() {
+            return tree.height();
+        }
+
+        /**
+         * Gets the smallest height any binary tree of the current size can have, floor(log2(size)).
+         *
+         * @return the minimum height, or -1 for an empty tree.
+         */
+        @Override
+        public int getMinimumHeight() {
+            int size = tree.getSize();
+            return (size == 0) ? -1 : 31 - Integer.numberOfLeadingZeros(size);
+        }
+
+        /**
+         * Gets the largest height the tree can have at its current size: about 1.44 * log2(size + 2) - 1.33 for an AVL
+         * tree, and size - 1 for an unbalanced BST.
+         *
+         * @return the maximum height, or -1 for an empty tree.
+         */
+        @Override
+        public int getMaximumHeight() {
+            int size = tree.getSize();
+            if (size == 0) return -1;
+            if (!(tree instanceof AVLTree)) return size - 1;
+            // The sparsest AVL tree of height h has N(h) = N(h - 1) + N(h - 2) + 1 nodes
+            long sparsest = 1;
+            long previous = 0;
+            int height = 0;
+            while (true) {
+                long next = sparsest + previous + 1;
+                if (next > size) return height;
+                previous = sparsest;
+                sparsest = next;
+                height++;
+            }
+        }
+
+        @Override
+        public void reset() {
+            metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Represents the management interface publishing the metrics of a monitored tree through JMX.
+ * The counters, latency histograms and gauges all describe the monitored tree alone.
+ */
+public interface TreeMetricsMXBean {
+    /**
+     * Checks if metrics are being collected (the tree.metrics system property was true at startup).
+     *
+     * @return true if metrics are collected, otherwise false.
+     */
+    boolean isEnabled();
+
+    long getComparisons();
+    long getRotationsLL();
+    long getRotationsLR();
+    long getRotationsRR();
+    long getRotationsRL();
+    long getIteratedElements();
+
+    long getInsertCount();
+    double getInsertMeanNanos();
+    long getInsertP99Nanos();
+    long[] getInsertLatencyHistogram();
+
+    long getDeleteCount();
+    double getDeleteMeanNanos();
+    long getDeleteP99Nanos();
+    long[] getDeleteLatencyHistogram();
+
+    long getSearchCount();
+    double getSearchMeanNanos();
+    long getSearchP99Nanos();
+    long[] getSearchLatencyHistogram();
+
+    int getSize();
+    int getHeight();
+    int getMinimumHeight();
+    int getMaximumHeight();
+
+    /**
+     * Resets the counters and latency histograms of the monitored tree to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,178 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents a path from the root of a BST (or AVLTree) down to one of its nodes, which can be moved to the next or
+ * previous element in order. This is the traversal shared by TreeCursor and the iterators of BST and AVLTree.
+ * <p>
+ * The path is kept in an array that grows with the height of the tree and is then reused, so positioning and moving
+ * allocate nothing. Moving to the next or previous element takes amortized O(1) time during a full traversal, and
+ * seeking takes O(height). The path remembers the tree's modification count when it is positioned, so its owner can
+ * fail fast if the tree is modified behind it.
+ *
+ * @param <E> the type of the elements in the tree.
+ */
+abstract class TreePath<E extends Comparable<E>> {
+    private final BST<E> tree;
+    @SuppressWarnings("unchecked")
+    private TreeNode<E>[] path = (TreeNode<E>[]) new TreeNode<?>[32];
+    private int depth;
+    private int expectedModCount;
+
+    /**
+     * Constructs an empty path over a tree.
+     *
+     * @param tree the tree to traverse.
+     */
+    TreePath(BST<E> tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Moves the path to the smallest element.
+     *
+     * @return true if the path is positioned, false if the tree is empty.
+     */
+    final boolean toFirst() {
+        start();
+        for (TreeNode<E> current = tree.root; current != null; current = current.left) push(current);
+        return depth > 0;
+    }
+
+    /**
+     * Moves the path to the largest element.
+     *
+     * @return true if the path is positioned, false if the tree is empty.
+     */
+    final boolean toLast() {
+        start();
+        for (TreeNode<E> current = tree.root; current != null; current = current.right) push(current);
+        return depth > 0;
+    }
+
+    /**
+     * Moves the path to the first element at or past a key in a direction: for a forward traversal the smallest element
+     * greater than (or equal to) the key, and for a reverse traversal the largest element less than (or equal to) it.
+     *
+     * @param key the key to seek.
+     * @param forward whether to seek for a forward traversal.
+     * @param inclusive whether an element equal to the key may be the result.
+     * @return true if the path is positioned, false if no element lies past the key in that direction.
+     */
+    final boolean seek(E key, boolean forward, boolean inclusive) {
+        start();
+        int found = 0;
+        TreeNode<E> current = tree.root;
+        while (current != null) {
+            push(current);
+            int cmp = key.compareTo(current.element);
+            if (cmp == 0 && inclusive) return true;
+            if (forward ? cmp < 0 : cmp > 0) {
+                found = depth;
+                current = forward ? current.left : current.right;
+            } else {
+                current = forward ? current.right : current.left;
+            }
+        }
+        depth = found;
+        return depth > 0;
+    }
+
+    /**
+     * Moves the path to the next element in a direction.
+     *
+     * @param forward whether to move to the next larger element rather than the next smaller one.
+     * @return true if the path is positioned, false if it moved past the last element in that direction.
+     * @throws ConcurrentModificationException if the tree was modified since the path was positioned.
+     */
+    final boolean step(boolean forward) {
+        checkForComodification();
+        if (depth == 0) return false;
+        if (TreeMetrics.ENABLED) tree.metrics.iterated.increment();
+        TreeNode<E> node = path[depth - 1];
+        TreeNode<E> child = forward ? node.right : node.left;
+        if (child != null) {
+            for (TreeNode<E> current = child; current != null; current = forward ? current.left : current.right) {
+                push(current);
+            }
+            return true;
+        }
+        while (depth > 1 && (forward ? path[depth - 2].right : path[depth - 2].left) == path[depth - 1]) depth--;
+        depth--;
+        return depth > 0;
+    }
+
+    /**
+     * Checks if the path is positioned at an element.
+     *
+     * @return true if the path ends at an element, otherwise false.
+     */
+    final boolean isPositioned() {
+        return depth > 0;
+    }
+
+    /**
+     * Gets the element the path is positioned at.
+     *
+     * @return the current element.
+     * @throws NoSuchElementException if the path is not positioned.
+     * @throws ConcurrentModificationException if the tree was modified since the path was positioned.
+     */
+    final E current() {
+        checkForComodification();
+        if (depth == 0) throw new NoSuchElementException();
+        return path[depth - 1].element;
+    }
+
+    /**
+     * Unpositions the path and releases the nodes it refers to, keeping its array for reuse.
+     */
+    final void clear() {
+        Arrays.fill(path, null);
+        depth = 0;
+    }
+
+    /**
+     * Checks if the tree has been modified since the path was positioned (or last accepted a modification).
+     *
+     * @return true if the tree was modified, otherwise false.
+     */
+    final boolean isModified() {
+        return tree.modCount != expectedModCount;
+    }
+
+    /**
+     * Accepts the modifications made to the tree so far, for an owner that modified the tree itself.
+     */
+    final void acceptModifications() {
+        expectedModCount = tree.modCount;
+    }
+
+    /**
+     * Prepares a new traversal from the root.
+     */
+    private void start() {
+        depth = 0;
+        expectedModCount = tree.modCount;
+    }
+
+    /**
+     * Pushes a node onto the path, growing the path array if the tree is deeper than it.
+     *
+     * @param node the node to push.
+     */
+    private void push(TreeNode<E> node) {
+        if (depth == path.length) path = Arrays.copyOf(path, depth * 2);
+        path[depth++] = node;
+    }
+
+    /**
+     * Checks that the tree has not been modified since the path was positioned.
+     *
+     * @throws ConcurrentModificationException if the tree was modified.
+     */
+    private void checkForComodification() {
+        if (depth > 0 && isModified()) throw new ConcurrentModificationException();
+    }
+}
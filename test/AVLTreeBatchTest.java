@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests AVLTree.insertAll and deleteAll against adding and removing the same batches on a java.util.TreeSet.
+ */
+class AVLTreeBatchTest {
+    @Test
+    void emptyBatches() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        assertEquals(0, tree.insertAll(List.of()));
+        assertEquals(0, tree.deleteAll(List.of(1, 2)));
+        assertEquals(3, tree.insertAll(List.of(3, 1, 2)));
+        assertEquals(0, tree.deleteAll(List.of()));
+        AVLTreeChecks.assertSameElements(new TreeSet<>(List.of(1, 2, 3)), tree);
+    }
+
+    @Test
+    void duplicatesAndPresentElementsAreNotCounted() {
+        AVLTree<Integer> tree = new AVLTree<>(new Integer[] {2, 4, 6});
+        assertEquals(2, tree.insertAll(List.of(4, 5, 5, 7, 2)));
+        assertEquals(2, tree.deleteAll(List.of(5, 5, 8, 2)));
+        AVLTreeChecks.assertSameElements(new TreeSet<>(List.of(4, 6, 7)), tree);
+    }
+
+    @Test
+    void matchesTreeSetUnderRandomBatches() {
+        Random random = new Random(5);
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int round = 0; round < 200; round++) {
+            List<Integer> batch = randomBatch(random);
+            if (random.nextBoolean()) {
+                int before = expected.size();
+                expected.addAll(batch);
+                assertEquals(expected.size() - before, tree.insertAll(batch));
+            }
+            else {
+                int before = expected.size();
+                expected.removeAll(batch);
+                assertEquals(before - expected.size(), tree.deleteAll(batch));
+            }
+            AVLTreeChecks.assertSameElements(expected, tree);
+        }
+    }
+
+    @Test
+    void sortedBatchIntoLargeTree() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        List<Integer> evens = new ArrayList<>();
+        for (int i = 0; i < 100_000; i += 2) evens.add(i);
+        assertEquals(evens.size(), tree.insertAll(evens));
+        expected.addAll(evens);
+        List<Integer> run = new ArrayList<>();
+        for (int i = 40_000; i < 40_100; i++) run.add(i);
+        tree.insertAll(run);
+        expected.addAll(run);
+        AVLTreeChecks.assertSameElements(expected, tree);
+        assertEquals(run.size(), tree.deleteAll(run));
+        expected.removeAll(run);
+        AVLTreeChecks.assertSameElements(expected, tree);
+    }
+
+    /**
+     * Generates a batch of keys, either spread over the whole key range or clustered in a short run, with duplicates.
+     *
+     * @param random the source of the keys.
+     * @return the batch, in no particular order.
+     */
+    private static List<Integer> randomBatch(Random random) {
+        int length = random.nextInt(200);
+        int base = random.nextInt(2000);
+        int spread = random.nextBoolean() ? 2000 : 50;
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 0; i < length; i++) batch.add((base + random.nextInt(spread)) % 2000);
+        return batch;
+    }
+}
@@ -0,0 +1,66 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Assertions shared by the AVLTree tests, checking a tree's structure and its contents against a java.util set.
+ */
+final class AVLTreeChecks {
+    /**
+     * Not instantiable.
+     */
+    private AVLTreeChecks() {}
+
+    /**
+     * Checks that a tree holds the same elements as a reference set, in the same order, and that its structure is a
+     * valid AVL tree.
+     *
+     * @param expected the reference set.
+     * @param actual the tree to check.
+     * @param <E> the type of the elements.
+     */
+    static <E extends Comparable<E>> void assertSameElements(SortedSet<E> expected, AVLTree<E> actual) {
+        assertValid(actual);
+        assertEquals(expected.size(), actual.size());
+        List<E> elements = new ArrayList<>();
+        for (E e : actual) elements.add(e);
+        assertEquals(new ArrayList<>(expected), elements);
+    }
+
+    /**
+     * Checks that a tree is ordered and balanced, and that the heights and sizes stored in its nodes are correct.
+     *
+     * @param tree the tree to check.
+     * @param <E> the type of the elements.
+     */
+    static <E extends Comparable<E>> void assertValid(AVLTree<E> tree) {
+        assertEquals(tree.size, check(tree.root, null, null)[1], "size");
+    }
+
+    /**
+     * Checks a subtree, recursively.
+     *
+     * @param node the root of the subtree, may be null.
+     * @param low every element of the subtree must be greater than this, or null for no bound.
+     * @param high every element of the subtree must be less than this, or null for no bound.
+     * @param <E> the type of the elements.
+     * @return the height and size of the subtree.
+     */
+    private static <E extends Comparable<E>> int[] check(TreeNode<E> node, E low, E high) {
+        if (node == null) return new int[] {-1, 0};
+        if (low != null) assertTrue(node.element.compareTo(low) > 0, "order at " + node.element);
+        if (high != null) assertTrue(node.element.compareTo(high) < 0, "order at " + node.element);
+        int[] left = check(node.left, low, node.element);
+        int[] right = check(node.right, node.element, high);
+        assertTrue(Math.abs(left[0] - right[0]) <= 1, "balance at " + node.element);
+        AVLTree.AVLTreeNode<E> avlNode = (AVLTree.AVLTreeNode<E>) node;
+        int height = Math.max(left[0], right[0]) + 1;
+        int size = left[1] + right[1] + 1;
+        assertEquals(height, avlNode.height, "height at " + node.element);
+        assertEquals(size, avlNode.size, "size at " + node.element);
+        return new int[] {height, size};
+    }
+}
@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests AVLTree.fingerSearch against java.util.TreeSet, its cache of recently accessed nodes, and that plain searches
+ * can run from several threads at once.
+ */
+class AVLTreeFingerSearchTest {
+    @Test
+    void emptyTree() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        assertFalse(tree.fingerSearch(1));
+        tree.insert(1);
+        tree.delete(1);
+        assertFalse(tree.fingerSearch(1));
+    }
+
+    @Test
+    void sequentialScanMatchesTreeSet() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 10_000; i += 3) {
+            tree.insert(i);
+            expected.add(i);
+        }
+        for (int i = -5; i < 10_005; i++) assertEquals(expected.contains(i), tree.fingerSearch(i), "key " + i);
+        for (int i = 10_005; i >= -5; i--) assertEquals(expected.contains(i), tree.fingerSearch(i), "key " + i);
+    }
+
+    @Test
+    void matchesTreeSetBetweenUpdates() {
+        Random random = new Random(10);
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        int key = 500;
+        for (int i = 0; i < 20_000; i++) {
+            // Mostly short steps, so the finger is usually close to the next key, with the occasional jump
+            key = (random.nextInt(20) == 0) ? random.nextInt(1000) : Math.floorMod(key + random.nextInt(11) - 5, 1000);
+            switch (random.nextInt(4)) {
+                case 0 -> assertEquals(expected.add(key), tree.insert(key));
+                case 1 -> assertEquals(expected.remove(key), tree.delete(key));
+                case 2 -> assertEquals(expected.contains(key), tree.search(key));
+                default -> assertEquals(expected.contains(key), tree.fingerSearch(key), "key " + key);
+            }
+        }
+        AVLTreeChecks.assertSameElements(expected, tree);
+    }
+
+    @Test
+    void recentNodesSurviveRotations() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        // Ascending inserts rotate the right spine again and again, moving the nodes just inserted
+        for (int i = 0; i < 1024; i++) {
+            assertTrue(tree.insert(i));
+            assertSame(nodeOf(tree, i), tree.recentNode(i), "key " + i);
+            if (i > 0) assertNull(tree.recentNode(i - 1), "key " + (i - 1));
+        }
+        assertFalse(tree.insert(1023));
+        for (int key : new int[] {10, 500, 900}) assertTrue(tree.fingerSearch(key));
+        for (int key : new int[] {10, 500, 900, 1023}) assertSame(nodeOf(tree, key), tree.recentNode(key));
+        assertTrue(tree.fingerSearch(500));
+        assertFalse(tree.insert(900));
+
+        // Search leaves the cache alone
+        assertTrue(tree.search(700));
+        assertNull(tree.recentNode(700));
+
+        // Deleting the root moves its predecessor into the root's node, so the cache must be dropped
+        int rootKey = tree.root.element;
+        TreeNode<Integer> rootNode = tree.root;
+        assertTrue(tree.fingerSearch(rootKey - 1));
+        assertTrue(tree.delete(rootKey));
+        for (int key : new int[] {10, 500, 900, rootKey - 1}) assertNull(tree.recentNode(key));
+        assertFalse(tree.fingerSearch(rootKey));
+        assertTrue(tree.fingerSearch(rootKey - 1));
+        assertSame(rootNode, tree.recentNode(rootKey - 1));
+        assertSame(nodeOf(tree, rootKey - 1), tree.recentNode(rootKey - 1));
+        AVLTreeChecks.assertValid(tree);
+    }
+
+    @Test
+    void concurrentSearches() throws Exception {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100_000; i += 2) tree.insert(i);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> mismatches = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                long seed = t;
+                mismatches.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    int wrong = 0;
+                    for (int i = 0; i < 200_000; i++) {
+                        int key = random.nextInt(100_000);
+                        boolean found = (i % 2 == 0) ? tree.search(key) : tree.contains(key);
+                        if (found != (key % 2 == 0)) wrong++;
+                    }
+                    return wrong;
+                }));
+            }
+            for (Future<Integer> result : mismatches) assertEquals(0, result.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Finds the node holding a key by descending from the root.
+     *
+     * @param tree the tree.
+     * @param key the key.
+     * @return the node holding the key.
+     */
+    private static TreeNode<Integer> nodeOf(AVLTree<Integer> tree, int key) {
+        TreeNode<Integer> node = tree.root;
+        while (node != null && node.element != key) node = (key < node.element) ? node.left : node.right;
+        assertNotNull(node);
+        return node;
+    }
+}
@@ -0,0 +1,200 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests AVLTree as a NavigableSet, including its subset and descending views and removal through iterators, against
+ * the same operations on a java.util.TreeSet.
+ */
+class AVLTreeNavigableSetTest {
+    @Test
+    void emptySet() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        assertThrows(NoSuchElementException.class, tree::first);
+        assertThrows(NoSuchElementException.class, tree::last);
+        assertNull(tree.pollFirst());
+        assertNull(tree.pollLast());
+        assertNull(tree.lower(1));
+        assertNull(tree.ceiling(1));
+        assertFalse(tree.iterator().hasNext());
+        assertEquals(new TreeSet<>(), tree);
+    }
+
+    @Test
+    void navigationMatchesTreeSet() {
+        Random random = new Random(2);
+        TreeSet<Integer> expected = new TreeSet<>();
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 300; i++) {
+            int key = random.nextInt(1000);
+            expected.add(key);
+            tree.add(key);
+        }
+        assertNavigation(expected, tree, random);
+        assertNavigation(expected.descendingSet(), tree.descendingSet(), random);
+        assertEquals(expected.first(), tree.pollFirst());
+        assertEquals(expected.last(), tree.pollLast());
+        expected.pollFirst();
+        expected.pollLast();
+        AVLTreeChecks.assertSameElements(expected, tree);
+    }
+
+    @Test
+    void subSetViewsMatchTreeSet() {
+        Random random = new Random(3);
+        TreeSet<Integer> expected = new TreeSet<>();
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 300; i++) {
+            int key = random.nextInt(1000);
+            expected.add(key);
+            tree.add(key);
+        }
+        for (int i = 0; i < 50; i++) {
+            int lo = random.nextInt(1000);
+            int hi = lo + random.nextInt(1000 - lo);
+            boolean loInclusive = random.nextBoolean();
+            boolean hiInclusive = random.nextBoolean();
+            assertNavigation(expected.subSet(lo, loInclusive, hi, hiInclusive),
+                    tree.subSet(lo, loInclusive, hi, hiInclusive), random);
+            assertNavigation(expected.headSet(hi, hiInclusive), tree.headSet(hi, hiInclusive), random);
+            assertNavigation(expected.tailSet(lo, loInclusive), tree.tailSet(lo, loInclusive), random);
+            assertNavigation(expected.subSet(lo, loInclusive, hi, hiInclusive).descendingSet(),
+                    tree.subSet(lo, loInclusive, hi, hiInclusive).descendingSet(), random);
+            assertNavigation(expected.descendingSet().subSet(hi, hiInclusive, lo, loInclusive),
+                    tree.descendingSet().subSet(hi, hiInclusive, lo, loInclusive), random);
+        }
+    }
+
+    @Test
+    void subSetWritesThrough() {
+        TreeSet<Integer> expected = new TreeSet<>();
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i += 2) {
+            expected.add(i);
+            tree.add(i);
+        }
+        NavigableSet<Integer> expectedView = expected.subSet(20, true, 60, false);
+        NavigableSet<Integer> view = tree.subSet(20, true, 60, false);
+
+        assertEquals(expectedView.add(21), view.add(21));
+        assertEquals(expectedView.add(22), view.add(22));
+        assertEquals(expectedView.remove(30), view.remove(30));
+        assertEquals(expectedView.remove(70), view.remove(70));
+        assertEquals(expectedView.pollFirst(), view.pollFirst());
+        assertEquals(expectedView.pollLast(), view.pollLast());
+        assertThrows(IllegalArgumentException.class, () -> view.add(60));
+        assertThrows(IllegalArgumentException.class, () -> view.add(5));
+        assertThrows(IllegalArgumentException.class, () -> view.subSet(10, 30));
+        assertEquals(expectedView, view);
+        AVLTreeChecks.assertSameElements(expected, tree);
+
+        // Changes to the tree show through the view
+        expected.add(41);
+        tree.add(41);
+        expected.remove(50);
+        tree.remove(50);
+        assertEquals(new ArrayList<>(expectedView), new ArrayList<>(view));
+        assertEquals(expectedView.size(), view.size());
+
+        view.clear();
+        expectedView.clear();
+        assertTrue(view.isEmpty());
+        AVLTreeChecks.assertSameElements(expected, tree);
+    }
+
+    @Test
+    void iteratorRemove() {
+        Random random = new Random(4);
+        TreeSet<Integer> expected = new TreeSet<>();
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 2000; i++) {
+            int key = random.nextInt(5000);
+            expected.add(key);
+            tree.add(key);
+        }
+        List<Integer> before = new ArrayList<>(expected);
+        List<Integer> visited = new ArrayList<>();
+        Iterator<Integer> iterator = tree.iterator();
+        while (iterator.hasNext()) {
+            int element = iterator.next();
+            visited.add(element);
+            if (random.nextInt(3) == 0) {
+                iterator.remove();
+                expected.remove(element);
+            }
+        }
+        assertEquals(before, visited);
+        AVLTreeChecks.assertSameElements(expected, tree);
+
+        Iterator<Integer> descending = tree.descendingIterator();
+        while (descending.hasNext()) {
+            int element = descending.next();
+            if (element % 2 == 0) {
+                descending.remove();
+                expected.remove(element);
+            }
+        }
+        AVLTreeChecks.assertSameElements(expected, tree);
+
+        Iterator<Integer> subSetIterator = tree.subSet(1000, true, 3000, true).iterator();
+        while (subSetIterator.hasNext()) {
+            int element = subSetIterator.next();
+            if (element % 3 == 0) {
+                subSetIterator.remove();
+                expected.remove(element);
+            }
+        }
+        AVLTreeChecks.assertSameElements(expected, tree);
+    }
+
+    @Test
+    void iteratorRemoveContract() {
+        AVLTree<Integer> tree = new AVLTree<>(new Integer[] {1, 2, 3});
+        Iterator<Integer> iterator = tree.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        iterator.next();
+        iterator.remove();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        assertEquals(2, iterator.next());
+        tree.add(10);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    /**
+     * Checks the contents, size and navigation methods of a set against a reference set.
+     *
+     * @param expected the reference set.
+     * @param actual the set to check.
+     * @param random the source of the keys to query.
+     */
+    private static void assertNavigation(NavigableSet<Integer> expected, NavigableSet<Integer> actual, Random random) {
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+        assertEquals(new ArrayList<>(expected.descendingSet()), new ArrayList<>(actual.descendingSet()));
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), actual.first());
+            assertEquals(expected.last(), actual.last());
+        }
+        for (int i = 0; i < 50; i++) {
+            int key = random.nextInt(1100) - 50;
+            assertEquals(expected.contains(key), actual.contains(key), "contains " + key);
+            assertEquals(expected.lower(key), actual.lower(key), "lower " + key);
+            assertEquals(expected.floor(key), actual.floor(key), "floor " + key);
+            assertEquals(expected.ceiling(key), actual.ceiling(key), "ceiling " + key);
+            assertEquals(expected.higher(key), actual.higher(key), "higher " + key);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests AVLTree.rank, select and countRange against the same queries on a java.util.TreeSet.
+ */
+class AVLTreeOrderStatisticsTest {
+    @Test
+    void emptyTree() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        assertEquals(0, tree.rank(5));
+        assertEquals(0, tree.countRange(0, 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(0));
+    }
+
+    @Test
+    void selectIsInverseOfRank() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 200; i++) tree.insert(i * 3);
+        for (int k = 0; k < tree.size(); k++) {
+            int element = tree.select(k);
+            assertEquals(k * 3, element);
+            assertEquals(k, tree.rank(element));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(tree.size()));
+    }
+
+    @Test
+    void matchesTreeSetUnderRandomUpdates() {
+        Random random = new Random(1);
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) assertEquals(expected.remove(key), tree.delete(key));
+            else assertEquals(expected.add(key), tree.insert(key));
+            if (i % 50 == 0) assertQueries(expected, tree, random);
+        }
+        AVLTreeChecks.assertSameElements(expected, tree);
+        assertQueries(expected, tree, random);
+    }
+
+    @Test
+    void countRangeBounds() {
+        AVLTree<Integer> tree = new AVLTree<>(new Integer[] {10, 20, 30, 40});
+        assertEquals(4, tree.countRange(10, 40));
+        assertEquals(2, tree.countRange(15, 35));
+        assertEquals(1, tree.countRange(20, 20));
+        assertEquals(0, tree.countRange(21, 29));
+        assertEquals(0, tree.countRange(40, 10));
+    }
+
+    /**
+     * Checks rank, select and countRange against the reference set, for every position and some random keys.
+     *
+     * @param expected the reference set.
+     * @param tree the tree to check.
+     * @param random the source of the keys to query.
+     */
+    private static void assertQueries(TreeSet<Integer> expected, AVLTree<Integer> tree, Random random) {
+        int k = 0;
+        for (int element : expected) assertEquals(element, tree.select(k++));
+        for (int i = 0; i < 100; i++) {
+            int key = random.nextInt(1100) - 50;
+            assertEquals(expected.headSet(key).size(), tree.rank(key), "rank " + key);
+            int lo = random.nextInt(1100) - 50;
+            int hi = lo + random.nextInt(300);
+            assertEquals(expected.subSet(lo, true, hi, true).size(), tree.countRange(lo, hi), lo + ".." + hi);
+        }
+    }
+}
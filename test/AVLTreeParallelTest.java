@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests AVLTree.parallelForEach, parallelReduce and parallelFilter against sequential traversals, on trees large enough
+ * to be traversed in parallel (at least PARALLEL_THRESHOLD, 8192, elements) and on a small one traversed sequentially.
+ */
+class AVLTreeParallelTest {
+    private static final int[] SIZES = {100, 200_000};
+
+    @Test
+    void parallelForEachVisitsEveryElementOnce() {
+        for (int size : SIZES) {
+            TreeSet<Integer> expected = new TreeSet<>();
+            AVLTree<Integer> tree = createTree(size, expected);
+            ConcurrentLinkedQueue<Integer> visited = new ConcurrentLinkedQueue<>();
+            tree.parallelForEach(visited::add);
+            List<Integer> sorted = new ArrayList<>(visited);
+            sorted.sort(null);
+            assertEquals(new ArrayList<>(expected), sorted);
+
+            LongAdder sum = new LongAdder();
+            tree.parallelForEach(sum::add);
+            assertEquals(expected.stream().mapToLong(Integer::longValue).sum(), sum.sum());
+        }
+    }
+
+    @Test
+    void parallelReduceCombinesInOrder() {
+        for (int size : SIZES) {
+            TreeSet<Integer> expected = new TreeSet<>();
+            AVLTree<Integer> tree = createTree(size, expected);
+            assertEquals(expected.stream().mapToLong(Integer::longValue).sum(),
+                    tree.parallelReduce(0L, Integer::longValue, Long::sum));
+            assertEquals(expected.first(), tree.parallelReduce(Integer.MAX_VALUE, e -> e, Math::min));
+            // Concatenation is associative but not commutative, so the result shows the order values were combined in
+            String joined = expected.stream().map(String::valueOf).collect(Collectors.joining(","));
+            assertEquals(joined, tree.parallelReduce("", String::valueOf,
+                    (a, b) -> a.isEmpty() ? b : b.isEmpty() ? a : a + "," + b));
+        }
+        assertEquals(7L, new AVLTree<Integer>().parallelReduce(7L, Integer::longValue, Long::sum));
+    }
+
+    @Test
+    void parallelFilterMatchesSequentialFilter() {
+        for (int size : SIZES) {
+            TreeSet<Integer> expected = new TreeSet<>();
+            AVLTree<Integer> tree = createTree(size, expected);
+            TreeSet<Integer> multiples = expected.stream().filter(e -> e % 3 == 0)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            AVLTree<Integer> filtered = tree.parallelFilter(e -> e % 3 == 0);
+            AVLTreeChecks.assertSameElements(multiples, filtered);
+            AVLTreeChecks.assertSameElements(expected, tree);
+
+            assertTrue(tree.parallelFilter(e -> false).isEmpty());
+            AVLTreeChecks.assertSameElements(expected, tree.parallelFilter(e -> true));
+        }
+    }
+
+    @Test
+    void modificationDuringTraversalFails() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i++) tree.insert(i);
+        assertThrows(ConcurrentModificationException.class, () -> tree.parallelForEach(e -> {
+            if (e == 50) tree.insert(-1);
+        }));
+    }
+
+    /**
+     * Creates a tree and a TreeSet holding the same random elements.
+     *
+     * @param size the number of random elements, duplicates included.
+     * @param expected the TreeSet to fill.
+     * @return the tree.
+     */
+    private static AVLTree<Integer> createTree(int size, TreeSet<Integer> expected) {
+        Random random = new Random(size);
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < size; i++) {
+            int key = random.nextInt(size * 4);
+            assertEquals(expected.add(key), tree.insert(key));
+        }
+        return tree;
+    }
+}
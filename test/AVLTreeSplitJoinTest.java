@@ -0,0 +1,118 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests AVLTree.split, join, union, intersection and difference against the same operations on java.util.TreeSets.
+ */
+class AVLTreeSplitJoinTest {
+    @Test
+    void splitMatchesTreeSet() {
+        Random random = new Random(6);
+        for (int round = 0; round < 100; round++) {
+            TreeSet<Integer> expected = randomSet(random, random.nextInt(500));
+            AVLTree<Integer> tree = new AVLTree<>(expected);
+            int key = random.nextInt(1100) - 50;
+            AVLTree<Integer> upper = tree.split(key);
+            AVLTreeChecks.assertSameElements(new TreeSet<>(expected.headSet(key, false)), tree);
+            AVLTreeChecks.assertSameElements(new TreeSet<>(expected.tailSet(key, true)), upper);
+        }
+    }
+
+    @Test
+    void joinMatchesTreeSet() {
+        Random random = new Random(7);
+        for (int round = 0; round < 100; round++) {
+            int pivot = random.nextInt(1000);
+            TreeSet<Integer> expected = new TreeSet<>();
+            TreeSet<Integer> lower = new TreeSet<>();
+            TreeSet<Integer> higher = new TreeSet<>();
+            // Uneven sizes exercise joins of trees with very different heights
+            int lowerSize = random.nextInt(pivot + 1);
+            int higherSize = random.nextInt(1000 - pivot);
+            for (int i = 0; i < lowerSize; i++) lower.add(random.nextInt(pivot));
+            for (int i = 0; i < higherSize; i++) higher.add(pivot + 1 + random.nextInt(999 - pivot));
+            expected.addAll(lower);
+            expected.add(pivot);
+            expected.addAll(higher);
+            AVLTree<Integer> left = new AVLTree<>(lower);
+            AVLTree<Integer> right = new AVLTree<>(higher);
+            AVLTree<Integer> joined = AVLTree.join(left, pivot, right);
+            AVLTreeChecks.assertSameElements(expected, joined);
+            assertTrue(left.isEmpty());
+            assertTrue(right.isEmpty());
+        }
+    }
+
+    @Test
+    void joinRejectsUnorderedTrees() {
+        AVLTree<Integer> left = new AVLTree<>(new Integer[] {1, 5});
+        AVLTree<Integer> right = new AVLTree<>(new Integer[] {8, 9});
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(left, 5, right));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(left, 8, right));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(left, 6, left));
+        AVLTreeChecks.assertSameElements(new TreeSet<>(left), left);
+        assertEquals(2, right.size());
+    }
+
+    @Test
+    void splitThenJoinRestoresTree() {
+        TreeSet<Integer> expected = randomSet(new Random(8), 1000);
+        AVLTree<Integer> tree = new AVLTree<>(expected);
+        int pivot = tree.select(tree.size() / 3);
+        AVLTree<Integer> upper = tree.split(pivot);
+        assertEquals(pivot, upper.pollFirst());
+        AVLTreeChecks.assertSameElements(expected, AVLTree.join(tree, pivot, upper));
+    }
+
+    @Test
+    void setOperationsMatchTreeSet() {
+        Random random = new Random(9);
+        for (int round = 0; round < 60; round++) {
+            // Every few rounds the trees are large enough to be combined in parallel
+            int size = (round % 10 == 0) ? 20_000 : random.nextInt(300);
+            TreeSet<Integer> first = randomSet(random, size);
+            TreeSet<Integer> second = randomSet(random, size);
+
+            TreeSet<Integer> expected = new TreeSet<>(first);
+            AVLTree<Integer> tree = new AVLTree<>(first);
+            AVLTree<Integer> other = new AVLTree<>(second);
+            switch (round % 3) {
+                case 0 -> assertEquals(expected.addAll(second), tree.union(other));
+                case 1 -> assertEquals(expected.retainAll(second), tree.intersection(other));
+                default -> assertEquals(expected.removeAll(second), tree.difference(other));
+            }
+            AVLTreeChecks.assertSameElements(expected, tree);
+            AVLTreeChecks.assertSameElements(second, other);
+        }
+    }
+
+    @Test
+    void setOperationsWithItself() {
+        AVLTree<Integer> tree = new AVLTree<>(new Integer[] {1, 2, 3});
+        assertFalse(tree.union(tree));
+        assertFalse(tree.intersection(tree));
+        assertEquals(3, tree.size());
+        assertTrue(tree.difference(tree));
+        assertTrue(tree.isEmpty());
+    }
+
+    /**
+     * Generates a set of random keys.
+     *
+     * @param random the source of the keys.
+     * @param count the number of keys to draw; duplicates are only kept once.
+     * @return the set, with keys below max(1000, 4 * count).
+     */
+    private static TreeSet<Integer> randomSet(Random random, int count) {
+        int bound = Math.max(1000, count * 4);
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int i = 0; i < count; i++) set.add(random.nextInt(bound));
+        return set;
+    }
+}
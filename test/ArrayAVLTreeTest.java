@@ -0,0 +1,132 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests what is particular to ArrayAVLTree: growing its node arrays, reusing the slots of deleted nodes, and keeping
+ * its elements in the same order as a java.util.TreeSet throughout.
+ */
+class ArrayAVLTreeTest {
+    @Test
+    void growsFromEveryInitialCapacity() {
+        for (int capacity : new int[] {0, 1, 4, 16, 1000}) {
+            ArrayAVLTree<Integer> tree = new ArrayAVLTree<>(capacity);
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(capacity);
+            for (int i = 0; i < 5000; i++) {
+                int key = random.nextInt(100_000);
+                assertEquals(expected.add(key), tree.insert(key));
+                // Check the contents right after each doubling of the arrays, when every entry has just been copied
+                if (Integer.bitCount(expected.size()) == 1) assertSameElements(expected, tree);
+            }
+            assertSameElements(expected, tree);
+            // Without deletes the slots are handed out in order, with no gaps left by growing
+            assertEquals(range(1, expected.size()), slots(tree), "capacity " + capacity);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ArrayAVLTree<Integer>(-1));
+    }
+
+    @Test
+    void reusesTheSlotsOfDeletedNodes() {
+        ArrayAVLTree<Integer> tree = new ArrayAVLTree<>(4);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 1000; i++) {
+            tree.insert(i);
+            expected.add(i);
+        }
+        TreeSet<Integer> allocated = slots(tree);
+        Random random = new Random(9);
+        for (int round = 0; round < 20; round++) {
+            // Delete a batch of elements, then insert as many new ones: every insert takes a freed slot
+            List<Integer> deleted = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                int key = new ArrayList<>(expected).get(random.nextInt(expected.size()));
+                assertTrue(tree.delete(key));
+                expected.remove(key);
+                deleted.add(key);
+            }
+            assertFalse(tree.delete(deleted.get(0)));
+            assertEquals(expected.size(), slots(tree).size());
+            for (int i = 0; i < 100; i++) {
+                int key = 1000 + round * 100 + i;
+                assertTrue(tree.insert(key));
+                expected.add(key);
+            }
+            assertSameElements(expected, tree);
+            assertEquals(allocated, slots(tree), "round " + round);
+        }
+        // With every freed slot taken again, the next insert takes a new slot
+        assertTrue(tree.insert(-1));
+        assertEquals(range(1, 1001), slots(tree));
+    }
+
+    @Test
+    void clearKeepsTheArraysForReuse() {
+        ArrayAVLTree<Integer> tree = new ArrayAVLTree<>();
+        for (int i = 0; i < 100; i++) tree.insert(i);
+        tree.clear();
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.search(5));
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 50; i > 0; i--) {
+            tree.insert(i * 3);
+            expected.add(i * 3);
+        }
+        assertSameElements(expected, tree);
+        assertEquals(range(1, 50), slots(tree));
+    }
+
+    /**
+     * Checks that a tree is a valid AVL tree holding the same elements as a TreeSet, in the same order.
+     *
+     * @param expected the TreeSet.
+     * @param tree the tree.
+     */
+    private static void assertSameElements(TreeSet<Integer> expected, ArrayAVLTree<Integer> tree) {
+        IndexedAVLTreeChecks.assertValid(tree);
+        assertEquals(expected.size(), tree.getSize());
+        List<Integer> elements = new ArrayList<>();
+        tree.forEach(elements::add);
+        assertEquals(new ArrayList<>(expected), elements);
+        for (int key : expected) assertTrue(tree.search(key));
+    }
+
+    /**
+     * Collects the array slots of the nodes linked into a tree.
+     *
+     * @param tree the tree.
+     * @return the indices of its nodes.
+     */
+    private static TreeSet<Integer> slots(ArrayAVLTree<Integer> tree) {
+        TreeSet<Integer> slots = new TreeSet<>();
+        List<Integer> pending = new ArrayList<>(List.of(tree.root));
+        while (!pending.isEmpty()) {
+            int node = pending.remove(pending.size() - 1);
+            if (node == IndexedAVLTree.NIL) continue;
+            assertTrue(slots.add(node), "slot " + node + " linked twice");
+            pending.add(tree.left(node));
+            pending.add(tree.right(node));
+        }
+        return slots;
+    }
+
+    /**
+     * Creates the set of integers in a closed range.
+     *
+     * @param low the smallest integer.
+     * @param high the largest integer.
+     * @return the integers from low to high.
+     */
+    private static TreeSet<Integer> range(int low, int high) {
+        TreeSet<Integer> range = new TreeSet<>();
+        for (int i = low; i <= high; i++) range.add(i);
+        return range;
+    }
+}
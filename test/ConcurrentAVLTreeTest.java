@@ -0,0 +1,140 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ConcurrentAVLTree against java.util.TreeSet on one thread, and against ConcurrentSkipListSet under concurrent
+ * writers.
+ */
+class ConcurrentAVLTreeTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void matchesTreeSet() {
+        Random random = new Random(31);
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(3000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(key), tree.insert(key));
+                case 1 -> assertEquals(expected.remove(key), tree.delete(key));
+                default -> assertEquals(expected.contains(key), tree.search(key));
+            }
+        }
+        assertEquals(expected.size(), tree.getSize());
+        assertEquals(new ArrayList<>(expected), elements(tree));
+        while (!expected.isEmpty()) assertEquals(expected.pollFirst(), tree.pollFirst());
+        assertNull(tree.pollFirst());
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    void rotationsUnlinkRoutingNodes() {
+        Random random = new Random(7);
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2000);
+            if (random.nextBoolean()) tree.insert(key);
+            else tree.delete(key);
+            // A routing node that a rotation left with at most one child would be counted without holding an element
+            if (i % 100 == 0) assertEquals(tree.getSize(), tree.countNodes());
+        }
+        assertEquals(tree.getSize(), tree.countNodes());
+        for (int key = 0; key < 2000; key++) tree.delete(key);
+        assertEquals(0, tree.countNodes());
+    }
+
+    @Test
+    void iteratorRemovesElements() {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        for (int i = 0; i < 100; i++) tree.insert(i);
+        for (Iterator<Integer> iterator = tree.iterator(); iterator.hasNext(); ) {
+            if (iterator.next() % 2 == 0) iterator.remove();
+        }
+        assertEquals(50, tree.getSize());
+        for (int i = 0; i < 100; i++) assertEquals(i % 2 == 1, tree.search(i));
+    }
+
+    @Test
+    void concurrentWritersAgreeWithSkipList() throws Exception {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        ConcurrentSkipListSet<Integer> expected = new ConcurrentSkipListSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Random random = new Random(thread);
+                    // Each thread owns the keys congruent to its index, so the final contents are deterministic, while
+                    // the threads still rebalance the same nodes
+                    for (int i = 0; i < 50_000; i++) {
+                        int key = random.nextInt(4000) * THREADS + thread;
+                        if (random.nextInt(3) == 0) assertEquals(expected.remove(key), tree.delete(key));
+                        else assertEquals(expected.add(key), tree.insert(key));
+                        tree.search(random.nextInt(4000 * THREADS));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(expected.size(), tree.getSize());
+        assertEquals(new ArrayList<>(expected), elements(tree));
+        for (int key = 0; key < 4000 * THREADS; key++) assertEquals(expected.contains(key), tree.search(key));
+    }
+
+    @Test
+    void concurrentPollFirstRemovesEachElementOnce() throws Exception {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        for (int i = 0; i < 20_000; i++) tree.insert(i);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        ConcurrentSkipListSet<Integer> polled = new ConcurrentSkipListSet<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (Integer e = tree.pollFirst(); e != null; e = tree.pollFirst()) assertTrue(polled.add(e));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(20_000, polled.size());
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.iterator().hasNext());
+    }
+
+    /**
+     * Collects the elements of a tree in iteration order.
+     *
+     * @param tree the tree.
+     * @return the elements.
+     */
+    private static List<Integer> elements(ConcurrentAVLTree<Integer> tree) {
+        List<Integer> elements = new ArrayList<>();
+        tree.forEach(elements::add);
+        return elements;
+    }
+}
@@ -0,0 +1,37 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Assertions shared by the tests of the index-based trees, checking the structure of an IndexedAVLTree.
+ */
+final class IndexedAVLTreeChecks {
+    /**
+     * Not instantiable.
+     */
+    private IndexedAVLTreeChecks() {}
+
+    /**
+     * Checks that a tree is balanced and that the heights stored in its nodes are correct.
+     *
+     * @param tree the tree to check.
+     */
+    static void assertValid(IndexedAVLTree tree) {
+        assertEquals(tree.getSize(), check(tree, tree.root)[1]);
+    }
+
+    /**
+     * Checks a subtree, recursively.
+     *
+     * @param tree the tree being checked.
+     * @param node the root of the subtree, may be NIL.
+     * @return the height and size of the subtree.
+     */
+    private static int[] check(IndexedAVLTree tree, int node) {
+        if (node == IndexedAVLTree.NIL) return new int[] {-1, 0};
+        int[] left = check(tree, tree.left(node));
+        int[] right = check(tree, tree.right(node));
+        assertTrue(Math.abs(left[0] - right[0]) <= 1, "balance");
+        assertEquals(Math.max(left[0], right[0]) + 1, tree.height(node), "height");
+        return new int[] {tree.height(node), left[1] + right[1] + 1};
+    }
+}
@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ArrayAVLTree and OffHeapLongAVLTree against the same operations on a java.util.TreeSet or TreeMap.
+ */
+class IndexedAVLTreeTest {
+    @Test
+    void arrayTreeMatchesTreeSet() {
+        Random random = new Random(21);
+        ArrayAVLTree<Integer> tree = new ArrayAVLTree<>(4);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(key), tree.insert(key));
+                case 1 -> assertEquals(expected.remove(key), tree.delete(key));
+                default -> assertEquals(expected.contains(key), tree.search(key));
+            }
+        }
+        IndexedAVLTreeChecks.assertValid(tree);
+        assertEquals(expected.size(), tree.getSize());
+        List<Integer> elements = new ArrayList<>();
+        tree.forEach(elements::add);
+        assertEquals(new ArrayList<>(expected), elements);
+    }
+
+    @Test
+    void offHeapTreeMatchesTreeMap() {
+        Random random = new Random(22);
+        try (OffHeapLongAVLTree tree = new OffHeapLongAVLTree()) {
+            TreeMap<Long, Long> expected = new TreeMap<>();
+            // Enough keys to need more than one chunk of nodes
+            for (int i = 0; i < 100_000; i++) {
+                long key = random.nextInt(60_000) - 30_000L;
+                if (random.nextInt(3) == 0) assertEquals(expected.remove(key) != null, tree.delete(key));
+                else assertEquals(expected.put(key, (long) i) == null, tree.put(key, i));
+            }
+            IndexedAVLTreeChecks.assertValid(tree);
+            assertEquals(expected.size(), tree.getSize());
+            assertEquals(expected.firstKey(), tree.firstKey());
+            assertEquals(expected.lastKey(), tree.lastKey());
+            List<Long> entries = new ArrayList<>();
+            tree.forEach((key, value) -> {
+                entries.add(key);
+                entries.add(value);
+            });
+            List<Long> expectedEntries = new ArrayList<>();
+            expected.forEach((key, value) -> {
+                expectedEntries.add(key);
+                expectedEntries.add(value);
+            });
+            assertEquals(expectedEntries, entries);
+            for (long key = -30_001; key <= 30_001; key += 7) {
+                assertEquals(expected.getOrDefault(key, -1L), tree.getOrDefault(key, -1));
+            }
+        }
+    }
+
+    @Test
+    void offHeapTreeCanNotBeUsedAfterClose() {
+        OffHeapLongAVLTree tree = new OffHeapLongAVLTree();
+        tree.put(1, 2);
+        assertTrue(tree.reservedBytes() > 0);
+        tree.close();
+        tree.close();
+        assertEquals(0, tree.reservedBytes());
+        assertThrows(IllegalStateException.class, () -> tree.contains(1));
+        assertThrows(IllegalStateException.class, () -> tree.put(3, 4));
+        assertThrows(IllegalStateException.class, tree::firstKey);
+    }
+
+    @Test
+    void emptyOffHeapTreeHasNoFirstKey() {
+        try (OffHeapLongAVLTree tree = new OffHeapLongAVLTree()) {
+            assertThrows(NoSuchElementException.class, tree::firstKey);
+            assertEquals(false, tree.delete(1));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests PersistentAVLTree against java.util.TreeSet, and that snapshots keep the version they were taken from.
+ */
+class PersistentAVLTreeTest {
+    @Test
+    void matchesTreeSet() {
+        Random random = new Random(17);
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(1000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(key), tree.insert(key));
+                case 1 -> assertEquals(expected.remove(key), tree.delete(key));
+                default -> assertEquals(expected.contains(key), tree.search(key));
+            }
+        }
+        assertEquals(expected.size(), tree.getSize());
+        assertEquals(new ArrayList<>(expected), elements(tree));
+    }
+
+    @Test
+    void snapshotsAreUnchangedByLaterUpdates() {
+        Random random = new Random(23);
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        TreeSet<Integer> current = new TreeSet<>();
+        List<PersistentAVLTree<Integer>> snapshots = new ArrayList<>();
+        List<TreeSet<Integer>> expected = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) assertEquals(current.remove(key), tree.delete(key));
+            else assertEquals(current.add(key), tree.insert(key));
+            if (i % 1000 == 0) {
+                snapshots.add(tree.snapshot());
+                expected.add(new TreeSet<>(current));
+            }
+        }
+        // Every later insert and delete copied the nodes it changed, so each snapshot still holds its own version
+        for (int i = 0; i < snapshots.size(); i++) {
+            PersistentAVLTree<Integer> snapshot = snapshots.get(i);
+            assertEquals(expected.get(i).size(), snapshot.getSize());
+            assertEquals(new ArrayList<>(expected.get(i)), elements(snapshot));
+            for (int key = 0; key < 500; key++) assertEquals(expected.get(i).contains(key), snapshot.search(key));
+        }
+        assertEquals(new ArrayList<>(current), elements(tree));
+    }
+
+    @Test
+    void snapshotUpdatesDoNotReachTheTree() {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        for (int i = 0; i < 100; i++) tree.insert(i);
+        PersistentAVLTree<Integer> snapshot = tree.snapshot();
+        assertTrue(snapshot.delete(50));
+        assertTrue(snapshot.insert(100));
+        assertTrue(tree.search(50));
+        assertFalse(tree.search(100));
+        assertEquals(100, tree.getSize());
+        assertEquals(100, snapshot.getSize());
+    }
+
+    @Test
+    void iteratorKeepsItsVersion() {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        for (int i = 0; i < 10; i++) tree.insert(i);
+        Iterator<Integer> iterator = tree.iterator();
+        for (int i = 0; i < 10; i++) tree.delete(i);
+        assertTrue(tree.isEmpty());
+        for (int i = 0; i < 10; i++) assertEquals(i, iterator.next());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    /**
+     * Collects the elements of a tree in iteration order.
+     *
+     * @param tree the tree.
+     * @return the elements.
+     */
+    private static List<Integer> elements(PersistentAVLTree<Integer> tree) {
+        List<Integer> elements = new ArrayList<>();
+        tree.forEach(elements::add);
+        return elements;
+    }
+}
@@ -0,0 +1,132 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests IntAVLTree, LongAVLTree and IntLongAVLTree against the same operations on a java.util.TreeMap.
+ */
+class PrimitiveAVLTreeTest {
+    @Test
+    void intTreeMatchesTreeMap() {
+        Random random = new Random(11);
+        IntAVLTree<String> tree = new IntAVLTree<>();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            switch (random.nextInt(4)) {
+                case 0 -> assertEquals(expected.put(key, "v" + i), tree.put(key, "v" + i));
+                case 1 -> {
+                    boolean absent = !expected.containsKey(key);
+                    if (absent) expected.put(key, null);
+                    assertEquals(absent, tree.insert(key));
+                }
+                case 2 -> {
+                    boolean present = expected.containsKey(key);
+                    expected.remove(key);
+                    assertEquals(present, tree.delete(key));
+                }
+                default -> assertEquals(expected.get(key), tree.get(key));
+            }
+        }
+        assertValid(tree);
+        assertEquals(expected.size(), tree.getSize());
+        List<Integer> keys = new ArrayList<>();
+        tree.forEachKey(keys::add);
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+        assertEquals(expected.firstKey(), tree.firstKey());
+        assertEquals(expected.lastKey(), tree.lastKey());
+    }
+
+    @Test
+    void longTreeMatchesTreeMap() {
+        Random random = new Random(12);
+        LongAVLTree<Integer> tree = new LongAVLTree<>();
+        TreeMap<Long, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Packed (priority << 32 | id) keys, as used for process ordering
+            long key = ((long) random.nextInt(10) << 32) | random.nextInt(300);
+            if (random.nextInt(3) == 0) assertEquals(expected.remove(key) != null, tree.delete(key));
+            else assertEquals(expected.put(key, i), tree.put(key, i));
+        }
+        assertValid(tree);
+        List<Long> keys = new ArrayList<>();
+        for (long key : tree) keys.add(key);
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+        for (long key : expected.keySet()) assertEquals(expected.get(key), tree.get(key));
+    }
+
+    @Test
+    void intLongTreeMatchesTreeMap() {
+        Random random = new Random(13);
+        IntLongAVLTree tree = new IntLongAVLTree();
+        TreeMap<Integer, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(1000);
+            long value = random.nextLong();
+            switch (random.nextInt(4)) {
+                case 0 -> assertEquals(expected.put(key, value) == null, tree.put(key, value));
+                case 1 -> assertEquals(expected.merge(key, value, Long::sum), tree.add(key, value));
+                case 2 -> assertEquals(expected.remove(key) != null, tree.delete(key));
+                default -> assertEquals(expected.putIfAbsent(key, 0L) == null, tree.insert(key));
+            }
+        }
+        assertValid(tree);
+        assertEquals(expected.size(), tree.getSize());
+        for (int key = -1; key <= 1000; key++) assertEquals(expected.getOrDefault(key, -1L), tree.get(key, -1));
+    }
+
+    @Test
+    void treeInterfaceBoxesKeys() {
+        Tree<Integer> tree = new IntAVLTree<String>();
+        assertTrue(tree.insert(5));
+        assertEquals(2, tree.insertAll(List.of(1, 5, 9)));
+        assertTrue(tree.search(9));
+        assertTrue(tree.delete(1));
+        List<Integer> keys = new ArrayList<>();
+        tree.forEach(keys::add);
+        assertEquals(List.of(5, 9), keys);
+    }
+
+    @Test
+    void iteratorFailsFast() {
+        IntAVLTree<String> tree = new IntAVLTree<>();
+        tree.insert(1);
+        tree.insert(2);
+        PrimitiveIterator.OfInt iterator = tree.iterator();
+        iterator.nextInt();
+        tree.insert(3);
+        assertThrows(ConcurrentModificationException.class, iterator::nextInt);
+    }
+
+    /**
+     * Checks that a tree is balanced and that the heights stored in its nodes are correct.
+     *
+     * @param tree the tree to check.
+     */
+    private static void assertValid(PrimitiveAVLTree<?> tree) {
+        assertEquals(tree.getSize(), check(tree.root)[1]);
+    }
+
+    /**
+     * Checks a subtree, recursively.
+     *
+     * @param node the root of the subtree, may be null.
+     * @return the height and size of the subtree.
+     */
+    private static int[] check(PrimitiveAVLTree.Node<?> node) {
+        if (node == null) return new int[] {-1, 0};
+        int[] left = check(node.left);
+        int[] right = check(node.right);
+        assertTrue(Math.abs(left[0] - right[0]) <= 1, "balance");
+        assertEquals(Math.max(left[0], right[0]) + 1, node.height, "height");
+        return new int[] {node.height, left[1] + right[1] + 1};
+    }
+}
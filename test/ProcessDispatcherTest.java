@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that ProcessDispatcher runs the slices its PriorityScheduler decides on, and records failing slices once.
+ */
+class ProcessDispatcherTest {
+    @Test
+    void oneWorkerRunsLikeTheScheduler() throws InterruptedException {
+        PriorityScheduler scheduler = createScheduler(new SimulatedProcessClock());
+        scheduler.setAging(20_000_000L, 1);
+        List<String> expected = describe(scheduler.run(null));
+
+        PriorityScheduler dispatched = createScheduler(new SimulatedProcessClock());
+        dispatched.setAging(20_000_000L, 1);
+        ProcessDispatcher dispatcher = new ProcessDispatcher(dispatched, ProcessDispatcher.WorkerMode.PLATFORM, 1);
+        assertEquals(expected, describe(dispatcher.run(null)));
+        assertEquals(scheduler.getSlicesExecuted(), dispatcher.getSlicesExecuted());
+    }
+
+    @Test
+    void failingSlicesAreRecordedOnce() throws InterruptedException {
+        for (ProcessDispatcher.WorkerMode mode : ProcessDispatcher.WorkerMode.values()) {
+            SimulatedProcessClock clock = new SimulatedProcessClock();
+            PriorityScheduler scheduler = createScheduler(clock);
+            AtomicInteger attempts = new AtomicInteger();
+            RuntimeException failure = new IllegalStateException("crashed");
+            scheduler.add(new ProcessInfo("failing", 100, 0, 50, clock) {
+                @Override
+                public boolean executeProcess(int executionTime) {
+                    attempts.incrementAndGet();
+                    throw failure;
+                }
+            });
+            ProcessDispatcher dispatcher = new ProcessDispatcher(scheduler, mode, 4);
+            List<PriorityScheduler.Completion> completions = dispatcher.run(null);
+
+            assertEquals(1, attempts.get());
+            assertEquals(21, completions.size());
+            assertTrue(scheduler.getRegistry().isEmpty());
+            for (PriorityScheduler.Completion completion : completions) {
+                boolean failed = completion.getProcessInfo().getProcessId() == 100;
+                assertEquals(failed, completion.isFailed());
+                if (failed) assertSame(failure, completion.getFailure());
+            }
+        }
+    }
+
+    @Test
+    void schedulerRecordsFailingSlice() {
+        SimulatedProcessClock clock = new SimulatedProcessClock();
+        PriorityScheduler scheduler = createScheduler(clock);
+        // Ahead of every other process, so that it runs in the first slice
+        scheduler.add(new ProcessInfo("failing", -1, 0, 50, clock) {
+            @Override
+            public boolean executeProcess(int executionTime) {
+                throw new IllegalStateException("crashed");
+            }
+        });
+        PriorityScheduler.Completion completion = scheduler.runSlice();
+        assertTrue(completion.isFailed());
+        assertFalse(scheduler.getRegistry().contains(-1));
+        assertEquals(21, scheduler.run(null).size());
+    }
+
+    /**
+     * Creates a scheduler over twenty processes of mixed priority and runtime.
+     *
+     * @param clock the clock the processes run on.
+     * @return the scheduler.
+     */
+    private static PriorityScheduler createScheduler(SimulatedProcessClock clock) {
+        ProcessRegistry registry = new ProcessRegistry();
+        for (int i = 0; i < 20; i++) registry.add(new ProcessInfo("p" + i % 3, i, (i * 7) % 10, 5 + 4 * i, clock));
+        return new PriorityScheduler(registry, PriorityScheduler.DEFAULT_POLICY, clock);
+    }
+
+    /**
+     * Describes completion records.
+     *
+     * @param completions the completion records.
+     * @return the process id and round of each record, in order.
+     */
+    private static List<String> describe(List<PriorityScheduler.Completion> completions) {
+        List<String> described = new ArrayList<>();
+        for (PriorityScheduler.Completion completion : completions) {
+            described.add(completion.getProcessInfo().getProcessId() + "@" + completion.getRound());
+        }
+        return described;
+    }
+}
@@ -0,0 +1,164 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that ProcessJournal recovers the registry it logged, including the state of a PriorityScheduler that stopped
+ * without closing its journal.
+ */
+class ProcessJournalTest {
+    private static final long MILLISECOND = 1_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversLoggedOperations() throws IOException {
+        Path journalDirectory = directory.resolve("journal");
+        List<String> expected;
+        try (ProcessJournal journal = ProcessJournal.open(journalDirectory, ProcessJournal.Durability.SYNC)) {
+            ProcessInfo first = new ProcessInfo("a", 1, 5, 10);
+            ProcessInfo second = new ProcessInfo("b", 2, 3, 20);
+            assertTrue(journal.insert(first));
+            assertTrue(journal.insert(second));
+            assertTrue(journal.insert(new ProcessInfo("c", 3, 7, 30)));
+            assertFalse(journal.insert(new ProcessInfo("a", 1, 5, 1)));
+            assertTrue(journal.updateRuntime(first, 4));
+            assertTrue(journal.reprioritize(3, 1));
+            assertTrue(journal.delete(second));
+
+            // Operations on processes that are not registered are rejected without being logged
+            long logSize = Files.size(journalDirectory.resolve("journal-0.log"));
+            assertFalse(journal.updateRuntime(new ProcessInfo("a", 1, 5, 10), 2));
+            assertFalse(journal.updateRuntime(second, 2));
+            assertFalse(journal.reprioritize(2, 0));
+            assertFalse(journal.delete(second));
+            assertEquals(logSize, Files.size(journalDirectory.resolve("journal-0.log")));
+            assertEquals(20, second.getProcessRemainingRuntime());
+            expected = describe(journal.registry());
+        }
+        assertEquals(List.of("3:1:30:c", "1:5:4:a"), expected);
+        try (ProcessJournal journal = ProcessJournal.open(journalDirectory, ProcessJournal.Durability.SYNC)) {
+            assertEquals(expected, describe(journal.registry()));
+        }
+    }
+
+    @Test
+    void schedulerResumesAfterCrash() throws IOException {
+        Path journalDirectory = directory.resolve("journal");
+        Path crashDirectory = directory.resolve("crash");
+        SimulatedProcessClock clock = new SimulatedProcessClock();
+        TreeSet<Integer> completed = new TreeSet<>();
+        List<String> expected;
+        // A short checkpoint interval, so that recovery loads a snapshot taken mid-run and replays the log after it
+        try (ProcessJournal journal = ProcessJournal.open(journalDirectory, ProcessJournal.Durability.SYNC, 1, 1, 7)) {
+            PriorityScheduler scheduler = new PriorityScheduler(journal, PriorityScheduler.DEFAULT_POLICY, clock);
+            scheduler.setAging(20 * MILLISECOND, 1);
+            for (int i = 0; i < 10; i++) scheduler.add(new ProcessInfo("p" + i % 3, i, i % 4, 5 + 3 * i, clock));
+            for (int i = 0; i < 8; i++) {
+                PriorityScheduler.Completion completion = scheduler.runSlice();
+                if (completion != null) completed.add(completion.getProcessInfo().getProcessId());
+            }
+            assertFalse(completed.isEmpty());
+            assertTrue(scheduler.hasQueuedProcesses());
+            expected = describe(journal.registry());
+
+            // Crash: every operation has been forced to disk, so copying the open journal is what a restart would find
+            Files.createDirectories(crashDirectory);
+            try (Stream<Path> files = Files.list(journalDirectory)) {
+                for (Path file : files.toList()) Files.copy(file, crashDirectory.resolve(file.getFileName()));
+            }
+        }
+        // A record torn by the crash: a header promising more bytes than were written
+        Path log;
+        try (Stream<Path> files = Files.list(crashDirectory)) {
+            log = files.filter(file -> file.getFileName().toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        assertTrue(Files.exists(crashDirectory.resolve(log.getFileName().toString().replace("journal", "snapshot")
+                .replace(".log", ".bin"))));
+        Files.write(log, new byte[] {0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (ProcessJournal journal = ProcessJournal.open(crashDirectory, ProcessJournal.Durability.SYNC, 1, 1, 7)) {
+            assertEquals(expected, describe(journal.registry()));
+            PriorityScheduler scheduler = new PriorityScheduler(journal, PriorityScheduler.DEFAULT_POLICY);
+            for (PriorityScheduler.Completion completion : scheduler.run(null)) {
+                assertTrue(completed.add(completion.getProcessInfo().getProcessId()));
+            }
+            assertTrue(journal.registry().isEmpty());
+        }
+        assertEquals(10, completed.size());
+        try (ProcessJournal journal = ProcessJournal.open(crashDirectory, ProcessJournal.Durability.SYNC)) {
+            assertTrue(journal.registry().isEmpty());
+        }
+    }
+
+    @Test
+    void recoversProcessesSharingAnId() throws IOException {
+        Path journalDirectory = directory.resolve("journal");
+        ProcessInfo javac = new ProcessInfo("javac", 20, 3, 70);
+        ProcessInfo cc = new ProcessInfo("cc", 20, 4, 55);
+        try (ProcessJournal journal = ProcessJournal.open(journalDirectory, ProcessJournal.Durability.SYNC)) {
+            assertTrue(journal.insert(javac));
+            assertTrue(journal.insert(cc));
+            assertFalse(journal.insert(new ProcessInfo("gcc", 20, 4, 10)));
+            assertTrue(journal.updateRuntime(cc, 30));
+            assertFalse(journal.reprioritize(20, 4));
+            assertTrue(journal.reprioritize(20, 1));
+            assertEquals(List.of("20:1:70:javac", "20:4:30:cc"), describe(journal.registry()));
+        }
+        try (ProcessJournal journal = ProcessJournal.open(journalDirectory, ProcessJournal.Durability.SYNC)) {
+            assertEquals(List.of("20:1:70:javac", "20:4:30:cc"), describe(journal.registry()));
+            assertTrue(journal.delete(journal.registry().get(20, 1)));
+        }
+        try (ProcessJournal journal = ProcessJournal.open(journalDirectory, ProcessJournal.Durability.SYNC)) {
+            assertEquals(List.of("20:4:30:cc"), describe(journal.registry()));
+        }
+    }
+
+    @Test
+    void crashDuringCheckpointDoesNotReplayTheOldLog() throws IOException {
+        Path journalDirectory = directory.resolve("journal");
+        try (ProcessJournal journal = ProcessJournal.open(journalDirectory, ProcessJournal.Durability.SYNC)) {
+            ProcessInfo processInfo = new ProcessInfo("a", 20, 4, 10);
+            assertTrue(journal.insert(processInfo));
+            assertTrue(journal.reprioritize(20, 3));
+            byte[] oldLog = Files.readAllBytes(journalDirectory.resolve("journal-0.log"));
+            journal.checkpoint();
+            assertFalse(Files.exists(journalDirectory.resolve("journal-0.log")));
+            // A crash after the new snapshot was saved but before the old log was deleted
+            Files.write(journalDirectory.resolve("journal-0.log"), oldLog);
+            assertTrue(journal.updateRuntime(processInfo, 5));
+        }
+        try (ProcessJournal journal = ProcessJournal.open(journalDirectory, ProcessJournal.Durability.SYNC)) {
+            // Replaying the old log on top of the snapshot would insert the process again at its first priority
+            assertEquals(List.of("20:3:5:a"), describe(journal.registry()));
+            assertFalse(Files.exists(journalDirectory.resolve("journal-0.log")));
+        }
+    }
+
+    /**
+     * Describes the registered processes of a registry, in priority order.
+     *
+     * @param registry the registry.
+     * @return the id, priority, remaining runtime and name of each process.
+     */
+    private static List<String> describe(ProcessRegistry registry) {
+        List<String> processes = new ArrayList<>();
+        for (ProcessInfo processInfo : registry.getProcesses()) {
+            processes.add(processInfo.getProcessId() + ":" + processInfo.getProcessPriority() + ":"
+                    + processInfo.getProcessRemainingRuntime() + ":" + processInfo.getProcessName());
+        }
+        return processes;
+    }
+}
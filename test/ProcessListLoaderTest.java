@@ -0,0 +1,47 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that ProcessListLoader accepts well-formed process lists and rejects malformed records.
+ */
+class ProcessListLoaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsRecords() throws IOException {
+        AVLTree<ProcessInfo> tree = new AVLTree<>();
+        assertEquals(2, load("a|1|2|3\r\nb|4|5|6\n\n", tree));
+        assertEquals(2, tree.size());
+        assertEquals("a", tree.first().getProcessName());
+        assertEquals(6, tree.last().getProcessRemainingRuntime());
+    }
+
+    @Test
+    void rejectsMalformedRecords() {
+        for (String line : new String[] {"a|1|2|3|junk", "a|1|2|3|", "a|1|2", "a", "a|1|x|3", "a|1||3"}) {
+            IOException e = assertThrows(IOException.class, () -> load("b|4|5|6\n" + line + "\n", new AVLTree<>()),
+                    line);
+            assertEquals("Malformed process record at byte 8", e.getMessage(), line);
+        }
+    }
+
+    /**
+     * Writes a process list to a file and loads it.
+     *
+     * @param contents the contents of the file.
+     * @param tree the tree to load the processes into.
+     * @return the number of records loaded.
+     * @throws IOException if the file can not be written, or the loader rejects it.
+     */
+    private int load(String contents, AVLTree<ProcessInfo> tree) throws IOException {
+        Path file = Files.writeString(directory.resolve("processes.txt"), contents);
+        return new ProcessListLoader(false, null, new SimulatedProcessClock()).load(file, tree);
+    }
+}
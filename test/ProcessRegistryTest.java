@@ -0,0 +1,180 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ProcessRegistry, on its own against a TreeSet and as the queue of PriorityScheduler.
+ */
+class ProcessRegistryTest {
+    private static final long MILLISECOND = 1_000_000L;
+
+    @Test
+    void indexesMatchTreeSet() {
+        Random random = new Random(41);
+        SimulatedProcessClock clock = new SimulatedProcessClock();
+        ProcessRegistry registry = new ProcessRegistry();
+        // Ids are drawn from a small range so that many processes share one
+        TreeSet<ProcessInfo> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            int processId = random.nextInt(200);
+            ProcessInfo registered = registry.get(processId);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    ProcessInfo processInfo = new ProcessInfo("p" + processId % 7, processId, random.nextInt(10), 1,
+                            clock);
+                    assertEquals(expected.add(processInfo), registry.add(processInfo));
+                }
+                case 1 -> {
+                    assertSame(registered, registry.remove(processId));
+                    if (registered != null) expected.remove(registered);
+                }
+                default -> {
+                    int newPriority = random.nextInt(10);
+                    boolean changed = registered != null && (registered.getProcessPriority() == newPriority
+                            || registry.get(processId, newPriority) == null);
+                    if (changed) expected.remove(registered);
+                    assertEquals(changed, registry.reprioritize(processId, newPriority));
+                    if (changed) expected.add(registered);
+                }
+            }
+        }
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(registry.getQueue()));
+        assertEquals(expected.size(), registry.getSize());
+        for (ProcessInfo processInfo : expected) {
+            assertTrue(registry.getByName(processInfo.getProcessName()).contains(processInfo));
+            assertTrue(registry.getAll(processInfo.getProcessId()).contains(processInfo));
+            assertSame(processInfo, registry.get(processInfo.getProcessId(), processInfo.getProcessPriority()));
+        }
+        for (int processId = 0; processId < 200; processId++) {
+            int id = processId;
+            assertEquals(expected.stream().filter(p -> p.getProcessId() == id).count(), registry.getAll(id).size());
+        }
+        while (!expected.isEmpty()) assertSame(expected.pollFirst(), registry.pollFirst());
+        assertTrue(registry.isEmpty());
+        assertTrue(registry.getByName("p0").isEmpty());
+    }
+
+    @Test
+    void processesMayShareAnId() {
+        SimulatedProcessClock clock = new SimulatedProcessClock();
+        ProcessRegistry registry = new ProcessRegistry();
+        ProcessInfo javac = new ProcessInfo("javac", 20, 3, 70, clock);
+        ProcessInfo cc = new ProcessInfo("cc", 20, 4, 55, clock);
+        assertTrue(registry.add(javac));
+        assertTrue(registry.add(cc));
+        // Only a process with the same id and priority is a duplicate
+        assertFalse(registry.add(new ProcessInfo("gcc", 20, 4, 10, clock)));
+        assertEquals(2, registry.getSize());
+        assertSame(javac, registry.get(20));
+        assertSame(cc, registry.get(20, 4));
+        assertEquals(List.of(javac, cc), registry.getAll(20));
+
+        // By id alone, the process registered first is changed; cc can not take a priority javac holds
+        assertFalse(registry.reprioritize(cc, 3));
+        assertTrue(registry.reprioritize(20, 1));
+        assertEquals(1, javac.getProcessPriority());
+        assertTrue(registry.reprioritize(cc, 3));
+        assertEquals(List.of(javac, cc), new ArrayList<>(registry.getQueue()));
+
+        // Aging skips cc while javac holds the priority it would get
+        assertTrue(registry.reprioritize(20, 0));
+        assertTrue(registry.reprioritize(cc, 1));
+        clock.advance(10 * MILLISECOND);
+        assertEquals(0, registry.age(5 * MILLISECOND, 1));
+        assertEquals(1, cc.getProcessPriority());
+
+        PriorityScheduler scheduler = new PriorityScheduler(registry, PriorityScheduler.DEFAULT_POLICY, clock);
+        List<PriorityScheduler.Completion> completions = scheduler.run(null);
+        assertEquals(List.of(javac, cc),
+                completions.stream().map(PriorityScheduler.Completion::getProcessInfo).toList());
+        assertTrue(registry.getAll(20).isEmpty());
+        assertFalse(registry.contains(20));
+    }
+
+    @Test
+    void ageVisitsOnlyProcessesThatWaitedLongEnough() {
+        SimulatedProcessClock clock = new SimulatedProcessClock();
+        ProcessRegistry registry = new ProcessRegistry();
+        registry.add(new ProcessInfo("old", 1, 5, 10, clock));
+        clock.advance(10 * MILLISECOND);
+        registry.add(new ProcessInfo("new", 2, 5, 10, clock));
+        registry.add(new ProcessInfo("idle", 3, 0, 10, clock));
+        clock.advance(5 * MILLISECOND);
+
+        assertEquals(1, registry.age(12 * MILLISECOND, 2));
+        assertEquals(3, registry.get(1).getProcessPriority());
+        assertEquals(5, registry.get(2).getProcessPriority());
+        // The aged process starts waiting again, so it is not aged twice for the same wait
+        assertEquals(0, registry.age(12 * MILLISECOND, 2));
+
+        clock.advance(10 * MILLISECOND);
+        // The process at priority 0 is due too, but can not gain priority
+        assertEquals(1, registry.age(12 * MILLISECOND, 2));
+        assertEquals(3, registry.get(2).getProcessPriority());
+        assertEquals(0, registry.get(3).getProcessPriority());
+        assertEquals(List.of(registry.get(3), registry.get(1), registry.get(2)), new ArrayList<>(registry.getQueue()));
+    }
+
+    @Test
+    void roundsKeepRequeuedProcessesApart() {
+        SimulatedProcessClock clock = new SimulatedProcessClock();
+        ProcessRegistry registry = new ProcessRegistry();
+        ProcessInfo first = new ProcessInfo("a", 1, 1, 10, clock);
+        ProcessInfo second = new ProcessInfo("b", 2, 2, 10, clock);
+        registry.add(first);
+        registry.add(second);
+
+        assertSame(first, registry.takeFirst());
+        assertTrue(registry.contains(1));
+        assertEquals(1, registry.getQueuedCount());
+        assertFalse(registry.startNextRound());
+        assertTrue(registry.requeue(first));
+        assertFalse(registry.requeue(first));
+        // A process requeued for the next round waits until the current round has run out
+        assertSame(second, registry.takeFirst());
+        assertNull(registry.takeFirst());
+        assertTrue(registry.startNextRound());
+        assertTrue(registry.reprioritize(2, 0));
+        assertTrue(registry.requeue(second));
+        assertSame(first, registry.peekFirst());
+        assertEquals(List.of(first, second), toList(registry));
+    }
+
+    @Test
+    void schedulerAgesStarvedProcesses() {
+        SimulatedProcessClock clock = new SimulatedProcessClock();
+        ProcessRegistry registry = new ProcessRegistry();
+        registry.add(new ProcessInfo("background", 0, 9, 3, clock));
+        for (int i = 1; i <= 20; i++) registry.add(new ProcessInfo("urgent", i, 0, 30, clock));
+        PriorityScheduler scheduler = new PriorityScheduler(registry, PriorityScheduler.DEFAULT_POLICY, clock);
+        scheduler.setAging(50 * MILLISECOND, 3);
+
+        List<PriorityScheduler.Completion> completions = scheduler.run(null);
+        assertEquals(21, completions.size());
+        assertTrue(registry.isEmpty());
+        // Without aging the background process would run last; aging lets it finish during the first round
+        assertEquals(0, completions.get(0).getProcessInfo().getProcessId());
+        assertEquals(0, completions.get(0).getRound());
+        assertEquals(0, completions.get(0).getProcessInfo().getProcessPriority());
+    }
+
+    /**
+     * Collects the queued processes of a registry in iteration order.
+     *
+     * @param registry the registry.
+     * @return the processes.
+     */
+    private static List<ProcessInfo> toList(ProcessRegistry registry) {
+        List<ProcessInfo> processes = new ArrayList<>();
+        registry.forEach(processes::add);
+        return processes;
+    }
+}
@@ -0,0 +1,82 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that ProcessSnapshot restores what it saved, and rejects snapshots whose header or name table is corrupt.
+ */
+class ProcessSnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresSavedTree() throws IOException {
+        AVLTree<ProcessInfo> tree = new AVLTree<>();
+        for (int i = 0; i < 1000; i++) {
+            ProcessInfo processInfo = new ProcessInfo("process" + (i % 7), i, i % 10, i + 1);
+            processInfo.setProcessElapsedTime(i * 1_000_003L);
+            tree.insert(processInfo);
+        }
+        Path file = directory.resolve("snapshot");
+        ProcessSnapshot.save(tree, file);
+        AVLTree<ProcessInfo> restored = ProcessSnapshot.load(file);
+        assertEquals(describe(tree), describe(restored));
+    }
+
+    @Test
+    void rejectsCorruptHeaders() throws IOException {
+        AVLTree<ProcessInfo> tree = new AVLTree<>();
+        tree.insert(new ProcessInfo("a", 1, 2, 3));
+        Path file = directory.resolve("snapshot");
+        ProcessSnapshot.save(tree, file);
+        byte[] valid = Files.readAllBytes(file);
+
+        assertCorrupt(valid, 4, 1);
+        assertCorrupt(valid, 8, Integer.MAX_VALUE);
+        assertCorrupt(valid, 8, -1);
+        assertCorrupt(valid, 12, Integer.MAX_VALUE);
+        assertCorrupt(valid, 12, 2);
+        assertCorrupt(valid, 16, Integer.MAX_VALUE);
+        assertCorrupt(valid, 16, -1);
+        assertCorrupt(valid, 16, 2);
+    }
+
+    /**
+     * Overwrites one int of a valid snapshot and checks that loading it fails with an IOException.
+     *
+     * @param valid the bytes of a valid snapshot.
+     * @param offset the offset of the int to overwrite.
+     * @param value the value to write.
+     * @throws IOException if the snapshot can not be written.
+     */
+    private void assertCorrupt(byte[] valid, int offset, int value) throws IOException {
+        byte[] bytes = valid.clone();
+        ByteBuffer.wrap(bytes).putInt(offset, value);
+        Path file = Files.write(directory.resolve("corrupt"), bytes);
+        assertThrows(IOException.class, () -> ProcessSnapshot.load(file), offset + " = " + value);
+    }
+
+    /**
+     * Describes every field of the processes in a tree, in order.
+     *
+     * @param tree the tree.
+     * @return one description per process.
+     */
+    private static List<String> describe(AVLTree<ProcessInfo> tree) {
+        List<String> descriptions = new ArrayList<>();
+        for (ProcessInfo p : tree) {
+            descriptions.add(p.getProcessName() + "|" + p.getProcessId() + "|" + p.getProcessPriority() + "|"
+                    + p.getProcessRemainingRuntime() + "|" + p.getProcessStartTime() + "|" + p.getProcessEndTime() + "|"
+                    + p.getProcessElapsedTime());
+        }
+        return descriptions;
+    }
+}
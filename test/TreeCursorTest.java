@@ -0,0 +1,131 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TreeCursor over BST and AVLTree against java.util.TreeSet: traversals in both directions, seeking, the ends of
+ * the tree, and failing fast once the tree is modified.
+ */
+class TreeCursorTest {
+    @Test
+    void traversalsMatchTreeSet() {
+        TreeSet<Integer> expected = new TreeSet<>();
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        BST<Integer> bst = new BST<>();
+        Random random = new Random(20);
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(20_000);
+            expected.add(key);
+            avlTree.insert(key);
+            bst.insert(key);
+        }
+        // Ascending inserts make a BST a single spine, deeper than the cursor's initial path array
+        BST<Integer> spine = new BST<>();
+        for (int key : expected) spine.insert(key);
+
+        for (BST<Integer> tree : List.of(avlTree, bst, spine)) {
+            TreeCursor<Integer> cursor = tree.cursor();
+            List<Integer> forward = new ArrayList<>();
+            for (boolean valid = cursor.first(); valid; valid = cursor.next()) forward.add(cursor.get());
+            assertEquals(new ArrayList<>(expected), forward);
+            List<Integer> backward = new ArrayList<>();
+            for (boolean valid = cursor.last(); valid; valid = cursor.previous()) backward.add(cursor.get());
+            assertEquals(new ArrayList<>(expected.descendingSet()), backward);
+        }
+    }
+
+    @Test
+    void seekMatchesCeilingAndFloor() {
+        TreeSet<Integer> expected = new TreeSet<>();
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 1000; i += 4) {
+            expected.add(i);
+            tree.insert(i);
+        }
+        TreeCursor<Integer> cursor = tree.cursor();
+        for (int key = -5; key < 1005; key++) {
+            Integer ceiling = expected.ceiling(key);
+            assertEquals(ceiling != null, cursor.seekCeiling(key), "ceiling of " + key);
+            if (ceiling != null) {
+                assertEquals(ceiling, cursor.get());
+                Integer higher = expected.higher(ceiling);
+                assertEquals(higher != null, cursor.next());
+                if (higher != null) assertEquals(higher, cursor.get());
+            }
+            Integer floor = expected.floor(key);
+            assertEquals(floor != null, cursor.seekFloor(key), "floor of " + key);
+            if (floor != null) {
+                assertEquals(floor, cursor.get());
+                Integer lower = expected.lower(floor);
+                assertEquals(lower != null, cursor.previous());
+                if (lower != null) assertEquals(lower, cursor.get());
+            }
+        }
+    }
+
+    @Test
+    void stopsAtBothEnds() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 1; i <= 10; i++) tree.insert(i);
+        TreeCursor<Integer> cursor = tree.cursor();
+        assertFalse(cursor.isValid());
+        assertThrows(NoSuchElementException.class, cursor::get);
+
+        assertTrue(cursor.first());
+        assertEquals(1, cursor.get());
+        assertFalse(cursor.previous());
+        assertFalse(cursor.isValid());
+        assertThrows(NoSuchElementException.class, cursor::get);
+        assertFalse(cursor.next());
+
+        assertTrue(cursor.last());
+        assertEquals(10, cursor.get());
+        assertFalse(cursor.next());
+        assertFalse(cursor.isValid());
+        assertFalse(cursor.previous());
+
+        assertFalse(cursor.seekCeiling(11));
+        assertFalse(cursor.seekFloor(0));
+
+        TreeCursor<Integer> empty = new AVLTree<Integer>().cursor();
+        assertFalse(empty.first());
+        assertFalse(empty.last());
+        assertFalse(empty.seekCeiling(0));
+    }
+
+    @Test
+    void failsFastAfterModification() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i++) tree.insert(i);
+        TreeCursor<Integer> cursor = tree.cursor();
+        assertTrue(cursor.seekCeiling(50));
+        tree.insert(1000);
+        assertThrows(ConcurrentModificationException.class, cursor::next);
+        assertThrows(ConcurrentModificationException.class, cursor::previous);
+        assertThrows(ConcurrentModificationException.class, cursor::get);
+
+        // Positioning the cursor again makes it usable
+        assertTrue(cursor.seekFloor(50));
+        assertTrue(cursor.next());
+        assertEquals(51, cursor.get());
+        tree.delete(0);
+        assertThrows(ConcurrentModificationException.class, cursor::get);
+
+        // An unpositioned cursor has nothing to invalidate
+        cursor.reset();
+        tree.delete(1);
+        assertFalse(cursor.isValid());
+        assertFalse(cursor.next());
+        assertTrue(cursor.first());
+        assertEquals(2, cursor.get());
+    }
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that trees collect metrics when the JVM runs with -Dtree.metrics=true (the metrics-test execution of the
+ * build), and that TreeMetrics publishes them through the platform MBeanServer.
+ */
+class TreeMetricsTest {
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    @Test
+    void avlTreeCountsOperations() throws JMException {
+        assertTrue(TreeMetrics.ENABLED, "run with -Dtree.metrics=true");
+        AVLTree<Integer> tree = new AVLTree<>();
+        ObjectName name = TreeMetrics.register("avl", tree);
+        try {
+            assertEquals("AVLTree", name.getKeyProperty("type"));
+            assertEquals(true, server.getAttribute(name, "Enabled"));
+            assertEquals(0L, server.getAttribute(name, "Comparisons"));
+            assertEquals(0L, server.getAttribute(name, "InsertCount"));
+
+            // Ascending inserts only ever rotate left
+            for (int i = 0; i < 1000; i++) tree.insert(i);
+            for (int i = 0; i < 500; i++) tree.search(i * 2);
+            for (int i = 0; i < 100; i++) tree.delete(i);
+            int iterated = 0;
+            for (Integer ignored : tree) iterated++;
+
+            assertTrue((long) server.getAttribute(name, "Comparisons") > 1000);
+            assertTrue((long) server.getAttribute(name, "RotationsRR") > 0);
+            assertEquals(0L, server.getAttribute(name, "RotationsLL"));
+            assertEquals(1000L, server.getAttribute(name, "InsertCount"));
+            assertEquals(500L, server.getAttribute(name, "SearchCount"));
+            assertEquals(100L, server.getAttribute(name, "DeleteCount"));
+            assertEquals((long) iterated, server.getAttribute(name, "IteratedElements"));
+            assertEquals(1000L, sum((long[]) server.getAttribute(name, "InsertLatencyHistogram")));
+            assertEquals(100L, sum((long[]) server.getAttribute(name, "DeleteLatencyHistogram")));
+            assertTrue((double) server.getAttribute(name, "InsertMeanNanos") > 0);
+            assertTrue((long) server.getAttribute(name, "SearchP99Nanos") > 0);
+
+            assertEquals(900, server.getAttribute(name, "Size"));
+            int height = (int) server.getAttribute(name, "Height");
+            assertEquals(tree.height(), height);
+            assertTrue((int) server.getAttribute(name, "MinimumHeight") <= height);
+            assertTrue(height <= (int) server.getAttribute(name, "MaximumHeight"));
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "Comparisons"));
+            assertEquals(0L, server.getAttribute(name, "InsertCount"));
+            assertEquals(0L, sum((long[]) server.getAttribute(name, "SearchLatencyHistogram")));
+            assertEquals(900, server.getAttribute(name, "Size"));
+        } finally {
+            TreeMetrics.unregister(name);
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    void bstIsMonitoredWithItsComputedHeight() throws JMException {
+        assertTrue(TreeMetrics.ENABLED, "run with -Dtree.metrics=true");
+        BST<Integer> tree = new BST<>();
+        ObjectName name = TreeMetrics.register("bst", tree);
+        try {
+            assertEquals("BST", name.getKeyProperty("type"));
+            assertEquals(-1, server.getAttribute(name, "Height"));
+            // Ascending inserts build a single right spine
+            for (int i = 0; i < 100; i++) tree.insert(i);
+            assertTrue(tree.search(50));
+            assertTrue(tree.delete(99));
+
+            assertEquals(99, server.getAttribute(name, "Size"));
+            assertEquals(98, server.getAttribute(name, "Height"));
+            assertEquals(98, server.getAttribute(name, "MaximumHeight"));
+            assertEquals(6, server.getAttribute(name, "MinimumHeight"));
+            assertEquals(100L, server.getAttribute(name, "InsertCount"));
+            assertEquals(1L, server.getAttribute(name, "SearchCount"));
+            assertEquals(1L, server.getAttribute(name, "DeleteCount"));
+            // The n-th insert compares with the n - 1 nodes of the spine
+            assertTrue((long) server.getAttribute(name, "Comparisons") >= 99 * 100 / 2);
+            assertEquals(0L, server.getAttribute(name, "RotationsRR"));
+        } finally {
+            TreeMetrics.unregister(name);
+        }
+    }
+
+    /**
+     * Adds up the buckets of a latency histogram.
+     *
+     * @param histogram the bucket counts.
+     * @return the number of latencies recorded.
+     */
+    private static long sum(long[] histogram) {
+        return Arrays.stream(histogram).sum();
+    }
+}
@@ -0,0 +1,149 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the spliterator of BST and AVLTree against java.util.TreeSet: how it splits, its characteristics, and that
+ * parallel streams give the same results as sequential ones.
+ */
+class TreeSpliteratorTest {
+    @Test
+    void avlTreeSplitsIntoExactlySizedParts() {
+        TreeSet<Integer> expected = new TreeSet<>();
+        AVLTree<Integer> tree = new AVLTree<>();
+        fill(tree, expected, 10_000);
+        Spliterator<Integer> spliterator = tree.spliterator();
+        int characteristics = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL
+                | Spliterator.SIZED | Spliterator.SUBSIZED;
+        assertEquals(characteristics, spliterator.characteristics());
+        assertNull(spliterator.getComparator());
+        assertEquals(expected.size(), spliterator.getExactSizeIfKnown());
+
+        List<Integer> elements = new ArrayList<>();
+        split(spliterator, 6, elements, true);
+        assertEquals(new ArrayList<>(expected), elements);
+    }
+
+    @Test
+    void bstSplitsWithEstimatedSizes() {
+        TreeSet<Integer> expected = new TreeSet<>();
+        BST<Integer> tree = new BST<>();
+        fill(tree, expected, 10_000);
+        Spliterator<Integer> spliterator = tree.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        // A BST does not track subtree sizes, so only the whole tree's size is known
+        assertEquals(-1, spliterator.getExactSizeIfKnown());
+        assertEquals(expected.size(), spliterator.estimateSize());
+
+        List<Integer> elements = new ArrayList<>();
+        split(spliterator, 6, elements, false);
+        assertEquals(new ArrayList<>(expected), elements);
+    }
+
+    @Test
+    void splitsStopOnceTraversalStarts() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i++) tree.insert(i);
+        Spliterator<Integer> spliterator = tree.spliterator();
+        assertTrue(spliterator.tryAdvance(e -> assertEquals(0, e)));
+        assertNull(spliterator.trySplit());
+        assertEquals(99, spliterator.estimateSize());
+
+        AVLTree<Integer> leaf = new AVLTree<>();
+        leaf.insert(1);
+        assertNull(leaf.spliterator().trySplit());
+    }
+
+    @Test
+    void failsFastWhenTheTreeIsModified() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i++) tree.insert(i);
+        Spliterator<Integer> spliterator = tree.spliterator();
+        assertThrows(ConcurrentModificationException.class, () -> spliterator.forEachRemaining(e -> tree.insert(-1)));
+    }
+
+    @Test
+    void parallelStreamsMatchSequentialStreams() {
+        Random random = new Random(5);
+        TreeSet<Integer> expected = new TreeSet<>();
+        BST<Integer> bst = new BST<>();
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(1_000_000);
+            expected.add(key);
+            bst.insert(key);
+            avlTree.insert(key);
+        }
+        List<Integer> sequential = expected.stream().filter(e -> e % 3 == 0).map(e -> e / 3).toList();
+        long sum = expected.stream().mapToLong(Integer::longValue).sum();
+        for (Tree<Integer> tree : List.<Tree<Integer>>of(bst, avlTree)) {
+            assertEquals(sequential, StreamSupport.stream(tree.spliterator(), false)
+                    .filter(e -> e % 3 == 0).map(e -> e / 3).toList());
+            assertEquals(sequential, StreamSupport.stream(tree.spliterator(), true)
+                    .filter(e -> e % 3 == 0).map(e -> e / 3).toList());
+            assertEquals(sum, StreamSupport.stream(tree.spliterator(), true).mapToLong(Integer::longValue).sum());
+            assertEquals(expected.size(), StreamSupport.stream(tree.spliterator(), true).count());
+            assertEquals(expected.stream().map(String::valueOf).collect(Collectors.joining(",")),
+                    StreamSupport.stream(tree.spliterator(), true).map(String::valueOf)
+                            .collect(Collectors.joining(",")));
+        }
+    }
+
+    /**
+     * Fills a tree and a TreeSet with the same random elements.
+     *
+     * @param tree the tree.
+     * @param expected the TreeSet.
+     * @param count the number of random elements, duplicates included.
+     */
+    private static void fill(Tree<Integer> tree, TreeSet<Integer> expected, int count) {
+        Random random = new Random(count);
+        for (int i = 0; i < count; i++) {
+            int key = random.nextInt(count * 10);
+            assertEquals(expected.add(key), tree.insert(key));
+        }
+    }
+
+    /**
+     * Splits a spliterator recursively, checking that each split divides its elements in order, and collects them.
+     *
+     * @param spliterator the spliterator.
+     * @param depth the number of times to split further.
+     * @param elements the list the elements are added to, in order.
+     * @param sized whether the spliterator knows the exact size of each part.
+     */
+    private static void split(Spliterator<Integer> spliterator, int depth, List<Integer> elements, boolean sized) {
+        long estimate = spliterator.estimateSize();
+        Spliterator<Integer> prefix = (depth == 0) ? null : spliterator.trySplit();
+        if (prefix == null) {
+            int start = elements.size();
+            spliterator.forEachRemaining(elements::add);
+            if (sized) assertEquals(estimate, elements.size() - start);
+            return;
+        }
+        // The estimate is divided between the two parts, neither of which is empty
+        assertEquals(estimate, prefix.estimateSize() + spliterator.estimateSize());
+        assertTrue(prefix.estimateSize() > 0 && spliterator.estimateSize() > 0);
+        if (sized) assertTrue(prefix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        int start = elements.size();
+        split(prefix, depth - 1, elements, sized);
+        int middle = elements.size();
+        split(spliterator, depth - 1, elements, sized);
+        if (middle > start && elements.size() > middle) {
+            assertTrue(elements.get(middle - 1) < elements.get(middle));
+        }
+    }
+}